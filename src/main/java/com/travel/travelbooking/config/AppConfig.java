@@ -1,14 +1,66 @@
 package com.travel.travelbooking.config;
 
+import com.travel.travelbooking.service.OutboundHttpMetrics;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// HTTP ra ngoài: mỗi hệ thống (MoMo, Groq) có HttpClient riêng (kết nối keep-alive / HTTP/2 dùng lại,
+// thread pool riêng), timeout riêng và bulkhead riêng (OutboundHttpInterceptor).
+// Cấu hình: http.client.<momo|groq>.{connect-timeout-ms, read-timeout-ms, max-concurrent, acquire-timeout-ms, threads}
 @Configuration
 public class AppConfig {
 
+    public static final String MOMO = "momo";
+    public static final String GROQ = "groq";
+
+    // Inject theo tên tham số: RestTemplate momoRestTemplate / groqRestTemplate
+    @Bean
+    public RestTemplate momoRestTemplate(Environment env, OutboundHttpMetrics metrics) {
+        return restTemplate(MOMO, env, metrics, 2000, 10000, 20);
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate groqRestTemplate(Environment env, OutboundHttpMetrics metrics) {
+        return restTemplate(GROQ, env, metrics, 2000, 20000, 10);
+    }
+
+    /* ---- helpers ---- */
+
+    private RestTemplate restTemplate(String target, Environment env, OutboundHttpMetrics metrics,
+                                      long defaultConnectMs, long defaultReadMs, int defaultMaxConcurrent) {
+        String prefix = "http.client." + target + ".";
+        long connectMs = env.getProperty(prefix + "connect-timeout-ms", Long.class, defaultConnectMs);
+        long readMs = env.getProperty(prefix + "read-timeout-ms", Long.class, defaultReadMs);
+        int maxConcurrent = env.getProperty(prefix + "max-concurrent", Integer.class, defaultMaxConcurrent);
+        long acquireMs = env.getProperty(prefix + "acquire-timeout-ms", Long.class, 200L);
+        int threads = env.getProperty(prefix + "threads", Integer.class, 4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "http-" + target);
+            t.setDaemon(true);
+            return t;
+        });
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)          // tự hạ xuống HTTP/1.1 nếu server không hỗ trợ
+                .connectTimeout(Duration.ofMillis(connectMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+        factory.setReadTimeout(Duration.ofMillis(readMs));
+
+        RestTemplate restTemplate = new RestTemplate(factory);
+        restTemplate.setInterceptors(List.of(new OutboundHttpInterceptor(target, maxConcurrent, acquireMs, metrics)));
+        return restTemplate;
     }
 }
@@ -0,0 +1,44 @@
+package com.travel.travelbooking.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Tên cache dùng chung
+    public static final String TOUR_BY_ID = "tourById";
+    public static final String DESTINATIONS = "destinations";
+    public static final String ACTIVE_CATEGORIES = "activeCategories";
+    public static final String PUBLIC_DASHBOARD = "publicDashboard";
+
+    // Cấu hình mặc định (Caffeine spec), ghi đè bằng app.cache.spec.<tên cache>
+    private static final Map<String, String> DEFAULT_SPECS = Map.of(
+            TOUR_BY_ID, "maximumSize=5000,expireAfterWrite=10m",
+            DESTINATIONS, "maximumSize=10,expireAfterWrite=30m",
+            ACTIVE_CATEGORIES, "maximumSize=10,expireAfterWrite=30m",
+            PUBLIC_DASHBOARD, "maximumSize=100,expireAfterWrite=60s"
+    );
+
+    @Bean
+    public CacheManager cacheManager(Environment env) {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        manager.setAllowNullValues(false);
+        // Tắt tạo cache động: tên cache sai sẽ báo lỗi thay vì sinh cache không giới hạn
+        manager.setCacheNames(List.of());
+        DEFAULT_SPECS.forEach((name, defaultSpec) -> {
+            String spec = env.getProperty("app.cache.spec." + name, defaultSpec);
+            manager.registerCustomCache(name, Caffeine.from(spec).recordStats().build());
+        });
+        return manager;
+    }
+}
@@ -0,0 +1,53 @@
+package com.travel.travelbooking.config;
+
+import com.travel.travelbooking.service.CatalogVersionService;
+import com.travel.travelbooking.service.CatalogVersionService.Aggregate;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+
+// GET có điều kiện cho các API danh mục: ETag / Last-Modified lấy từ CatalogVersionService.
+// Khớp If-None-Match (hoặc If-Modified-Since) → trả 304 ngay, không gọi controller / repository.
+// Cache-Control cấu hình theo nhóm: app.http-cache.cache-control.<tours|destinations|categories|hotels>
+@Component
+@RequiredArgsConstructor
+public class CatalogETagInterceptor implements HandlerInterceptor {
+
+    // Mặc định: trình duyệt được giữ bản sao nhưng luôn hỏi lại (rẻ nhờ 304)
+    private static final String DEFAULT_CACHE_CONTROL = "no-cache";
+
+    private final CatalogVersionService catalogVersionService;
+    private final Environment env;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod())) return true;
+
+        Aggregate aggregate = aggregateOf(request);
+        if (aggregate == null) return true;
+
+        CatalogVersionService.Version version = catalogVersionService.current(aggregate);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, env.getProperty(
+                "app.http-cache.cache-control." + aggregate.name().toLowerCase(), DEFAULT_CACHE_CONTROL));
+
+        // checkNotModified tự gắn ETag / Last-Modified vào response và đặt 304 khi khớp
+        return !new ServletWebRequest(request, response).checkNotModified(version.etag(), version.lastModified());
+    }
+
+    // Interceptor được đăng ký theo path (WebMvcConfig.CATALOG_PATHS) → chỉ cần tra nhóm
+    private Aggregate aggregateOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, Aggregate> e : WebMvcConfig.CATALOG_PREFIXES.entrySet()) {
+            if (path.startsWith(e.getKey())) return e.getValue();
+        }
+        return null;
+    }
+}
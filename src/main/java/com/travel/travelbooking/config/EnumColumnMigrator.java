@@ -0,0 +1,65 @@
+package com.travel.travelbooking.config;
+
+import com.travel.travelbooking.entity.BookingStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// ddl-auto=update không sửa cột ENUM đã có → bổ sung giá trị enum Java còn thiếu trong DB.
+// Chạy sau khi Hibernate cập nhật schema (mọi singleton đã tạo) và trước khi Tomcat nhận request.
+// Giá trị đang có trong DB được giữ nguyên (kể cả khi enum Java đã bỏ) để ALTER không lỗi trên dữ liệu cũ.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EnumColumnMigrator implements SmartInitializingSingleton {
+
+    private static final Pattern VALUE = Pattern.compile("'((?:[^']|'')*)'");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ensureValues("bookings", "status", BookingStatus.class);
+    }
+
+    private void ensureValues(String table, String column, Class<? extends Enum<?>> type) {
+        List<String> types = jdbcTemplate.queryForList("""
+                SELECT COLUMN_TYPE FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+                """, String.class, table, column);
+        if (types.isEmpty() || !types.get(0).toLowerCase().startsWith("enum(")) return;
+
+        Set<String> existing = parseValues(types.get(0));
+        Set<String> merged = new LinkedHashSet<>(existing);
+        Arrays.stream(type.getEnumConstants()).map(Enum::name).forEach(merged::add);
+        if (merged.size() == existing.size()) return;
+
+        jdbcTemplate.execute("ALTER TABLE " + table + " MODIFY " + column + " " + enumDefinition(merged) + " NOT NULL");
+        merged.removeAll(existing);
+        log.info("Added {} to {}.{}", merged, table, column);
+    }
+
+    // enum('A','B') → [A, B]
+    static Set<String> parseValues(String columnType) {
+        Set<String> values = new LinkedHashSet<>();
+        Matcher m = VALUE.matcher(columnType);
+        while (m.find()) values.add(m.group(1).replace("''", "'"));
+        return values;
+    }
+
+    static String enumDefinition(Set<String> values) {
+        return values.stream()
+                .map(v -> "'" + v.replace("'", "''") + "'")
+                .collect(Collectors.joining(",", "ENUM(", ")"));
+    }
+}
@@ -0,0 +1,202 @@
+package com.travel.travelbooking.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travel.travelbooking.payload.ApiResponse;
+import com.travel.travelbooking.service.IdempotencyService;
+import com.travel.travelbooking.service.IdempotencyService.StoredResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+// Header Idempotency-Key cho các POST tạo dữ liệu (đặt tour, tạo thanh toán MoMo).
+// Mạng chập chờn khiến client gửi lại → không tạo trùng Booking / BookingContact / Payment,
+// không kiểm tra chỗ / gọi MoMo lần nữa: request lặp lại nhận đúng response của lần đầu.
+// Key gắn với người gọi + endpoint; không gửi header → xử lý như cũ.
+// Khách vãng lai không có danh tính chung được: key gắn thêm IP và phải đủ dài (UUID) để
+// hai khách khác nhau không vô tình dùng chung một key.
+// Filter chạy sau springSecurityFilterChain (đăng ký tự động) nên đã biết người dùng hiện tại.
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int MIN_GUEST_KEY_LENGTH = 16;
+    private static final List<String> PATHS = List.of("/api/bookings", "/api/payments/momo/create/*");
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod()) || request.getHeader(HEADER) == null) return true;
+        String path = request.getServletPath();
+        return PATHS.stream().noneMatch(p -> PATH_MATCHER.match(p, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    HEADER + " không hợp lệ (1-" + MAX_KEY_LENGTH + " ký tự)");
+            return;
+        }
+
+        String caller = caller();
+        if (caller == null && key.length() < MIN_GUEST_KEY_LENGTH) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Khách chưa đăng nhập cần " + HEADER + " ngẫu nhiên từ " + MIN_GUEST_KEY_LENGTH + " ký tự (UUID)");
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        String endpoint = request.getMethod() + " " + request.getServletPath();
+        String scope = caller != null ? "user:" + caller : "guest:" + request.getRemoteAddr();
+        String storeKey = sha256((scope + "\n" + endpoint + "\n" + key).getBytes(StandardCharsets.UTF_8));
+        String fingerprint = sha256(concat(endpoint + "?" + request.getQueryString() + "\n", body));
+
+        IdempotencyService.Result result = idempotencyService.begin(storeKey, fingerprint);
+        switch (result.outcome()) {
+            case REPLAY -> replay(response, result.response());
+            case MISMATCH -> writeError(response, 422,
+                    HEADER + " đã được dùng cho một yêu cầu khác");
+            case IN_PROGRESS -> writeError(response, HttpServletResponse.SC_CONFLICT,
+                    "Yêu cầu với " + HEADER + " này đang được xử lý, vui lòng thử lại sau");
+            case EXECUTE -> execute(new CachedBodyRequest(request, body), response, chain, result.ticket());
+        }
+    }
+
+    /* ---- helpers ---- */
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                         IdempotencyService.Ticket ticket) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, wrapper);
+            idempotencyService.complete(ticket,
+                    new StoredResponse(wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray()));
+            completed = true;
+        } finally {
+            if (!completed) idempotencyService.abort(ticket);
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) response.setContentType(stored.contentType());
+        if (stored.body() != null) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse<>(message, null));
+    }
+
+    // Username người đã đăng nhập; null = khách vãng lai (AnonymousAuthenticationToken của Spring
+    // cũng "authenticated" với tên anonymousUser chung cho mọi khách)
+    private static String caller() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) return null;
+        return auth.getName();
+    }
+
+    private static byte[] concat(String prefix, byte[] body) {
+        byte[] head = prefix.getBytes(StandardCharsets.UTF_8);
+        byte[] all = new byte[head.length + body.length];
+        System.arraycopy(head, 0, all, 0, head.length);
+        System.arraycopy(body, 0, all, head.length, body.length);
+        return all;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Body đã đọc để tính fingerprint → cho controller đọc lại
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -3,9 +3,11 @@ package com.travel.travelbooking.config;
 import com.travel.travelbooking.entity.Role;
 import com.travel.travelbooking.entity.User;
 import com.travel.travelbooking.entity.UserStatus;
+import com.travel.travelbooking.event.UserChangedEvent;
 import com.travel.travelbooking.repository.RoleRepository;
 import com.travel.travelbooking.repository.UserRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
@@ -23,11 +25,14 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final JwtUtil jwtUtil;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public OAuth2SuccessHandler(UserRepository userRepository, RoleRepository roleRepository, JwtUtil jwtUtil) {
+    public OAuth2SuccessHandler(UserRepository userRepository, RoleRepository roleRepository, JwtUtil jwtUtil,
+                                ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.jwtUtil = jwtUtil;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -86,7 +91,10 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
                     user.setSocialId(socialId);
                     user.setPhoneNumber("");
                     user.setRoles(getOrCreateRoles("USER"));
-                    return userRepository.save(user);
+                    User saved = userRepository.save(user);
+                    eventPublisher.publishEvent(new UserChangedEvent(saved.getId(), null, saved.getStatus(),
+                            Set.of(), Set.of("USER"), saved.getCreatedAt()));
+                    return saved;
                 });
     }
 
@@ -0,0 +1,60 @@
+package com.travel.travelbooking.config;
+
+import com.travel.travelbooking.exception.ServiceBusyException;
+import com.travel.travelbooking.service.OutboundHttpMetrics;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Bulkhead + đo độ trễ cho 1 hệ thống bên ngoài:
+// tối đa maxConcurrent lời gọi cùng lúc; hết chỗ thì chờ tối đa acquireTimeoutMs rồi từ chối (503)
+// → Groq chậm không chiếm hết thread Tomcat, cũng không làm nghẽn lời gọi MoMo (mỗi bên 1 semaphore riêng)
+public class OutboundHttpInterceptor implements ClientHttpRequestInterceptor {
+
+    private final String target;
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final OutboundHttpMetrics metrics;
+
+    public OutboundHttpInterceptor(String target, int maxConcurrent, long acquireTimeoutMs, OutboundHttpMetrics metrics) {
+        this.target = target;
+        this.permits = new Semaphore(maxConcurrent);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        // Không gồm query string: tránh mỗi tham số sinh một dòng thống kê
+        String endpoint = request.getMethod() + " " + request.getURI().getHost() + request.getURI().getPath();
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            metrics.recordRejected(target, endpoint);
+            throw new ServiceBusyException("Dịch vụ " + target + " đang quá tải, vui lòng thử lại sau");
+        }
+
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            error = response.getStatusCode().is5xxServerError();
+            return response;
+        } finally {
+            permits.release();
+            metrics.record(target, endpoint, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), error);
+        }
+    }
+}
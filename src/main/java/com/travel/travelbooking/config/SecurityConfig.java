@@ -92,6 +92,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/destinations", "/api/destinations/{id}",
                                 "/api/destinations/search", "/api/destinations/region").permitAll()
                         .requestMatchers("/api/tours", "/api/tours/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/suggest").permitAll()
                         .requestMatchers("/api/hotels", "/api/hotels/{id}", "/api/hotels/search").permitAll()
                         .requestMatchers("/api/blogs", "/api/blogs/{id}", "/api/blogs/{id}/related").permitAll()
                         .requestMatchers("/api/blogs/{id}/comments").permitAll()
@@ -118,6 +119,8 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PATCH, "/api/blogs/{id}/reject").hasAnyRole("ADMIN", "STAFF")
                         .requestMatchers(HttpMethod.DELETE, "/api/blogs/{id}").hasAnyRole("ADMIN", "STAFF")
                         .requestMatchers("/api/admin/dashboard/**").hasAnyRole("ADMIN", "STAFF")
+                        .requestMatchers("/api/admin/monitoring/**").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/reports/**").hasAnyRole("ADMIN", "STAFF")
                         .requestMatchers("/api/tour-categories",
                                 "/api/tour-categories/**").hasAnyRole("ADMIN", "STAFF")
                         .requestMatchers("/api/bookings/my","/api/bookings/{id}/cancel").authenticated()
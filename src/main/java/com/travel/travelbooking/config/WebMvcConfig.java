@@ -0,0 +1,42 @@
+package com.travel.travelbooking.config;
+
+import com.travel.travelbooking.service.CatalogVersionService.Aggregate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    // API danh mục công khai có ETag. Không gồm /api/tours/{id} (lượt xem cập nhật liên tục)
+    // và các API quản trị (/api/tour-categories phân trang cho admin).
+    static final String[] CATALOG_PATHS = {
+            "/api/tours",
+            "/api/tours/search",
+            "/api/tours/filter",
+            "/api/tours/destination/*",
+            "/api/tours/category/*",
+            "/api/destinations",
+            "/api/destinations/*",
+            "/api/tour-categories/active",
+            "/api/hotels"
+    };
+
+    static final Map<String, Aggregate> CATALOG_PREFIXES = Map.of(
+            "/api/tours", Aggregate.TOURS,
+            "/api/destinations", Aggregate.DESTINATIONS,
+            "/api/tour-categories", Aggregate.CATEGORIES,
+            "/api/hotels", Aggregate.HOTELS
+    );
+
+    private final CatalogETagInterceptor catalogETagInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(catalogETagInterceptor).addPathPatterns(CATALOG_PATHS);
+    }
+}
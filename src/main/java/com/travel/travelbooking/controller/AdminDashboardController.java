@@ -1,7 +1,12 @@
 package com.travel.travelbooking.controller;
 
 import com.travel.travelbooking.dto.DashboardStatsDTO;
+import com.travel.travelbooking.dto.RollupPointDTO;
+import com.travel.travelbooking.service.BookingRollupService;
 import com.travel.travelbooking.service.DashboardService;
+import com.travel.travelbooking.service.ReportJobService;
+import com.travel.travelbooking.service.ReportService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -9,9 +14,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -21,10 +27,19 @@ import java.util.List;
 @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
 public class AdminDashboardController {
 
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
     private final DashboardService dashboardService;
+    private final BookingRollupService bookingRollupService;
+    private final ReportService reportService;
+    private final ReportJobService reportJobService;
 
-    public AdminDashboardController(DashboardService dashboardService) {
+    public AdminDashboardController(DashboardService dashboardService, BookingRollupService bookingRollupService,
+                                    ReportService reportService, ReportJobService reportJobService) {
         this.dashboardService = dashboardService;
+        this.bookingRollupService = bookingRollupService;
+        this.reportService = reportService;
+        this.reportJobService = reportJobService;
     }
 
     @GetMapping("/stats")
@@ -37,21 +52,45 @@ public class AdminDashboardController {
         return ResponseEntity.ok(dashboardService.getUserRegistrationLast7Days());
     }
 
+    // Biểu đồ booking tạo / xác nhận / hủy + doanh thu theo giờ / ngày / tuần / tháng,
+    // tùy chọn tách theo tour / điểm đến / loại tour (đọc từ booking_rollups)
+    @GetMapping("/chart/bookings")
+    public ResponseEntity<List<RollupPointDTO>> getBookingChart(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") BookingRollupService.Granularity granularity,
+            @RequestParam(defaultValue = "NONE") BookingRollupService.GroupBy groupBy) {
+        return ResponseEntity.ok(bookingRollupService.query(from, to, granularity, groupBy));
+    }
+
     @GetMapping("/stats/full")
     public ResponseEntity<DashboardStatsDTO> getFullStats() {
         return ResponseEntity.ok(dashboardService.getFullDashboardStats());
     }
 
+    // Ghi thẳng ra response khi đang tạo file (không đệm cả file trong bộ nhớ).
+    // Dùng chung giới hạn số báo cáo chạy cùng lúc với /api/admin/reports (hết lượt → 429)
     @GetMapping("/export/excel")
-    public ResponseEntity<byte[]> exportDashboardToExcel() throws IOException {
-        byte[] excelBytes = dashboardService.exportDashboardToExcel();
+    public ResponseEntity<StreamingResponseBody> exportDashboardToExcel() {
+        return excel("Bao_cao_Dashboard_" + LocalDate.now().format(FILE_DATE) + ".xlsx",
+                reportService::writeDashboard);
+    }
+
+    // Toàn bộ booking theo ngày đặt (bỏ trống from / to = không giới hạn)
+    @GetMapping("/export/bookings")
+    public ResponseEntity<StreamingResponseBody> exportBookingsToExcel(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return excel("Bao_cao_Booking_" + LocalDate.now().format(FILE_DATE) + ".xlsx",
+                out -> reportService.writeBookings(from, to, out));
+    }
 
+    private ResponseEntity<StreamingResponseBody> excel(String filename, StreamingResponseBody body) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentDispositionFormData("attachment",
-                "Bao_cao_Dashboard_" + LocalDate.now().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) + ".xlsx");
+        headers.setContentDispositionFormData("attachment", filename);
         headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
 
-        return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
+        return new ResponseEntity<>(reportJobService.stream(body), headers, HttpStatus.OK);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package com.travel.travelbooking.controller;
+
+import com.travel.travelbooking.dto.CacheStatsDTO;
+import com.travel.travelbooking.dto.IpnInboxStatsDTO;
+import com.travel.travelbooking.dto.JobStatsDTO;
+import com.travel.travelbooking.dto.MetricDriftDTO;
+import com.travel.travelbooking.dto.OutboundLatencyDTO;
+import com.travel.travelbooking.service.BookingAutoCompleteService;
+import com.travel.travelbooking.service.CatalogCacheService;
+import com.travel.travelbooking.service.DashboardMetricsService;
+import com.travel.travelbooking.service.MomoIpnInboxService;
+import com.travel.travelbooking.service.OutboundHttpMetrics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Các chỉ số vận hành nội bộ (cache, hàng đợi...) cho quản trị viên
+@RestController
+@RequestMapping("/api/admin/monitoring")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminMonitoringController {
+
+    private final CatalogCacheService catalogCacheService;
+    private final BookingAutoCompleteService bookingAutoCompleteService;
+    private final MomoIpnInboxService momoIpnInboxService;
+    private final OutboundHttpMetrics outboundHttpMetrics;
+    private final DashboardMetricsService dashboardMetricsService;
+
+    public AdminMonitoringController(CatalogCacheService catalogCacheService,
+                                     BookingAutoCompleteService bookingAutoCompleteService,
+                                     MomoIpnInboxService momoIpnInboxService,
+                                     OutboundHttpMetrics outboundHttpMetrics,
+                                     DashboardMetricsService dashboardMetricsService) {
+        this.catalogCacheService = catalogCacheService;
+        this.bookingAutoCompleteService = bookingAutoCompleteService;
+        this.momoIpnInboxService = momoIpnInboxService;
+        this.outboundHttpMetrics = outboundHttpMetrics;
+        this.dashboardMetricsService = dashboardMetricsService;
+    }
+
+    // Hit / miss / eviction của từng cache
+    @GetMapping("/caches")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(catalogCacheService.getStats());
+    }
+
+    // Tiến độ / tốc độ (dòng/giây) của các job chạy theo lô
+    @GetMapping("/jobs")
+    public ResponseEntity<List<JobStatsDTO>> getJobStats() {
+        return ResponseEntity.ok(List.of(bookingAutoCompleteService.getStats()));
+    }
+
+    // Hộp thư IPN MoMo: số IPN tồn, độ trễ xử lý
+    @GetMapping("/ipn-inbox")
+    public ResponseEntity<IpnInboxStatsDTO> getIpnInboxStats() {
+        return ResponseEntity.ok(momoIpnInboxService.getStats());
+    }
+
+    // Độ trễ (p50 / p95 / p99), lỗi, số lần bị bulkhead từ chối của các lời gọi MoMo / Groq
+    @GetMapping("/outbound-http")
+    public ResponseEntity<List<OutboundLatencyDTO>> getOutboundHttpStats() {
+        return ResponseEntity.ok(outboundHttpMetrics.snapshot());
+    }
+
+    // Tính lại bộ đếm của dashboard từ DB, trả về độ lệch từng chỉ số (apply=false: chỉ kiểm tra, không sửa)
+    @PostMapping("/dashboard-metrics/reconcile")
+    public ResponseEntity<List<MetricDriftDTO>> reconcileDashboardMetrics(
+            @RequestParam(defaultValue = "true") boolean apply) {
+        return ResponseEntity.ok(dashboardMetricsService.reconcile(apply));
+    }
+}
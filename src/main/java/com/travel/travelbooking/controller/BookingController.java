@@ -3,10 +3,13 @@ package com.travel.travelbooking.controller;
 import com.travel.travelbooking.dto.BookingCreateRequest;
 import com.travel.travelbooking.dto.BookingDTO;
 import com.travel.travelbooking.dto.BookingStatsDTO;
+import com.travel.travelbooking.dto.BulkBookingRequest;
+import com.travel.travelbooking.dto.BulkBookingResultDTO;
 import com.travel.travelbooking.entity.BookingStatus;
 import com.travel.travelbooking.entity.User;
 import com.travel.travelbooking.entity.UserStatus;
 import com.travel.travelbooking.payload.ApiResponse;
+import com.travel.travelbooking.payload.CursorPageResponse;
 import com.travel.travelbooking.service.BookingService;
 import com.travel.travelbooking.service.UserServiceImpl;
 import jakarta.validation.Valid;
@@ -93,6 +96,17 @@ public class BookingController {
         return ResponseEntity.ok(new ApiResponse<>("Danh sách booking cần xử lý", bookings));
     }
 
+    // 4b. Danh sách cần xử lý – chế độ cursor (?after=<cursor>&size=), không đếm tổng
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @GetMapping(value = "/pending", params = "after")
+    public ResponseEntity<?> getPendingBookingsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) List<BookingStatus> status) {
+        CursorPageResponse<BookingDTO> bookings = bookingService.getPendingBookingsAfter(after, size, status);
+        return ResponseEntity.ok(new ApiResponse<>("Danh sách booking cần xử lý", bookings));
+    }
+
     // 5. Admin/Staff xác nhận booking
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
     @PatchMapping("/{id}/confirm")
@@ -141,6 +155,31 @@ public class BookingController {
         return ResponseEntity.ok(new ApiResponse<>("Tour đã được đánh dấu hoàn thành", booking));
     }
 
+    // === XỬ LÝ HÀNG LOẠT (ADMIN/STAFF) ===
+    // Chọn theo danh sách ids hoặc theo startDateId + status; trả kết quả từng booking
+
+    @PatchMapping("/bulk/confirm")
+    public ResponseEntity<?> bulkConfirm(@Valid @RequestBody BulkBookingRequest request) {
+        BulkBookingResultDTO result = bookingService.bulkConfirm(request);
+        return ResponseEntity.ok(new ApiResponse<>(bulkMessage("Xác nhận", result), result));
+    }
+
+    @PatchMapping("/bulk/reject")
+    public ResponseEntity<?> bulkReject(@Valid @RequestBody BulkBookingRequest request) {
+        BulkBookingResultDTO result = bookingService.bulkReject(request);
+        return ResponseEntity.ok(new ApiResponse<>(bulkMessage("Từ chối", result), result));
+    }
+
+    @PatchMapping("/bulk/complete")
+    public ResponseEntity<?> bulkComplete(@Valid @RequestBody BulkBookingRequest request) {
+        BulkBookingResultDTO result = bookingService.bulkComplete(request);
+        return ResponseEntity.ok(new ApiResponse<>(bulkMessage("Hoàn thành", result), result));
+    }
+
+    private String bulkMessage(String action, BulkBookingResultDTO result) {
+        return action + " " + result.getSucceeded() + "/" + result.getTotal() + " booking thành công";
+    }
+
     // 11. Admin/Staff xem chi tiết 1 booking bất kỳ
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
     @GetMapping("/{id}")
@@ -1,13 +1,14 @@
 package com.travel.travelbooking.controller;
 
 import com.travel.travelbooking.dto.BookingDTO;
-import com.travel.travelbooking.dto.PaymentDTO;
 import com.travel.travelbooking.entity.*;
 import com.travel.travelbooking.payload.ApiResponse;
 import com.travel.travelbooking.repository.BookingRepository;
 import com.travel.travelbooking.repository.PaymentRepository;
+import com.travel.travelbooking.service.MomoIpnInboxService;
 import com.travel.travelbooking.service.PaymentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,6 +21,7 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final MomoIpnInboxService momoIpnInboxService;
 
     // 1. Admin/Staff cập nhật trạng thái thanh toán thủ công
     @PatchMapping("/{bookingId}/status")
@@ -42,17 +44,10 @@ public class PaymentController {
     }
 
     // 3. IPN callback từ MoMo (MoMo gọi vào, phải permitAll)
+    // Chỉ ghi vào hộp thư rồi trả 204 ngay; kiểm tra chữ ký + cập nhật payment chạy nền (MomoIpnInboxService)
     @PostMapping("/momo/ipn")
-    public ApiResponse<?> momoIpn(@RequestBody Map<String, Object> body) throws Exception {
-        // Lấy các field cần thiết
-        String orderId = (String) body.get("orderId");
-        int resultCode = (int) body.get("resultCode");
-        String signature = (String) body.get("signature");
-
-        // OPTIONAL: nếu muốn verify chữ ký, build rawData lại từ map body
-
-        PaymentDTO dto = paymentService.handleMomoIpn(orderId, resultCode, signature, null);
-
-        return new ApiResponse<>("IPN nhận thành công", dto);
+    public ResponseEntity<Void> momoIpn(@RequestBody Map<String, Object> body) throws Exception {
+        momoIpnInboxService.receive(body);
+        return ResponseEntity.noContent().build();
     }
 }
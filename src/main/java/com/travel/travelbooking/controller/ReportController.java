@@ -0,0 +1,96 @@
+package com.travel.travelbooking.controller;
+
+import com.travel.travelbooking.dto.ReportJobDTO;
+import com.travel.travelbooking.dto.ReportRequest;
+import com.travel.travelbooking.payload.ApiResponse;
+import com.travel.travelbooking.service.ReportJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Báo cáo chạy nền: tạo → hỏi tiến độ → tải về khi xong
+@RestController
+@RequestMapping("/api/admin/reports")
+@PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+public class ReportController {
+
+    // Tomcat (NIO) tự gửi file bằng sendfile khi request có các thuộc tính này
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ReportJobService reportJobService;
+
+    public ReportController(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<ReportJobDTO>> create(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Valid @RequestBody ReportRequest request) {
+        ReportJobDTO job = reportJobService.submit(request, userDetails.getUsername());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/admin/reports/" + job.getId())
+                .body(new ApiResponse<>("Đã nhận yêu cầu tạo báo cáo", job));
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<ReportJobDTO>>> list() {
+        return ResponseEntity.ok(new ApiResponse<>("Danh sách báo cáo", reportJobService.list()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<ReportJobDTO>> get(@PathVariable String id) {
+        return ResponseEntity.ok(new ApiResponse<>("Trạng thái báo cáo", reportJobService.get(id)));
+    }
+
+    // Không copy file qua bộ nhớ của JVM: sendfile của Tomcat nếu có,
+    // nếu không thì FileChannel.transferTo sang kênh của response
+    @GetMapping("/{id}/download")
+    public void download(@PathVariable String id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Path file = reportJobService.file(id);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setContentLengthLong(size);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(reportJobService.filename(id), StandardCharsets.UTF_8).build().toString());
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+            response.flushBuffer();
+        }
+    }
+}
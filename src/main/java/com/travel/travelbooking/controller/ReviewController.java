@@ -4,6 +4,7 @@ import com.travel.travelbooking.dto.ReviewCreateRequest;
 import com.travel.travelbooking.dto.ReviewDTO;
 import com.travel.travelbooking.entity.User;
 import com.travel.travelbooking.payload.ApiResponse;
+import com.travel.travelbooking.payload.CursorPageResponse;
 import com.travel.travelbooking.service.ReviewService;
 import com.travel.travelbooking.service.UserServiceImpl;
 import jakarta.validation.Valid;
@@ -59,6 +60,17 @@ public class ReviewController {
         return ResponseEntity.ok(new ApiResponse<>("Lấy đánh giá thành công", reviews));
     }
 
+    // 2b. Đánh giá của tour – chế độ cursor (?after=<cursor>&size=)
+    @GetMapping(value = "/tour/{tourId}", params = "after")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ReviewDTO>>> getReviewsAfter(
+            @PathVariable Long tourId,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
+
+        CursorPageResponse<ReviewDTO> reviews = reviewService.getReviewsByTourAfter(tourId, after, size);
+        return ResponseEntity.ok(new ApiResponse<>("Lấy đánh giá thành công", reviews));
+    }
+
     // 3. Kiểm tra có được đánh giá không (dùng ở FE)
     @GetMapping("/tour/{tourId}/can-review")
     public ResponseEntity<ApiResponse<Boolean>> canReview(
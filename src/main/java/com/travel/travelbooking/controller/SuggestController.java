@@ -0,0 +1,32 @@
+package com.travel.travelbooking.controller;
+
+import com.travel.travelbooking.dto.SuggestionDTO;
+import com.travel.travelbooking.payload.ApiResponse;
+import com.travel.travelbooking.service.SuggestService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/suggest")
+@RequiredArgsConstructor
+public class SuggestController {
+
+    private final SuggestService suggestService;
+
+    // Gợi ý khi gõ: tour, điểm đến, loại tour (không truy vấn DB)
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<SuggestionDTO>>> suggest(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit) {
+
+        return ResponseEntity.ok(
+                new ApiResponse<>("Lấy gợi ý thành công", suggestService.suggest(q, limit))
+        );
+    }
+}
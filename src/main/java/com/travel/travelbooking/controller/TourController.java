@@ -2,30 +2,27 @@ package com.travel.travelbooking.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.travel.travelbooking.dto.StartDateAvailabilityDTO;
+import com.travel.travelbooking.dto.TourAvailabilityDTO;
 import com.travel.travelbooking.dto.TourDTO;
+import com.travel.travelbooking.dto.TourFilterResultDTO;
 import com.travel.travelbooking.dto.TourStatsDTO;
-import com.travel.travelbooking.entity.Tour;
 import com.travel.travelbooking.entity.TourStatus;
-import com.travel.travelbooking.exception.ResourceNotFoundException;
 import com.travel.travelbooking.payload.ApiResponse;
-import com.travel.travelbooking.repository.BookingRepository;
-import com.travel.travelbooking.repository.TourRepository;
+import com.travel.travelbooking.payload.CursorPageResponse;
+import com.travel.travelbooking.service.TourAvailabilityService;
 import com.travel.travelbooking.service.TourService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/tours")
@@ -35,8 +32,7 @@ public class TourController {
     private final TourService tourService;
     private final ObjectMapper objectMapper;
 
-    private final TourRepository tourRepository;
-    private final BookingRepository bookingRepository;
+    private final TourAvailabilityService tourAvailabilityService;
 
     // 1. Lấy danh sách tất cả tour (có count bookings & reviews + category)
     @GetMapping
@@ -93,6 +89,45 @@ public class TourController {
         );
     }
 
+    // 5a. Lọc tour kèm facet (?facets=true): số tour theo loại, vùng, điểm đến, thời lượng, khoảng giá
+    @GetMapping(value = "/filter", params = "facets=true")
+    public ResponseEntity<ApiResponse<TourFilterResultDTO>> filterToursWithFacets(
+            @RequestParam(required = false) String destinationName,
+            @RequestParam(required = false) TourStatus status,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "0") int page) {
+
+        TourFilterResultDTO result = tourService.getFilteredToursWithFacets(
+                destinationName, status, minPrice, maxPrice, categoryId, page
+        );
+
+        return ResponseEntity.ok(
+                new ApiResponse<>("Lọc tour thành công", result)
+        );
+    }
+
+    // 5b. Lọc tour – chế độ cursor (?after=<cursor>&size=), trang đầu dùng after rỗng
+    @GetMapping(value = "/filter", params = {"after", "facets!=true"})
+    public ResponseEntity<ApiResponse<CursorPageResponse<TourDTO>>> filterToursAfter(
+            @RequestParam(required = false) String destinationName,
+            @RequestParam(required = false) TourStatus status,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
+
+        CursorPageResponse<TourDTO> result = tourService.getFilteredToursAfter(
+                destinationName, status, minPrice, maxPrice, categoryId, after, size
+        );
+
+        return ResponseEntity.ok(
+                new ApiResponse<>("Lọc tour thành công", result)
+        );
+    }
+
     // 6. Thống kê tour
     @GetMapping("/stats")
     public ResponseEntity<ApiResponse<TourStatsDTO>> getTourStats() {
@@ -154,42 +189,21 @@ public class TourController {
         );
     }
 
-    @Transactional(readOnly = true)
     @GetMapping("/{tourId}/start-dates")
     public ResponseEntity<List<StartDateAvailabilityDTO>> getStartDatesWithAvailability(@PathVariable Long tourId) {
-
-        Tour tour = tourRepository.findById(tourId)
-                .orElseThrow(() -> new ResourceNotFoundException("Tour không tồn tại"));
-
-        if (tour.getStatus() != TourStatus.ACTIVE) {
-            return ResponseEntity.ok(List.of());
-        }
-
-        List<StartDateAvailabilityDTO> result = tour.getStartDates().stream()
-                .map(ts -> {
-                    long booked = bookingRepository.getParticipantsByStartDate(ts.getId());
-                    int capacity = ts.getCapacity();
-                    int remaining = capacity - (int) booked;
-
-                    StartDateAvailabilityDTO dto = new StartDateAvailabilityDTO();
-                    dto.setDate(ts.getStartDate());
-                    dto.setFormattedDate(formatVietnameseDate(ts.getStartDate()));
-                    dto.setRemainingSeats(Math.max(remaining, 0));
-                    dto.setAvailable(remaining > 0);
-
-                    return dto;
-                })
-                .sorted(Comparator.comparing(StartDateAvailabilityDTO::getDate))
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(tourAvailabilityService.getStartDates(tourId));
     }
 
-    private String formatVietnameseDate(LocalDate date) {
-        if (date == null) return "";
-        String[] weekdays = {"CN", "T2", "T3", "T4", "T5", "T6", "T7"};
-        int dayOfWeek = date.getDayOfWeek().getValue() % 7; // Chủ nhật = 0
-        String formatted = date.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-        return formatted + " (" + weekdays[dayOfWeek] + ")";
+    // Tình trạng chỗ của nhiều tour (badge "còn X chỗ" ở trang danh sách)
+    @GetMapping("/availability")
+    public ResponseEntity<ApiResponse<List<TourAvailabilityDTO>>> getAvailability(
+            @RequestParam List<Long> ids,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        return ResponseEntity.ok(new ApiResponse<>(
+                "Lấy tình trạng chỗ thành công",
+                tourAvailabilityService.getAvailability(ids, from, to)
+        ));
     }
-}
\ No newline at end of file
+}
@@ -24,6 +24,8 @@ public class BookingDTO {
     private LocalDateTime bookingDate;
     private BookingStatus status;
     private String note;
+    private LocalDateTime holdExpiresAt;   // hạn giữ chỗ (null khi không còn giữ)
+    private boolean refundRequired;        // đã thanh toán nhưng hết chỗ → cần hoàn tiền
 
     private String contactName;
     private String contactEmail;
@@ -0,0 +1,20 @@
+package com.travel.travelbooking.dto;
+
+import com.travel.travelbooking.entity.BookingStatus;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+// Chọn booking cần xử lý hàng loạt: theo danh sách id, HOẶC theo ngày khởi hành + trạng thái
+@Data
+public class BulkBookingRequest {
+
+    @Size(max = 2000, message = "Tối đa 2000 booking mỗi lần")
+    private List<Long> ids;
+
+    private Long startDateId;      // vd. mọi booking CONFIRMED của ngày khởi hành này
+    private BookingStatus status;
+
+    private String reason;         // lý do (khi từ chối)
+}
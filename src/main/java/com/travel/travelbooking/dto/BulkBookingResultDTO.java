@@ -0,0 +1,29 @@
+package com.travel.travelbooking.dto;
+
+import com.travel.travelbooking.entity.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingResultDTO {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<Item> results;
+
+    // Kết quả từng booking
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long bookingId;
+        private boolean success;
+        private BookingStatus status;   // trạng thái sau khi xử lý (null nếu không tìm thấy)
+        private String message;
+    }
+}
@@ -38,6 +38,7 @@ public class DashboardStatsDTO {
 
     private Double actualRevenue;     // Doanh thu thực tế
     private Double expectedRevenue;   // Doanh thu dự kiến
+    private Double paidRevenue;       // Đã thanh toán (payment PAID)
 
     private List<LatestTourDTO> latestTours;
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCountDTO {
+    private String key;     // giá trị dùng để lọc (id, enum, khoảng giá...)
+    private String label;   // nhãn hiển thị
+    private long count;
+}
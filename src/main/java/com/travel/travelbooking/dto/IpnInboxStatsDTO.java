@@ -0,0 +1,24 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IpnInboxStatsDTO {
+    private long pending;                   // IPN chưa xử lý (PENDING + PROCESSING)
+    private LocalDateTime oldestPendingAt;
+    private long lagMs;                     // tuổi của IPN cũ nhất chưa xử lý
+    private long received;                  // các chỉ số dưới: từ lúc khởi động, instance hiện tại
+    private long processed;
+    private long duplicates;
+    private long rejected;
+    private long retried;
+    private LocalDateTime lastBatchAt;
+    private long lastBatchSize;
+    private long lastBatchMaxLagMs;         // thời gian chờ lâu nhất (nhận → xử lý) trong lô gần nhất
+}
@@ -0,0 +1,22 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatsDTO {
+    private String name;
+    private boolean running;
+    private Long checkpoint;            // id cuối cùng đã xử lý
+    private LocalDateTime lastRunStartedAt;
+    private long lastRunDurationMs;
+    private long lastRunScanned;        // số dòng đã đọc
+    private long lastRunProcessed;      // số dòng đã cập nhật
+    private double lastRunRowsPerSecond;
+    private long totalProcessed;        // từ lúc khởi động
+}
@@ -0,0 +1,16 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Kết quả đối soát 1 bộ đếm của dashboard: giá trị đang giữ so với giá trị tính lại từ DB
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricDriftDTO {
+    private String metric;
+    private double stored;
+    private double actual;
+    private double drift;     // actual - stored
+}
@@ -0,0 +1,21 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboundLatencyDTO {
+    private String target;      // momo / groq
+    private String endpoint;    // METHOD host/path
+    private long count;
+    private long errors;        // exception hoặc HTTP >= 500
+    private long rejected;      // bị bulkhead từ chối
+    private double avgMs;
+    private long p50Ms;         // ước lượng theo bucket (cận trên)
+    private long p95Ms;
+    private long p99Ms;
+    private long maxMs;
+}
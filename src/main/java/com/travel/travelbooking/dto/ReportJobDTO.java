@@ -0,0 +1,25 @@
+package com.travel.travelbooking.dto;
+
+import com.travel.travelbooking.service.ReportJobService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDTO {
+    private String id;
+    private ReportJobService.ReportType type;
+    private ReportJobService.JobStatus status;
+    private int progressPercent;
+    private long rowsWritten;
+    private String requestedBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private Long fileSize;             // byte, khi đã xong
+    private String downloadUrl;        // null khi chưa xong
+    private String error;
+}
@@ -0,0 +1,18 @@
+package com.travel.travelbooking.dto;
+
+import com.travel.travelbooking.service.ReportJobService;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// Yêu cầu tạo báo cáo chạy nền; from / to theo ngày đặt (bỏ trống = không giới hạn, không dùng cho DASHBOARD)
+@Data
+public class ReportRequest {
+
+    @NotNull(message = "Vui lòng chọn loại báo cáo")
+    private ReportJobService.ReportType type;
+
+    private LocalDate from;
+    private LocalDate to;
+}
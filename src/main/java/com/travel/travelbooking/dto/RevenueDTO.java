@@ -0,0 +1,14 @@
+package com.travel.travelbooking.dto;
+
+import lombok.Data;
+
+@Data
+public class RevenueDTO {
+    private Double actualRevenue;     // booking COMPLETED
+    private Double expectedRevenue;   // booking CONFIRMED + COMPLETED
+
+    public RevenueDTO(Double actualRevenue, Double expectedRevenue) {
+        this.actualRevenue = actualRevenue;
+        this.expectedRevenue = expectedRevenue;
+    }
+}
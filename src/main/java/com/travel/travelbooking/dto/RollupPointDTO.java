@@ -0,0 +1,20 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 1 điểm của biểu đồ booking / doanh thu (BookingRollupService.query)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupPointDTO {
+    private LocalDateTime bucketStart;
+    private Long dimensionId;          // tourId / destinationId / categoryId; null khi không gộp theo chiều nào
+    private long createdBookings;
+    private long confirmedBookings;    // ròng: xác nhận trừ số rời trạng thái đã xác nhận trong khung
+    private long cancelledBookings;
+    private double revenue;            // giá trị booking được xác nhận trong khung (ròng như trên)
+}
@@ -8,5 +8,6 @@ public class StartDateAvailabilityDTO {
     private LocalDate date;
     private String formattedDate;     // Ví dụ: "15/12/2025 (T2)"
     private int remainingSeats;       // Số chỗ còn lại (chung cho cả tour)
+    private int heldSeats;            // Số chỗ đang được giữ bởi booking chờ xác nhận / thanh toán
     private boolean available;        // true nếu còn chỗ
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String type;    // TOUR | DESTINATION | CATEGORY
+    private Long id;
+    private String label;
+    private double score;   // điểm phổ biến (cùng công thức với PopularityRankingService)
+}
@@ -0,0 +1,20 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Tình trạng chỗ của một tour (dùng cho badge "còn X chỗ" ở trang danh sách)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourAvailabilityDTO {
+    private Long tourId;
+    private LocalDate nextAvailableDate;   // ngày gần nhất còn chỗ (null = hết chỗ)
+    private int nextRemainingSeats;        // số chỗ còn lại của ngày đó
+    private boolean soldOut;               // mọi ngày trong khoảng đều hết chỗ
+    private List<StartDateAvailabilityDTO> startDates;
+}
@@ -0,0 +1,21 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Số lượng tour theo từng giá trị lọc, tính trên bộ lọc hiện tại.
+// Mỗi nhóm bỏ qua điều kiện lọc của chính nó để UI hiển thị được các lựa chọn thay thế.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourFacetsDTO {
+    private long total;
+    private List<FacetCountDTO> categories;
+    private List<FacetCountDTO> regions;
+    private List<FacetCountDTO> destinations;
+    private List<FacetCountDTO> durations;
+    private List<FacetCountDTO> priceBands;
+}
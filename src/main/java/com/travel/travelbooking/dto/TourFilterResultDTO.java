@@ -0,0 +1,14 @@
+package com.travel.travelbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourFilterResultDTO {
+    private Page<TourDTO> page;
+    private TourFacetsDTO facets;
+}
@@ -0,0 +1,26 @@
+package com.travel.travelbooking.dto;
+
+import lombok.Data;
+
+// Các bộ đếm người dùng cho dashboard, lấy bằng 1 câu truy vấn (DashboardRepository.getUserCounts)
+@Data
+public class UserCountsDTO {
+    private Long totalUsers;
+    private Long totalDeleted;
+    private Long totalInactive;
+    private Long newUsersToday;
+    private Long totalCustomers;
+    private Long totalStaff;
+    private Long totalAdmins;
+
+    public UserCountsDTO(Long totalUsers, Long totalDeleted, Long totalInactive, Long newUsersToday,
+                         Long totalCustomers, Long totalStaff, Long totalAdmins) {
+        this.totalUsers = totalUsers;
+        this.totalDeleted = totalDeleted;
+        this.totalInactive = totalInactive;
+        this.newUsersToday = newUsersToday;
+        this.totalCustomers = totalCustomers;
+        this.totalStaff = totalStaff;
+        this.totalAdmins = totalAdmins;
+    }
+}
@@ -6,7 +6,14 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(
+        name = "bookings",
+        indexes = {
+                @Index(name = "idx_booking_date_id", columnList = "booking_date, id"), // phân trang keyset
+                @Index(name = "idx_booking_status_hold", columnList = "status, hold_expires_at"), // quét giữ chỗ hết hạn
+                @Index(name = "idx_booking_status_id", columnList = "status, id") // job tự hoàn thành (keyset)
+        }
+)
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Booking {
 
@@ -46,12 +53,24 @@ public class Booking {
     private Payment payment;
 
     @Enumerated(EnumType.STRING)
-    @Column(columnDefinition = "ENUM('PENDING','CONFIRMED','CANCEL_REQUEST','CANCELLED','REJECTED','COMPLETED','DELETED')",
+    @Column(columnDefinition = "ENUM('PENDING','CONFIRMED','CANCEL_REQUEST','CANCELLED','REJECTED','COMPLETED','EXPIRED','DELETED')",
             nullable = false)
     private BookingStatus status;
 
     private String note;
 
+    // Chỗ mà booking đang chiếm (null = dữ liệu cũ, xem SeatInventoryService.allocationOf)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private SeatAllocation seatAllocation;
+
+    // Hạn giữ chỗ của booking chờ; null = không hết hạn (chưa giữ chỗ / đã thanh toán / đã xử lý)
+    private LocalDateTime holdExpiresAt;
+
+    // Tiền về sau khi giữ chỗ đã hết hạn và ngày khởi hành không còn chỗ → nhân viên cần hoàn tiền
+    @Column(nullable = false, columnDefinition = "BIT(1) DEFAULT 0")
+    private boolean refundRequired;
+
     // THÔNG TIN LIÊN HỆ NGƯỜI ĐẶT (bắt buộc)
     @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
     @JoinColumn(name = "contact_id", nullable = false)
@@ -0,0 +1,49 @@
+package com.travel.travelbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Số booking tạo / xác nhận / hủy và doanh thu theo khung giờ / ngày, mỗi tour 1 dòng
+// (điểm đến, loại tour chép sẵn để gộp theo chiều đó không cần JOIN) – nguồn cho biểu đồ dashboard
+@Entity
+@Data
+@Table(
+        name = "booking_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rollup_bucket",
+                columnNames = {"granularity", "bucket_start", "tour_id"}) // cũng phục vụ truy vấn theo khoảng thời gian
+)
+public class BookingRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "tour_id", nullable = false)
+    private Long tourId;
+
+    private Long destinationId;
+
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private Long createdCount = 0L;
+
+    @Column(nullable = false)
+    private Long confirmedCount = 0L;
+
+    @Column(nullable = false)
+    private Long cancelledCount = 0L;
+
+    // Giá trị các booking được xác nhận trong khung
+    @Column(nullable = false)
+    private Double revenue = 0.0;
+}
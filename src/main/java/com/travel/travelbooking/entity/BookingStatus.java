@@ -7,5 +7,6 @@ public enum BookingStatus {
     CANCELLED,       // Đã hủy chính thức
     REJECTED,        // Bị từ chối khi tạo
     COMPLETED,       // Đã hoàn thành (sau tour)
+    EXPIRED,         // Hết hạn giữ chỗ khi chưa được xác nhận / thanh toán
     DELETED          // Xóa mềm (không hiển thị)
 }
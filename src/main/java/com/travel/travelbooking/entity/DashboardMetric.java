@@ -0,0 +1,23 @@
+package com.travel.travelbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Bản lưu định kỳ các bộ đếm của dashboard (DashboardMetricsService)
+// → khởi động lại đọc từ đây thay vì đếm lại toàn bộ bảng
+@Entity
+@Data
+@Table(name = "dashboard_metrics")
+public class DashboardMetric {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(name = "metric_value", nullable = false)
+    private Double value = 0.0;
+
+    private LocalDateTime updatedAt;
+}
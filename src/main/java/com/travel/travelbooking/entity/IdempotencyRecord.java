@@ -0,0 +1,44 @@
+package com.travel.travelbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Response đã lưu theo Idempotency-Key (xem IdempotencyService)
+// responseStatus = null → request đầu tiên còn đang xử lý (xem claimedAt)
+@Entity
+@Data
+@Table(
+        name = "idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_expires", columnList = "expires_at") // dọn key hết hạn
+)
+public class IdempotencyRecord {
+
+    // SHA-256 của (người gọi, endpoint, key)
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    // SHA-256 của nội dung request → cùng key nhưng khác nội dung bị từ chối
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    private Integer responseStatus;
+
+    private String contentType;
+
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB")
+    private byte[] body;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Lúc request hiện tại giành quyền xử lý; quá idempotency.lease-seconds mà chưa có response
+    // (instance xử lý đã chết) → request gửi lại được giành lại quyền
+    private LocalDateTime claimedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
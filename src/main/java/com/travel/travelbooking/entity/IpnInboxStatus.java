@@ -0,0 +1,10 @@
+package com.travel.travelbooking.entity;
+
+public enum IpnInboxStatus {
+    PENDING,      // chờ xử lý
+    PROCESSING,   // worker đã nhận (quá hạn sẽ được trả về PENDING)
+    PROCESSED,    // đã áp dụng vào payment
+    DUPLICATE,    // cùng orderId với IPN mới hơn trong cùng lô
+    REJECTED,     // sai chữ ký / thiếu dữ liệu
+    FAILED        // lỗi quá số lần thử
+}
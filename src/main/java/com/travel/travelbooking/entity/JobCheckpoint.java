@@ -0,0 +1,26 @@
+package com.travel.travelbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Vị trí đã xử lý tới của các job chạy theo lô (keyset theo id)
+// → job dừng giữa chừng (crash, tắt máy) chạy tiếp từ lastId thay vì quét lại từ đầu
+@Entity
+@Data
+@Table(name = "job_checkpoints")
+public class JobCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String jobName;
+
+    // 0 = lượt chạy trước đã quét hết, lượt sau bắt đầu lại từ đầu
+    @Column(nullable = false)
+    private Long lastId = 0L;
+
+    private LocalDateTime runStartedAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,50 @@
+package com.travel.travelbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// IPN MoMo nhận được: ghi nguyên văn rồi trả lời ngay, MomoIpnInboxService xử lý sau
+@Entity
+@Data
+@Table(
+        name = "momo_ipn_inbox",
+        indexes = {
+                @Index(name = "idx_ipn_status_id", columnList = "status, id"),       // lấy lô chờ xử lý
+                @Index(name = "idx_ipn_order", columnList = "order_id")
+        }
+)
+public class MomoIpnInbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", length = 100)
+    private String orderId;
+
+    // Body JSON gốc từ MoMo
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IpnInboxStatus status = IpnInboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(length = 64)
+    private String claimedBy;
+
+    private LocalDateTime claimedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime receivedAt;
+
+    private LocalDateTime processedAt;
+
+    @Column(length = 500)
+    private String error;
+}
@@ -6,7 +6,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(
+        name = "payments",
+        indexes = @Index(name = "idx_payment_transaction", columnList = "transaction_id") // tra payment theo orderId khi nhận IPN
+)
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor @Builder
 public class Payment {
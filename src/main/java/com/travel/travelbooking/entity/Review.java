@@ -8,7 +8,10 @@ import java.time.LocalDateTime;
 @Data
 @Table(
         name = "reviews",
-        indexes = @Index(name = "idx_review_user_tour", columnList = "user_id, tour_id", unique = true)
+        indexes = {
+                @Index(name = "idx_review_user_tour", columnList = "user_id, tour_id", unique = true),
+                @Index(name = "idx_review_tour_created", columnList = "tour_id, created_at, id") // phân trang keyset
+        }
 )
 public class Review {
     @Id
@@ -0,0 +1,6 @@
+package com.travel.travelbooking.entity;
+
+public enum RollupGranularity {
+    HOUR,   // giữ booking.rollup.hourly-retention-days ngày gần nhất
+    DAY     // dồn từ HOUR khi quá hạn giữ, giữ mãi
+}
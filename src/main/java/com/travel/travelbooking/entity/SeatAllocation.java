@@ -0,0 +1,8 @@
+package com.travel.travelbooking.entity;
+
+// Booking đang chiếm chỗ nào trong tour_start_dates
+public enum SeatAllocation {
+    NONE,    // Không giữ chỗ
+    HELD,    // Đang giữ chỗ (heldParticipants) – booking chờ xác nhận
+    BOOKED   // Đã chốt chỗ (bookedParticipants)
+}
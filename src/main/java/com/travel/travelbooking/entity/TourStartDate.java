@@ -2,10 +2,14 @@ package com.travel.travelbooking.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDate;
 
+// bookedParticipants / heldParticipants chỉ được đổi bằng UPDATE có điều kiện (SeatInventoryService);
+// @DynamicUpdate để việc lưu entity (vd. đổi capacity) không ghi đè hai cột này bằng giá trị cũ
 @Entity
 @Data
+@DynamicUpdate
 @Table(name = "tour_start_dates")
 public class TourStartDate {
 
@@ -28,6 +32,10 @@ public class TourStartDate {
     @Column(nullable = false)
     private Integer bookedParticipants = 0;
 
+    // Số khách đang giữ chỗ (booking chờ xác nhận)
+    @Column(nullable = false, columnDefinition = "INT DEFAULT 0")
+    private Integer heldParticipants = 0;
+
     public TourStartDate() {}
 
     public TourStartDate(Tour tour, LocalDate startDate) {
@@ -35,5 +43,11 @@ public class TourStartDate {
         this.startDate = startDate;
         this.capacity = tour.getMaxParticipants(); // default = maxParticipants của tour
         this.bookedParticipants = 0;
+        this.heldParticipants = 0;
+    }
+
+    // Số chỗ còn trống (chưa đặt, chưa giữ)
+    public int getRemainingSeats() {
+        return capacity - bookedParticipants - heldParticipants;
     }
 }
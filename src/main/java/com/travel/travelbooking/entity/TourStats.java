@@ -0,0 +1,32 @@
+package com.travel.travelbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Bảng đếm sẵn cho từng tour (projection của bookings + reviews)
+// Booking chỉ tính các trạng thái CONFIRMED / COMPLETED
+@Entity
+@Data
+@Table(name = "tour_stats")
+public class TourStats {
+
+    @Id
+    @Column(name = "tour_id")
+    private Long tourId;
+
+    @Column(nullable = false)
+    private Long bookingCount = 0L;
+
+    @Column(nullable = false)
+    private Long participantSum = 0L;
+
+    @Column(nullable = false)
+    private Long reviewCount = 0L;
+
+    @Column(nullable = false)
+    private Long ratingSum = 0L;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,14 @@
+package com.travel.travelbooking.event;
+
+import com.travel.travelbooking.entity.BookingStatus;
+
+// Phát ra mỗi lần booking đổi trạng thái (oldStatus = null khi vừa tạo)
+public record BookingStatusChangedEvent(
+        Long bookingId,
+        Long tourId,
+        BookingStatus oldStatus,
+        BookingStatus newStatus,
+        int numberOfPeople,
+        Double totalPrice
+) {
+}
@@ -0,0 +1,5 @@
+package com.travel.travelbooking.event;
+
+// Phát ra khi loại tour được tạo / sửa / vô hiệu hóa
+public record CategoryChangedEvent(Long categoryId) {
+}
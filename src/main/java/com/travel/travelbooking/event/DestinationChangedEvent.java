@@ -0,0 +1,5 @@
+package com.travel.travelbooking.event;
+
+// Phát ra khi điểm đến được tạo / sửa / xóa (kéo theo trạng thái các tour thuộc điểm đến)
+public record DestinationChangedEvent(Long destinationId) {
+}
@@ -0,0 +1,5 @@
+package com.travel.travelbooking.event;
+
+// Phát ra khi khách sạn được tạo / sửa / xóa (ảnh hưởng chi tiết các tour đã chọn khách sạn)
+public record HotelChangedEvent(Long hotelId) {
+}
@@ -0,0 +1,13 @@
+package com.travel.travelbooking.event;
+
+import com.travel.travelbooking.entity.PaymentStatus;
+
+// Phát ra khi thanh toán đổi trạng thái (amount = tổng tiền của booking)
+public record PaymentStatusChangedEvent(
+        Long paymentId,
+        Long bookingId,
+        PaymentStatus oldStatus,
+        PaymentStatus newStatus,
+        Double amount
+) {
+}
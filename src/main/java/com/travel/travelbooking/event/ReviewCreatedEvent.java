@@ -0,0 +1,5 @@
+package com.travel.travelbooking.event;
+
+// Phát ra khi có đánh giá mới cho tour
+public record ReviewCreatedEvent(Long reviewId, Long tourId, int rating) {
+}
@@ -0,0 +1,6 @@
+package com.travel.travelbooking.event;
+
+// Phát ra khi tour (hoặc chi tiết tour) được tạo / sửa / xóa.
+// Các chỉ mục trong bộ nhớ lắng nghe sau khi transaction commit.
+public record TourChangedEvent(Long tourId) {
+}
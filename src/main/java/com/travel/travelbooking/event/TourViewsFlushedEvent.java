@@ -0,0 +1,7 @@
+package com.travel.travelbooking.event;
+
+import java.util.Map;
+
+// Phát ra sau mỗi lần ViewCounterService ghi lượt xem xuống DB (tourId → số lượt xem vừa ghi)
+public record TourViewsFlushedEvent(Map<Long, Long> deltas) {
+}
@@ -0,0 +1,17 @@
+package com.travel.travelbooking.event;
+
+import com.travel.travelbooking.entity.UserStatus;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+// Phát ra khi người dùng được tạo / đổi trạng thái / đổi vai trò (oldStatus = null khi vừa tạo)
+public record UserChangedEvent(
+        Long userId,
+        UserStatus oldStatus,
+        UserStatus newStatus,
+        Set<String> oldRoles,
+        Set<String> newRoles,
+        LocalDateTime createdAt
+) {
+}
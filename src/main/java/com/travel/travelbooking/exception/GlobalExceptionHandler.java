@@ -37,7 +37,23 @@ public class GlobalExceptionHandler {
                 .body(new ApiResponse<>(ex.getMessage(), null));
     }
 
-    // 4. Lỗi chung (500) - bắt tất cả còn lại
+    // 4. Hệ thống bên ngoài quá tải (503)
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<?> handleServiceBusy(ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(new ApiResponse<>(ex.getMessage(), null));
+    }
+
+    // 5. Chạm giới hạn tác vụ nặng chạy cùng lúc (429)
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<?> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "30")
+                .body(new ApiResponse<>(ex.getMessage(), null));
+    }
+
+    // 6. Lỗi chung (500) - bắt tất cả còn lại
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleServerError(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,8 @@
+package com.travel.travelbooking.exception;
+
+// Hệ thống bên ngoài đang quá tải / hết lượt gọi đồng thời → 503, client thử lại sau
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
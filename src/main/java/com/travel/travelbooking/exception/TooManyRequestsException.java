@@ -0,0 +1,8 @@
+package com.travel.travelbooking.exception;
+
+// Người dùng / hệ thống đã chạm giới hạn số tác vụ nặng chạy cùng lúc → 429, client thử lại sau
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
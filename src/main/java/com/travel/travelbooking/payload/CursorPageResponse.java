@@ -0,0 +1,24 @@
+package com.travel.travelbooking.payload;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Phân trang kiểu keyset (seek): không đếm tổng, trả về cursor cho trang kế tiếp
+public record CursorPageResponse<T>(
+        List<T> content,
+        int size,           // số phần tử tối đa mỗi trang
+        String nextCursor,  // null khi đã hết dữ liệu
+        boolean hasNext
+) {
+    // Repository lấy size + 1 dòng: có dòng dư nghĩa là còn trang sau
+    public static <T> CursorPageResponse<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorPageResponse<>(content, size, next, hasNext);
+    }
+
+    public <R> CursorPageResponse<R> map(Function<T, R> mapper) {
+        return new CursorPageResponse<>(content.stream().map(mapper).toList(), size, nextCursor, hasNext);
+    }
+}
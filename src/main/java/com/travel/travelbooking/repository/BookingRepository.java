@@ -2,17 +2,25 @@ package com.travel.travelbooking.repository;
 
 import com.travel.travelbooking.dto.BookingStatsDTO;
 import com.travel.travelbooking.dto.LatestBookingDTO;
+import com.travel.travelbooking.dto.RevenueDTO;
 import com.travel.travelbooking.entity.Booking;
 import com.travel.travelbooking.entity.BookingStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
@@ -40,21 +48,92 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             Pageable pageable
     );
 
-    long countByTourIdAndStatus(Long tourId, BookingStatus status);
+    // Khóa dòng booking trước khi đổi trạng thái (cùng thứ tự khóa với job hết hạn giữ chỗ)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
 
-    long countByStatus(BookingStatus status);
+    // Trạng thái hiện tại trong DB (không qua persistence context) + khóa dòng
+    @Query(value = "SELECT status FROM bookings WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<String> lockStatus(@Param("id") Long id);
+
+    // Khóa nhiều booking cho xử lý hàng loạt (theo thứ tự id để tránh deadlock)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id IN :ids ORDER BY b.id")
+    List<Booking> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Job tự hoàn thành: 1 trang keyset booking theo trạng thái có ngày khởi hành trước :before
+    // row = [bookingId, startDate, tour.duration]
+    @Query("""
+        SELECT b.id, sd.startDate, t.duration
+        FROM Booking b
+        JOIN b.selectedStartDate sd
+        JOIN b.tour t
+        WHERE b.status = :status AND b.id > :afterId AND sd.startDate < :before
+        ORDER BY b.id
+    """)
+    List<Object[]> findCompletionCandidates(@Param("status") BookingStatus status,
+                                            @Param("afterId") Long afterId,
+                                            @Param("before") LocalDate before,
+                                            Pageable pageable);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.selectedStartDate.id = :startDateId AND b.status = :status ORDER BY b.id")
+    List<Long> findIdsByStartDateAndStatus(@Param("startDateId") Long startDateId,
+                                           @Param("status") BookingStatus status);
 
-    boolean existsBySelectedStartDateId(Long startDateId);
     /* -----------------------------------------------
-       Đếm số khách theo NGÀY KHỞI HÀNH
+       Giữ chỗ có thời hạn (HoldExpiryService)
        ----------------------------------------------- */
+    // [bookingId, holdExpiresAt] của mọi booking đang giữ chỗ
     @Query("""
-        SELECT COALESCE(SUM(b.numberOfPeople), 0)
-        FROM Booking b
-        WHERE b.selectedStartDate.id = :startDateId
-          AND b.status IN ('CONFIRMED', 'COMPLETED')
+        SELECT b.id, b.holdExpiresAt FROM Booking b
+        WHERE b.status = 'PENDING' AND b.holdExpiresAt IS NOT NULL
     """)
-    long getParticipantsByStartDate(@Param("startDateId") Long startDateId);
+    List<Object[]> findActiveHolds();
+
+    @Query("""
+        SELECT b.id FROM Booking b
+        WHERE b.status = 'PENDING' AND b.holdExpiresAt <= :now
+        ORDER BY b.holdExpiresAt
+    """)
+    List<Long> findExpiredHoldIds(@Param("now") LocalDateTime now, Pageable limit);
+
+    // Bỏ hạn giữ chỗ (đã thanh toán); 0 = booking không còn chờ (vd. vừa hết hạn)
+    @Modifying
+    @Query("UPDATE Booking b SET b.holdExpiresAt = NULL WHERE b.id = :id AND b.status = 'PENDING'")
+    int clearHoldExpiry(@Param("id") Long id);
+
+    // Khóa các booking còn hết hạn thật sự (có thể đã được xác nhận / thanh toán sau khi vào hàng đợi).
+    // Theo thứ tự id như xử lý hàng loạt → không deadlock với xác nhận / từ chối nhiều booking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT b FROM Booking b
+        WHERE b.id IN :ids AND b.status = 'PENDING' AND b.holdExpiresAt <= :now
+        ORDER BY b.id
+    """)
+    List<Booking> lockExpiredHolds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Phân trang keyset cho danh sách admin: seek theo (bookingDate, id) tăng dần
+    @Query("""
+        SELECT b FROM Booking b
+        WHERE b.status IN :statuses
+          AND (:afterDate IS NULL
+               OR b.bookingDate > :afterDate
+               OR (b.bookingDate = :afterDate AND b.id > :afterId))
+        ORDER BY b.bookingDate ASC, b.id ASC
+        """)
+    List<Booking> findByStatusInAfter(
+            @Param("statuses") List<BookingStatus> statuses,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Pageable limit
+    );
+
+    long countByTourIdAndStatus(Long tourId, BookingStatus status);
+
+    long countByStatus(BookingStatus status);
+
+    boolean existsBySelectedStartDateId(Long startDateId);
 
 
     List<Booking> findByContactEmailAndUserIsNull(String email);
@@ -119,18 +198,71 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     }
 
     /* -----------------------------------------------
-       Doanh thu thực tế
+       Doanh thu thực tế (COMPLETED) + dự kiến (CONFIRMED + COMPLETED) trong 1 lần quét
        ----------------------------------------------- */
-    @Query("SELECT COALESCE(SUM(b.totalPrice), 0) FROM Booking b WHERE b.status = 'COMPLETED'")
-    Double getActualRevenue();
+    @Query("""
+        SELECT new com.travel.travelbooking.dto.RevenueDTO(
+            COALESCE(SUM(CASE WHEN b.status = 'COMPLETED' THEN b.totalPrice END), 0.0),
+            COALESCE(SUM(b.totalPrice), 0.0)
+        )
+        FROM Booking b
+        WHERE b.status IN ('CONFIRMED', 'COMPLETED')
+    """)
+    RevenueDTO getRevenue();
+
+    // Tổng tiền của các booking đã thanh toán (payment PAID)
+    @Query("""
+        SELECT COALESCE(SUM(b.totalPrice), 0.0)
+        FROM Payment p
+        JOIN p.booking b
+        WHERE p.status = 'PAID'
+    """)
+    Double getPaidRevenue();
 
     /* -----------------------------------------------
-       Doanh thu dự kiến
+       Xuất báo cáo booking: 1 trang keyset theo id, chỉ lấy cột cần ghi (không nạp entity)
+       row = [id, bookingDate, tên liên hệ, SĐT, email, tên tour, ngày khởi hành,
+              số người, tổng tiền, trạng thái, trạng thái thanh toán]
        ----------------------------------------------- */
     @Query("""
-        SELECT COALESCE(SUM(b.totalPrice), 0) 
-        FROM Booking b 
+        SELECT b.id, b.bookingDate, c.fullName, c.phoneNumber, c.email, t.name, sd.startDate,
+               b.numberOfPeople, b.totalPrice, b.status, p.status
+        FROM Booking b
+        JOIN b.contact c
+        JOIN b.tour t
+        JOIN b.selectedStartDate sd
+        LEFT JOIN b.payment p
+        WHERE b.id > :afterId
+          AND (:from IS NULL OR b.bookingDate >= :from)
+          AND (:to IS NULL OR b.bookingDate < :to)
+        ORDER BY b.id
+    """)
+    List<Object[]> findExportRows(@Param("afterId") Long afterId,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  Pageable pageable);
+
+    @Query("""
+        SELECT COUNT(b) FROM Booking b
+        WHERE (:from IS NULL OR b.bookingDate >= :from)
+          AND (:to IS NULL OR b.bookingDate < :to)
+    """)
+    long countExportRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Doanh thu theo tour của các booking đặt trong khoảng
+    // row = [tourId, tên tour, điểm đến, số booking, số khách, doanh thu thực tế, doanh thu dự kiến]
+    @Query("""
+        SELECT t.id, t.name, d.name, COUNT(b), SUM(b.numberOfPeople),
+               COALESCE(SUM(CASE WHEN b.status = 'COMPLETED' THEN b.totalPrice END), 0.0),
+               COALESCE(SUM(b.totalPrice), 0.0)
+        FROM Booking b
+        JOIN b.tour t
+        JOIN t.destination d
         WHERE b.status IN ('CONFIRMED', 'COMPLETED')
+          AND (:from IS NULL OR b.bookingDate >= :from)
+          AND (:to IS NULL OR b.bookingDate < :to)
+        GROUP BY t.id, t.name, d.name
+        ORDER BY SUM(b.totalPrice) DESC
     """)
-    Double getExpectedRevenue();
+    List<Object[]> findRevenueByTour(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,101 @@
+package com.travel.travelbooking.repository;
+
+import com.travel.travelbooking.entity.BookingRollup;
+import com.travel.travelbooking.entity.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BookingRollupRepository extends JpaRepository<BookingRollup, Long> {
+
+    /* ----------------------------------------------------------
+        Cộng dồn vào 1 khung của 1 tour (tạo dòng nếu chưa có)
+        Điểm đến / loại tour lấy theo tour tại thời điểm ghi
+       ---------------------------------------------------------- */
+    @Modifying
+    @Query(value = """
+        INSERT INTO booking_rollups (granularity, bucket_start, tour_id, destination_id, category_id,
+                                     created_count, confirmed_count, cancelled_count, revenue)
+        SELECT :granularity, :bucketStart, t.id, t.destination_id, t.category_id,
+               :created, :confirmed, :cancelled, :revenue
+        FROM tours t
+        WHERE t.id = :tourId
+        ON DUPLICATE KEY UPDATE
+            created_count = created_count + :created,
+            confirmed_count = confirmed_count + :confirmed,
+            cancelled_count = cancelled_count + :cancelled,
+            revenue = revenue + :revenue
+        """, nativeQuery = true)
+    int add(@Param("granularity") String granularity,
+            @Param("bucketStart") LocalDateTime bucketStart,
+            @Param("tourId") Long tourId,
+            @Param("created") long created,
+            @Param("confirmed") long confirmed,
+            @Param("cancelled") long cancelled,
+            @Param("revenue") double revenue);
+
+    /* ----------------------------------------------------------
+        Dồn các khung giờ trước :before thành khung ngày
+        (gọi cùng transaction với deleteHoursBefore)
+       ---------------------------------------------------------- */
+    @Modifying
+    @Query(value = """
+        INSERT INTO booking_rollups (granularity, bucket_start, tour_id, destination_id, category_id,
+                                     created_count, confirmed_count, cancelled_count, revenue)
+        SELECT * FROM (
+            SELECT 'DAY' AS granularity, DATE(bucket_start) AS day_start, tour_id,
+                   MAX(destination_id) AS destination_id, MAX(category_id) AS category_id,
+                   SUM(created_count) AS created, SUM(confirmed_count) AS confirmed,
+                   SUM(cancelled_count) AS cancelled, SUM(revenue) AS total
+            FROM booking_rollups
+            WHERE granularity = 'HOUR' AND bucket_start < :before
+            GROUP BY DATE(bucket_start), tour_id
+        ) AS h
+        ON DUPLICATE KEY UPDATE
+            created_count = created_count + h.created,
+            confirmed_count = confirmed_count + h.confirmed,
+            cancelled_count = cancelled_count + h.cancelled,
+            revenue = revenue + h.total
+        """, nativeQuery = true)
+    int compactHoursBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query(value = "DELETE FROM booking_rollups WHERE granularity = 'HOUR' AND bucket_start < :before",
+            nativeQuery = true)
+    int deleteHoursBefore(@Param("before") LocalDateTime before);
+
+    /* ----------------------------------------------------------
+        Dựng khung ngày từ bảng bookings cho dữ liệu có trước khi có rollup
+        (không biết thời điểm xác nhận / hủy → tính vào ngày đặt)
+       ---------------------------------------------------------- */
+    @Modifying
+    @Query(value = """
+        INSERT INTO booking_rollups (granularity, bucket_start, tour_id, destination_id, category_id,
+                                     created_count, confirmed_count, cancelled_count, revenue)
+        SELECT 'DAY', DATE(b.booking_date), b.tour_id, MAX(t.destination_id), MAX(t.category_id),
+               COUNT(*),
+               SUM(b.status IN ('CONFIRMED', 'COMPLETED')),
+               SUM(b.status = 'CANCELLED'),
+               COALESCE(SUM(CASE WHEN b.status IN ('CONFIRMED', 'COMPLETED') THEN b.total_price END), 0)
+        FROM bookings b
+        JOIN tours t ON t.id = b.tour_id
+        WHERE b.booking_date IS NOT NULL
+        GROUP BY DATE(b.booking_date), b.tour_id
+        """, nativeQuery = true)
+    int backfillDays();
+
+    @Query("""
+        SELECT r FROM BookingRollup r
+        WHERE r.granularity = :granularity
+          AND r.bucketStart >= :from AND r.bucketStart < :to
+        """)
+    List<BookingRollup> findRange(@Param("granularity") RollupGranularity granularity,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,34 @@
+package com.travel.travelbooking.repository;
+
+import com.travel.travelbooking.entity.DashboardMetric;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DashboardMetricRepository extends JpaRepository<DashboardMetric, String> {
+
+    // Cộng phần thay đổi của instance này vào tổng chung (không ghi đè phần của instance khác)
+    @Modifying
+    @Query(value = """
+        INSERT INTO dashboard_metrics (name, metric_value, updated_at)
+        VALUES (:name, :delta, NOW())
+        ON DUPLICATE KEY UPDATE metric_value = metric_value + :delta, updated_at = NOW()
+        """, nativeQuery = true)
+    int addValue(@Param("name") String name, @Param("delta") double delta);
+
+    // Chuyển sang ngày mới đúng 1 lần dù nhiều instance cùng chạy: 1 = instance này chuyển
+    @Modifying
+    @Query(value = """
+        UPDATE dashboard_metrics SET metric_value = :day, updated_at = NOW()
+        WHERE name = :name AND metric_value < :day
+        """, nativeQuery = true)
+    int advanceDay(@Param("name") String name, @Param("day") double day);
+
+    @Modifying
+    @Query(value = "UPDATE dashboard_metrics SET metric_value = :value, updated_at = NOW() WHERE name = :name",
+            nativeQuery = true)
+    int setValue(@Param("name") String name, @Param("value") double value);
+}
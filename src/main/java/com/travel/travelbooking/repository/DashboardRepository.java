@@ -1,5 +1,6 @@
 package com.travel.travelbooking.repository;
 
+import com.travel.travelbooking.dto.UserCountsDTO;
 import com.travel.travelbooking.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
@@ -12,20 +13,24 @@ import java.util.List;
 @Repository
 public interface DashboardRepository extends JpaRepository<User, Long> {
 
-    @Query("SELECT COUNT(u) FROM User u WHERE u.status <> 'DELETED'")
-    long countActiveUsers();
-
-    @Query("SELECT COUNT(u) FROM User u WHERE u.status = 'DELETED'")
-    long countDeletedUsers();
-
-    @Query("SELECT COUNT(u) FROM User u WHERE u.status IN ('INACTIVE', 'BANNED')")
-    long countInactiveOrBanned();
-
-    @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt >= :startOfDay AND u.status <> 'DELETED'")
-    long countNewUsersToday(@Param("startOfDay") LocalDateTime startOfDay);
-
-    @Query("SELECT COUNT(DISTINCT u) FROM User u JOIN u.roles r WHERE r.name = :roleName AND u.status <> 'DELETED'")
-    long countUsersByRole(@Param("roleName") String roleName);
+    /* ----------------------------------------------------------
+        Toàn bộ bộ đếm người dùng trong 1 lần quét (thay 7 câu COUNT riêng)
+        LEFT JOIN roles nhân bản dòng theo số vai trò → đếm DISTINCT u.id
+       ---------------------------------------------------------- */
+    @Query("""
+        SELECT new com.travel.travelbooking.dto.UserCountsDTO(
+            COUNT(DISTINCT CASE WHEN u.status <> 'DELETED' THEN u.id END),
+            COUNT(DISTINCT CASE WHEN u.status = 'DELETED' THEN u.id END),
+            COUNT(DISTINCT CASE WHEN u.status IN ('INACTIVE', 'BANNED') THEN u.id END),
+            COUNT(DISTINCT CASE WHEN u.status <> 'DELETED' AND u.createdAt >= :startOfDay THEN u.id END),
+            COUNT(DISTINCT CASE WHEN u.status <> 'DELETED' AND r.name = 'USER' THEN u.id END),
+            COUNT(DISTINCT CASE WHEN u.status <> 'DELETED' AND r.name = 'STAFF' THEN u.id END),
+            COUNT(DISTINCT CASE WHEN u.status <> 'DELETED' AND r.name = 'ADMIN' THEN u.id END)
+        )
+        FROM User u
+        LEFT JOIN u.roles r
+        """)
+    UserCountsDTO getUserCounts(@Param("startOfDay") LocalDateTime startOfDay);
 
     @Query("""
         SELECT FUNCTION('DATE', u.createdAt), COUNT(u)
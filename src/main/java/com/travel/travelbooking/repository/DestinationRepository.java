@@ -1,13 +1,9 @@
 package com.travel.travelbooking.repository;
 
 import com.travel.travelbooking.dto.DestinationDTO;
-import com.travel.travelbooking.dto.PopularDestinationDTO;
 import com.travel.travelbooking.entity.Destination;
 import com.travel.travelbooking.entity.DestinationStatus;
 import com.travel.travelbooking.entity.Region;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -83,37 +79,4 @@ public interface DestinationRepository extends JpaRepository<Destination, Long>
     ORDER BY COUNT(d) DESC
     """)
     List<Object[]> countDestinationsByRegion();
-
-
-    // TOP 5 ĐIỂM ĐẾN PHỔ BIẾN NHẤT (dựa trên số tour active + booking + views)
-    @Query("""
-    SELECT new com.travel.travelbooking.dto.PopularDestinationDTO(
-        d.id,
-        d.name,
-        d.imageUrl,
-        d.region,
-        d.description,
-        COUNT(DISTINCT t.id),
-        COALESCE(SUM(t.views), 0),
-        COUNT(DISTINCT b.id)
-    )
-    FROM Destination d
-    LEFT JOIN d.tours t ON t.status = com.travel.travelbooking.entity.TourStatus.ACTIVE
-    LEFT JOIN t.bookings b
-          ON b.status IN (
-              com.travel.travelbooking.entity.BookingStatus.CONFIRMED,
-              com.travel.travelbooking.entity.BookingStatus.COMPLETED
-          )
-    WHERE d.status = com.travel.travelbooking.entity.DestinationStatus.ACTIVE
-    GROUP BY d.id, d.name, d.imageUrl, d.region, d.description
-    ORDER BY 
-        COUNT(DISTINCT t.id) * 0.4 +
-        COALESCE(SUM(t.views), 0) * 0.00001 +
-        COUNT(DISTINCT b.id) * 0.6 DESC
-    """)
-    Page<PopularDestinationDTO> findTopPopularDestinations(Pageable pageable);
-
-    default List<PopularDestinationDTO> findTop5PopularDestinations() {
-        return findTopPopularDestinations(PageRequest.of(0, 5)).getContent();
-    }
 }
\ No newline at end of file
@@ -8,6 +8,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface HotelRepository extends JpaRepository<Hotel, Long> {
 
@@ -23,6 +26,13 @@ public interface HotelRepository extends JpaRepository<Hotel, Long> {
             @Param("star") Integer star,
             Pageable pageable);
 
+    // Load khách sạn + media theo lô (2 query cố định, tránh lazy-load từng hotel)
+    @Query("SELECT DISTINCT h FROM Hotel h LEFT JOIN FETCH h.images WHERE h.id IN :ids")
+    List<Hotel> findAllByIdInWithImages(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT h FROM Hotel h LEFT JOIN FETCH h.videos WHERE h IN :hotels")
+    List<Hotel> fetchVideos(@Param("hotels") Collection<Hotel> hotels);
+
     long countByStatus(Hotel.HotelStatus status);
     long countByStarRating(Integer starRating);
 }
\ No newline at end of file
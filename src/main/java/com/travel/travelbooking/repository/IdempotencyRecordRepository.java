@@ -0,0 +1,72 @@
+package com.travel.travelbooking.repository;
+
+import com.travel.travelbooking.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Giành quyền xử lý key: 1 = giành được, 0 = key đã có (đang xử lý hoặc đã có response)
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT IGNORE INTO idempotency_keys (id, fingerprint, created_at, claimed_at, expires_at)
+        VALUES (:id, :fingerprint, :now, :now, :expiresAt)
+        """, nativeQuery = true)
+    int claim(@Param("id") String id,
+              @Param("fingerprint") String fingerprint,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Giành lại key mà lần xử lý trước đã quá hạn lease chưa có response (instance đó đã chết).
+    // claimed_at NULL = dòng tạo trước khi có lease → tính theo created_at
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE idempotency_keys
+        SET claimed_at = :now
+        WHERE id = :id AND fingerprint = :fingerprint AND response_status IS NULL
+          AND COALESCE(claimed_at, created_at) < :staleBefore
+        """, nativeQuery = true)
+    int takeOver(@Param("id") String id,
+                 @Param("fingerprint") String fingerprint,
+                 @Param("now") LocalDateTime now,
+                 @Param("staleBefore") LocalDateTime staleBefore);
+
+    // Chỉ lần xử lý đang giữ quyền (claimed_at khớp) mới được ghi / trả key
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE idempotency_keys
+        SET response_status = :status, content_type = :contentType, body = :body
+        WHERE id = :id AND claimed_at = :claimedAt
+        """, nativeQuery = true)
+    int saveResponse(@Param("id") String id,
+                     @Param("claimedAt") LocalDateTime claimedAt,
+                     @Param("status") int status,
+                     @Param("contentType") String contentType,
+                     @Param("body") byte[] body);
+
+    // Key của request lỗi 5xx → cho phép gửi lại
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_keys WHERE id = :id AND claimed_at = :claimedAt", nativeQuery = true)
+    int release(@Param("id") String id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_keys WHERE id = :id AND expires_at < :now", nativeQuery = true)
+    int deleteIfExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < :now LIMIT 1000", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
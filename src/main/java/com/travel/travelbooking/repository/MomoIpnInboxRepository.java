@@ -0,0 +1,83 @@
+package com.travel.travelbooking.repository;
+
+import com.travel.travelbooking.entity.IpnInboxStatus;
+import com.travel.travelbooking.entity.MomoIpnInbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MomoIpnInboxRepository extends JpaRepository<MomoIpnInbox, Long> {
+
+    // Nhận 1 lô PENDING cho worker :token (1 UPDATE, nhiều instance không nhận trùng)
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE momo_ipn_inbox
+        SET status = 'PROCESSING', claimed_by = :token, claimed_at = :now, attempts = attempts + 1
+        WHERE status = 'PENDING'
+        ORDER BY id
+        LIMIT :limit
+        """, nativeQuery = true)
+    int claim(@Param("token") String token, @Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    List<MomoIpnInbox> findByClaimedByAndStatusOrderById(String claimedBy, IpnInboxStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE MomoIpnInbox i SET i.status = :status, i.processedAt = :now, i.error = :error
+        WHERE i.id IN :ids AND i.status = com.travel.travelbooking.entity.IpnInboxStatus.PROCESSING
+    """)
+    int finish(@Param("ids") Collection<Long> ids,
+               @Param("status") IpnInboxStatus status,
+               @Param("error") String error,
+               @Param("now") LocalDateTime now);
+
+    // Lỗi tạm thời → trả về hàng đợi (còn lượt thử) hoặc FAILED
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE MomoIpnInbox i
+        SET i.status = CASE WHEN i.attempts >= :maxAttempts
+                            THEN com.travel.travelbooking.entity.IpnInboxStatus.FAILED
+                            ELSE com.travel.travelbooking.entity.IpnInboxStatus.PENDING END,
+            i.error = :error, i.claimedBy = NULL
+        WHERE i.id IN :ids AND i.status = com.travel.travelbooking.entity.IpnInboxStatus.PROCESSING
+    """)
+    int retry(@Param("ids") Collection<Long> ids, @Param("error") String error, @Param("maxAttempts") int maxAttempts);
+
+    // Worker chết giữa chừng (crash, restart) → trả lô đã nhận về PENDING
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE MomoIpnInbox i
+        SET i.status = com.travel.travelbooking.entity.IpnInboxStatus.PENDING, i.claimedBy = NULL
+        WHERE i.status = com.travel.travelbooking.entity.IpnInboxStatus.PROCESSING AND i.claimedAt < :before
+    """)
+    int releaseStaleClaims(@Param("before") LocalDateTime before);
+
+    // [số IPN chưa xử lý, thời điểm nhận của IPN cũ nhất chưa xử lý]
+    @Query("""
+        SELECT COUNT(i), MIN(i.receivedAt) FROM MomoIpnInbox i
+        WHERE i.status IN (com.travel.travelbooking.entity.IpnInboxStatus.PENDING,
+                           com.travel.travelbooking.entity.IpnInboxStatus.PROCESSING)
+    """)
+    List<Object[]> findBacklog();
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        DELETE FROM momo_ipn_inbox
+        WHERE status IN ('PROCESSED', 'DUPLICATE', 'REJECTED') AND received_at < :before
+        LIMIT 1000
+        """, nativeQuery = true)
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
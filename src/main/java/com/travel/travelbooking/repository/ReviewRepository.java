@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,4 +25,20 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByTourIdOrderByCreatedAtDesc(Long tourId);
 
     Page<Review> findByTourIdOrderByCreatedAtDesc(Long tourId, Pageable pageable);
+
+    // Phân trang keyset: seek theo (createdAt, id) giảm dần
+    @Query("""
+        SELECT r FROM Review r
+        WHERE r.tour.id = :tourId
+          AND (:beforeDate IS NULL
+               OR r.createdAt < :beforeDate
+               OR (r.createdAt = :beforeDate AND r.id < :beforeId))
+        ORDER BY r.createdAt DESC, r.id DESC
+        """)
+    List<Review> findByTourIdBefore(
+            @Param("tourId") Long tourId,
+            @Param("beforeDate") LocalDateTime beforeDate,
+            @Param("beforeId") Long beforeId,
+            Pageable limit
+    );
 }
\ No newline at end of file
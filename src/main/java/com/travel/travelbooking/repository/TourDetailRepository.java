@@ -2,12 +2,32 @@ package com.travel.travelbooking.repository;
 
 import com.travel.travelbooking.entity.TourDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TourDetailRepository extends JpaRepository<TourDetail, Long> {
     Optional<TourDetail> findByTourId(Long tourId);
 
+    // === LOAD HÀNG LOẠT (dùng cho danh sách tour) ===
+    // Mỗi @ElementCollection là một List (bag) → không fetch chung 1 query được
+    // (MultipleBagFetchException + tích Descartes). Fetch từng collection một query,
+    // các query sau khởi tạo collection trên cùng entity trong persistence context.
+
+    @Query("SELECT DISTINCT d FROM TourDetail d LEFT JOIN FETCH d.transports WHERE d.tour.id IN :tourIds")
+    List<TourDetail> findAllByTourIdInWithTransports(@Param("tourIds") Collection<Long> tourIds);
+
+    @Query("SELECT DISTINCT d FROM TourDetail d LEFT JOIN FETCH d.selectedHotelIds WHERE d IN :details")
+    List<TourDetail> fetchSelectedHotelIds(@Param("details") Collection<TourDetail> details);
+
+    @Query("SELECT DISTINCT d FROM TourDetail d LEFT JOIN FETCH d.additionalImages WHERE d IN :details")
+    List<TourDetail> fetchAdditionalImages(@Param("details") Collection<TourDetail> details);
+
+    @Query("SELECT DISTINCT d FROM TourDetail d LEFT JOIN FETCH d.videos WHERE d IN :details")
+    List<TourDetail> fetchVideos(@Param("details") Collection<TourDetail> details);
 }
\ No newline at end of file
@@ -8,12 +8,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,11 +23,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     List<Tour> findByStatus(TourStatus status);
     List<Tour> findByDestination(Destination destination);
 
-    // === TĂNG LƯỢT XEM ===
-    @Modifying
-    @Transactional
-    @Query(value = "UPDATE tours SET views = views + 1 WHERE id = :id AND status <> 'DELETED'", nativeQuery = true)
-    void incrementViews(@Param("id") Long id);
+    // Các query TourDTO bên dưới đọc số booking / review từ bảng tour_stats
+    // (TourStatsService cập nhật mỗi lần đổi trạng thái) thay vì JOIN + GROUP BY
 
     /* ----------------------------------------------------------
         1. Lấy tất cả tour
@@ -38,8 +34,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
         t.id, t.name, d.id, d.name, t.duration, t.price, 
         t.imageUrl, t.description, t.averageRating,
         t.status, t.createdAt,
-        COUNT(DISTINCT b.id),
-        COUNT(DISTINCT r.id),
+        COALESCE(s.bookingCount, 0L),
+        COALESCE(s.reviewCount, 0L),
         t.maxParticipants,
         c.id, c.name, c.icon,
         COALESCE(t.views, 0)
@@ -47,14 +43,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     FROM Tour t
     LEFT JOIN t.destination d
     LEFT JOIN t.category c
-    LEFT JOIN t.bookings b 
-        ON b.status IN ('CONFIRMED','COMPLETED')
-    LEFT JOIN t.reviews r
+    LEFT JOIN TourStats s ON s.tourId = t.id
     WHERE t.status <> 'DELETED'
-    GROUP BY t.id, t.name, d.id, d.name, t.duration, t.price, 
-             t.imageUrl, t.description, t.averageRating, 
-             t.status, t.createdAt, t.maxParticipants,
-             c.id, c.name, c.icon, t.views
     ORDER BY t.id ASC
     """)
     List<TourDTO> findAllWithCounts();
@@ -67,8 +57,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
         t.id, t.name, d.id, d.name, t.duration, t.price,
         t.imageUrl, t.description, t.averageRating,
         t.status, t.createdAt,
-        COUNT(DISTINCT b.id),
-        COUNT(DISTINCT r.id),
+        COALESCE(s.bookingCount, 0L),
+        COALESCE(s.reviewCount, 0L),
         t.maxParticipants,
         c.id, c.name, c.icon,
         COALESCE(t.views, 0)
@@ -76,17 +66,31 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     FROM Tour t
     LEFT JOIN t.destination d
     LEFT JOIN t.category c
-    LEFT JOIN t.bookings b 
-        ON b.status IN ('CONFIRMED','COMPLETED')
-    LEFT JOIN t.reviews r
+    LEFT JOIN TourStats s ON s.tourId = t.id
     WHERE t.id = :id AND t.status <> 'DELETED'
-    GROUP BY t.id, t.name, d.id, d.name, t.duration, t.price,
-             t.imageUrl, t.description, t.averageRating,
-             t.status, t.createdAt, t.maxParticipants,
-             c.id, c.name, c.icon, t.views
     """)
     Optional<TourDTO> findByIdWithCounts(@Param("id") Long id);
 
+    // 2b. Lấy nhiều tour theo danh sách ID (thứ tự do service sắp xếp lại)
+    @Query("""
+    SELECT new com.travel.travelbooking.dto.TourDTO(
+        t.id, t.name, d.id, d.name, t.duration, t.price,
+        t.imageUrl, t.description, t.averageRating,
+        t.status, t.createdAt,
+        COALESCE(s.bookingCount, 0L),
+        COALESCE(s.reviewCount, 0L),
+        t.maxParticipants,
+        c.id, c.name, c.icon,
+        COALESCE(t.views, 0)
+    )
+    FROM Tour t
+    LEFT JOIN t.destination d
+    LEFT JOIN t.category c
+    LEFT JOIN TourStats s ON s.tourId = t.id
+    WHERE t.id IN :ids AND t.status <> 'DELETED'
+    """)
+    List<TourDTO> findByIdsWithCounts(@Param("ids") Collection<Long> ids);
+
     /* ----------------------------------------------------------
         3. Tìm kiếm theo tên
        ---------------------------------------------------------- */
@@ -95,8 +99,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
         t.id, t.name, d.id, d.name, t.duration, t.price,
         t.imageUrl, t.description, t.averageRating,
         t.status, t.createdAt,
-        COUNT(DISTINCT b.id),
-        COUNT(DISTINCT r.id),
+        COALESCE(s.bookingCount, 0L),
+        COALESCE(s.reviewCount, 0L),
         t.maxParticipants,
         c.id, c.name, c.icon,
         COALESCE(t.views, 0)
@@ -104,15 +108,9 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     FROM Tour t
     LEFT JOIN t.destination d
     LEFT JOIN t.category c
-    LEFT JOIN t.bookings b 
-        ON b.status IN ('CONFIRMED','COMPLETED')
-    LEFT JOIN t.reviews r
+    LEFT JOIN TourStats s ON s.tourId = t.id
     WHERE LOWER(t.name) LIKE LOWER(CONCAT('%', :name, '%'))
       AND t.status <> 'DELETED'
-    GROUP BY t.id, t.name, d.id, d.name, t.duration, t.price,
-             t.imageUrl, t.description, t.averageRating,
-             t.status, t.createdAt, t.maxParticipants,
-             c.id, c.name, c.icon, t.views
     ORDER BY t.id ASC
     """)
     List<TourDTO> findByNameContainingIgnoreCaseWithCounts(@Param("name") String name);
@@ -125,8 +123,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
         t.id, t.name, d.id, d.name, t.duration, t.price,
         t.imageUrl, t.description, t.averageRating,
         t.status, t.createdAt,
-        COUNT(DISTINCT b.id),
-        COUNT(DISTINCT r.id),
+        COALESCE(s.bookingCount, 0L),
+        COALESCE(s.reviewCount, 0L),
         t.maxParticipants,
         c.id, c.name, c.icon,
         COALESCE(t.views, 0)
@@ -134,15 +132,9 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     FROM Tour t
     LEFT JOIN t.destination d
     LEFT JOIN t.category c
-    LEFT JOIN t.bookings b 
-        ON b.status IN ('CONFIRMED','COMPLETED')
-    LEFT JOIN t.reviews r
+    LEFT JOIN TourStats s ON s.tourId = t.id
     WHERE t.destination = :destination
       AND t.status <> 'DELETED'
-    GROUP BY t.id, t.name, d.id, d.name, t.duration, t.price,
-             t.imageUrl, t.description, t.averageRating,
-             t.status, t.createdAt, t.maxParticipants,
-             c.id, c.name, c.icon, t.views
     ORDER BY t.id ASC
     """)
     List<TourDTO> findByDestinationWithCounts(Destination destination);
@@ -155,8 +147,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
         t.id, t.name, d.id, d.name, t.duration, t.price,
         t.imageUrl, t.description, t.averageRating,
         t.status, t.createdAt,
-        COUNT(DISTINCT b.id),
-        COUNT(DISTINCT r.id),
+        COALESCE(s.bookingCount, 0L),
+        COALESCE(s.reviewCount, 0L),
         t.maxParticipants,
         c.id, c.name, c.icon,
         COALESCE(t.views, 0)
@@ -164,19 +156,13 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     FROM Tour t
     LEFT JOIN t.destination d
     LEFT JOIN t.category c
-    LEFT JOIN t.bookings b
-        ON b.status IN ('CONFIRMED','COMPLETED')
-    LEFT JOIN t.reviews r
+    LEFT JOIN TourStats s ON s.tourId = t.id
     WHERE (:destinationName IS NULL OR LOWER(d.name) LIKE LOWER(CONCAT('%', :destinationName, '%')))
       AND (:status IS NULL OR t.status = :status)
       AND (:minPrice IS NULL OR t.price >= :minPrice)
       AND (:maxPrice IS NULL OR t.price <= :maxPrice)
       AND (:categoryId IS NULL OR c.id = :categoryId)
       AND t.status <> 'DELETED'
-    GROUP BY t.id, t.name, d.id, d.name, t.duration, t.price,
-             t.imageUrl, t.description, t.averageRating,
-             t.status, t.createdAt, t.maxParticipants,
-             c.id, c.name, c.icon, t.views
     ORDER BY t.id ASC
     """)
     Page<TourDTO> findFilteredTours(
@@ -188,16 +174,14 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
             Pageable pageable
     );
 
-    /* ----------------------------------------------------------
-        6. Tìm kiếm theo tên + phân trang
-       ---------------------------------------------------------- */
+    // 5b. Lọc nâng cao – phân trang keyset theo id (không OFFSET, không COUNT)
     @Query("""
     SELECT new com.travel.travelbooking.dto.TourDTO(
         t.id, t.name, d.id, d.name, t.duration, t.price,
         t.imageUrl, t.description, t.averageRating,
         t.status, t.createdAt,
-        COUNT(DISTINCT b.id),
-        COUNT(DISTINCT r.id),
+        COALESCE(s.bookingCount, 0L),
+        COALESCE(s.reviewCount, 0L),
         t.maxParticipants,
         c.id, c.name, c.icon,
         COALESCE(t.views, 0)
@@ -205,22 +189,130 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     FROM Tour t
     LEFT JOIN t.destination d
     LEFT JOIN t.category c
-    LEFT JOIN t.bookings b 
-        ON b.status IN ('CONFIRMED','COMPLETED')
-    LEFT JOIN t.reviews r
-    WHERE LOWER(t.name) LIKE LOWER(CONCAT('%', :name, '%'))
+    LEFT JOIN TourStats s ON s.tourId = t.id
+    WHERE (:destinationName IS NULL OR LOWER(d.name) LIKE LOWER(CONCAT('%', :destinationName, '%')))
+      AND (:status IS NULL OR t.status = :status)
+      AND (:minPrice IS NULL OR t.price >= :minPrice)
+      AND (:maxPrice IS NULL OR t.price <= :maxPrice)
+      AND (:categoryId IS NULL OR c.id = :categoryId)
       AND t.status <> 'DELETED'
-    GROUP BY t.id, t.name, d.id, d.name, t.duration, t.price,
-             t.imageUrl, t.description, t.averageRating,
-             t.status, t.createdAt, t.maxParticipants,
-             c.id, c.name, c.icon, t.views
+      AND (:afterId IS NULL OR t.id > :afterId)
     ORDER BY t.id ASC
     """)
-    Page<TourDTO> findByNameContainingIgnoreCaseWithCountsAndPageable(
-            @Param("name") String name,
-            Pageable pageable
+    List<TourDTO> findFilteredToursAfter(
+            @Param("destinationName") String destinationName,
+            @Param("status") TourStatus status,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("categoryId") Long categoryId,
+            @Param("afterId") Long afterId,
+            Pageable limit
     );
 
+    /* ----------------------------------------------------------
+        6. Dữ liệu cho chỉ mục tìm kiếm (TourSearchService)
+           [id, name, description, destinationName, categoryName, itinerary]
+       ---------------------------------------------------------- */
+    @Query("""
+    SELECT t.id, t.name, t.description, d.name, c.name, td.itinerary
+    FROM Tour t
+    LEFT JOIN t.destination d
+    LEFT JOIN t.category c
+    LEFT JOIN t.detail td
+    WHERE t.status <> 'DELETED'
+    """)
+    List<Object[]> findSearchRows();
+
+    @Query("""
+    SELECT t.id, t.name, t.description, d.name, c.name, td.itinerary
+    FROM Tour t
+    LEFT JOIN t.destination d
+    LEFT JOIN t.category c
+    LEFT JOIN t.detail td
+    WHERE t.id IN :ids AND t.status <> 'DELETED'
+    """)
+    List<Object[]> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Dữ liệu cho gợi ý tìm kiếm (SuggestService): [id, name, destinationId, categoryId, popularityScore]
+    // Điểm phổ biến cùng trọng số với PopularityRankingService, đọc từ tour_stats (không GROUP BY)
+    @Query("""
+    SELECT t.id, t.name, d.id, c.id,
+           COALESCE(t.views, 0) * 0.3 + COALESCE(s.bookingCount, 0) * 0.5 + COALESCE(s.reviewCount, 0) * 0.2
+    FROM Tour t
+    LEFT JOIN t.destination d
+    LEFT JOIN t.category c
+    LEFT JOIN TourStats s ON s.tourId = t.id
+    WHERE t.status = 'ACTIVE'
+    """)
+    List<Object[]> findSuggestRows();
+
+    @Query("""
+    SELECT t.id, t.name, d.id, c.id,
+           COALESCE(t.views, 0) * 0.3 + COALESCE(s.bookingCount, 0) * 0.5 + COALESCE(s.reviewCount, 0) * 0.2
+    FROM Tour t
+    LEFT JOIN t.destination d
+    LEFT JOIN t.category c
+    LEFT JOIN TourStats s ON s.tourId = t.id
+    WHERE t.id IN :ids AND t.status = 'ACTIVE'
+    """)
+    List<Object[]> findSuggestRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Dữ liệu cho bảng xếp hạng phổ biến (PopularityRankingService), đọc số đếm từ tour_stats:
+    // [id, name, imageUrl, destinationId, destinationName, description, views, bookingCount, reviewCount, averageRating]
+    @Query("""
+    SELECT t.id, t.name, t.imageUrl, d.id, d.name, t.description,
+           COALESCE(t.views, 0), COALESCE(s.bookingCount, 0), COALESCE(s.reviewCount, 0), COALESCE(t.averageRating, 0.0)
+    FROM Tour t
+    LEFT JOIN t.destination d
+    LEFT JOIN TourStats s ON s.tourId = t.id
+    WHERE t.status = 'ACTIVE'
+    """)
+    List<Object[]> findRankingRows();
+
+    @Query("""
+    SELECT t.id, t.name, t.imageUrl, d.id, d.name, t.description,
+           COALESCE(t.views, 0), COALESCE(s.bookingCount, 0), COALESCE(s.reviewCount, 0), COALESCE(t.averageRating, 0.0)
+    FROM Tour t
+    LEFT JOIN t.destination d
+    LEFT JOIN TourStats s ON s.tourId = t.id
+    WHERE t.id IN :ids AND t.status = 'ACTIVE'
+    """)
+    List<Object[]> findRankingRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Dữ liệu cho chỉ mục facet (TourFacetService):
+    // [id, status, price, duration, destinationId, destinationName, region, categoryId, categoryName]
+    @Query("""
+    SELECT t.id, t.status, t.price, t.duration, d.id, d.name, d.region, c.id, c.name
+    FROM Tour t
+    LEFT JOIN t.destination d
+    LEFT JOIN t.category c
+    WHERE t.status <> 'DELETED'
+    """)
+    List<Object[]> findFacetRows();
+
+    @Query("""
+    SELECT t.id, t.status, t.price, t.duration, d.id, d.name, d.region, c.id, c.name
+    FROM Tour t
+    LEFT JOIN t.destination d
+    LEFT JOIN t.category c
+    WHERE t.id IN :ids AND t.status <> 'DELETED'
+    """)
+    List<Object[]> findFacetRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Mọi tour (kể cả đã xóa) của một điểm đến / loại tour – để đồng bộ chỉ mục
+    @Query("SELECT t.id FROM Tour t WHERE t.destination.id = :destinationId")
+    List<Long> findIdsByDestinationId(@Param("destinationId") Long destinationId);
+
+    @Query("SELECT t.id FROM Tour t WHERE t.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+    // [id, status] – bộ đếm tour của dashboard (DashboardMetricsService)
+    @Query("SELECT t.id, t.status FROM Tour t")
+    List<Object[]> findAllStatuses();
+
+    @Query("SELECT t.id, t.status FROM Tour t WHERE t.id IN :ids")
+    List<Object[]> findStatusesByIds(@Param("ids") Collection<Long> ids);
+
     /* ----------------------------------------------------------
         7. Thống kê tour
        ---------------------------------------------------------- */
@@ -245,8 +337,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
         t.id, t.name, d.id, d.name, t.duration, t.price,
         t.imageUrl, t.description, t.averageRating,
         t.status, t.createdAt,
-        COUNT(DISTINCT b.id),
-        COUNT(DISTINCT r.id),
+        COALESCE(s.bookingCount, 0L),
+        COALESCE(s.reviewCount, 0L),
         t.maxParticipants,
         c.id, c.name, c.icon,
         COALESCE(t.views, 0)
@@ -254,15 +346,9 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     FROM Tour t
     LEFT JOIN t.destination d
     LEFT JOIN t.category c
-    LEFT JOIN t.bookings b
-        ON b.status IN ('CONFIRMED','COMPLETED')
-    LEFT JOIN t.reviews r
+    LEFT JOIN TourStats s ON s.tourId = t.id
     WHERE t.category.id = :categoryId
       AND t.status = 'ACTIVE'
-    GROUP BY t.id, t.name, d.id, d.name, t.duration, t.price,
-             t.imageUrl, t.description, t.averageRating,
-             t.status, t.createdAt, t.maxParticipants,
-             c.id, c.name, c.icon, t.views
     ORDER BY t.createdAt DESC
     """)
     List<TourDTO> findByCategoryIdWithCounts(@Param("categoryId") Long categoryId);
@@ -275,8 +361,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
         t.id, t.name, d.id, d.name, t.duration, t.price,
         t.imageUrl, t.description, t.averageRating,
         t.status, t.createdAt,
-        COUNT(DISTINCT b.id),
-        COUNT(DISTINCT r.id),
+        COALESCE(s.bookingCount, 0L),
+        COALESCE(s.reviewCount, 0L),
         t.maxParticipants,
         c.id, c.name, c.icon,
         COALESCE(t.views, 0)
@@ -284,15 +370,9 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     FROM Tour t
     LEFT JOIN t.destination d
     LEFT JOIN t.category c
-    LEFT JOIN t.bookings b
-        ON b.status IN ('CONFIRMED','COMPLETED')
-    LEFT JOIN t.reviews r
+    LEFT JOIN TourStats s ON s.tourId = t.id
     WHERE t.category.id = :categoryId
       AND t.status = 'ACTIVE'
-    GROUP BY t.id, t.name, d.id, d.name, t.duration, t.price,
-             t.imageUrl, t.description, t.averageRating,
-             t.status, t.createdAt, t.maxParticipants,
-             c.id, c.name, c.icon, t.views
     ORDER BY t.createdAt DESC
     """)
     Page<TourDTO> findByCategoryIdWithCountsPaged(
@@ -301,36 +381,8 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     );
 
     /* ----------------------------------------------------------
-        10. Popular Tour
+        10. Popular Tour → PopularityRankingService
        ---------------------------------------------------------- */
-    @Query("""
-    SELECT new com.travel.travelbooking.dto.PopularTourDTO(
-        t.id, t.name, t.imageUrl, d.name, t.description,
-        COALESCE(t.views, 0),
-        COUNT(DISTINCT b.id),
-        COUNT(DISTINCT r.id),
-        COALESCE(t.averageRating, 0.0),
-        (COALESCE(t.views, 0) * 0.3) 
-        + (COUNT(DISTINCT b.id) * 0.5) 
-        + (COUNT(DISTINCT r.id) * 0.2)
-    )
-    FROM Tour t
-    LEFT JOIN t.destination d
-    LEFT JOIN t.bookings b 
-        ON b.status IN ('CONFIRMED','COMPLETED')
-    LEFT JOIN t.reviews r
-    WHERE t.status = 'ACTIVE'
-    GROUP BY t.id, t.name, t.imageUrl, d.name, t.description, t.views, t.averageRating
-    ORDER BY 
-        (COALESCE(t.views, 0) * 0.3) 
-        + (COUNT(DISTINCT b.id) * 0.5)
-        + (COUNT(DISTINCT r.id) * 0.2) DESC
-    """)
-    Page<PopularTourDTO> findTopPopularTours(Pageable pageable);
-
-    default List<PopularTourDTO> findTop10PopularTours() {
-        return findTopPopularTours(PageRequest.of(0, 10)).getContent();
-    }
 
     /* ----------------------------------------------------------
         11. Top booked tours
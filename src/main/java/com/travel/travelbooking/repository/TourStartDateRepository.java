@@ -2,11 +2,14 @@ package com.travel.travelbooking.repository;
 
 import com.travel.travelbooking.entity.TourStartDate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +27,21 @@ public interface TourStartDateRepository extends JpaRepository<TourStartDate, Lo
     @Query("SELECT tsd FROM TourStartDate tsd WHERE tsd.tour.id = :tourId AND tsd.startDate = :date")
     Optional<TourStartDate> findByTourIdAndStartDate(@Param("tourId") Long tourId, @Param("date") LocalDate date);
 
+    // Lịch chỗ của nhiều tour ACTIVE trong 1 query:
+    // [tourId, startDate, capacity, bookedParticipants, heldParticipants]
+    @Query("""
+        SELECT tsd.tour.id, tsd.startDate, tsd.capacity, tsd.bookedParticipants, tsd.heldParticipants
+        FROM TourStartDate tsd
+        WHERE tsd.tour.id IN :tourIds
+          AND tsd.tour.status = 'ACTIVE'
+          AND (:from IS NULL OR tsd.startDate >= :from)
+          AND (:to IS NULL OR tsd.startDate <= :to)
+        ORDER BY tsd.tour.id, tsd.startDate
+    """)
+    List<Object[]> findAvailabilityRows(@Param("tourIds") Collection<Long> tourIds,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+
     // ⭐ Thêm hàm cần thiết cho GroqChatService (FULL ENTITY & SORTED)
     List<TourStartDate> findByTourIdOrderByStartDate(Long tourId);
 
@@ -35,4 +53,99 @@ public interface TourStartDateRepository extends JpaRepository<TourStartDate, Lo
           AND b.status IN ('PENDING','CONFIRMED','COMPLETED')
     """)
     boolean existsBySelectedStartDateId(@Param("startDateId") Long startDateId);
+
+    /* ----------------------------------------------------------
+        Giữ / chốt / trả chỗ: UPDATE có điều kiện, trả về số dòng bị đổi
+        (0 = không đủ chỗ / không còn gì để trả). Khóa dòng do UPDATE đảm bảo
+        hai giao dịch đồng thời không cùng vượt capacity.
+       ---------------------------------------------------------- */
+    @Modifying
+    @Query("""
+        UPDATE TourStartDate t
+        SET t.heldParticipants = t.heldParticipants + :n
+        WHERE t.id = :id AND t.bookedParticipants + t.heldParticipants + :n <= t.capacity
+    """)
+    int hold(@Param("id") Long id, @Param("n") int n);
+
+    // Chuyển chỗ đang giữ thành chỗ đã đặt (không đổi tổng nên không cần so capacity)
+    @Modifying
+    @Query("""
+        UPDATE TourStartDate t
+        SET t.heldParticipants = t.heldParticipants - :n,
+            t.bookedParticipants = t.bookedParticipants + :n
+        WHERE t.id = :id AND t.heldParticipants >= :n
+    """)
+    int convertHold(@Param("id") Long id, @Param("n") int n);
+
+    @Modifying
+    @Query("""
+        UPDATE TourStartDate t
+        SET t.bookedParticipants = t.bookedParticipants + :n
+        WHERE t.id = :id AND t.bookedParticipants + t.heldParticipants + :n <= t.capacity
+    """)
+    int reserve(@Param("id") Long id, @Param("n") int n);
+
+    @Modifying
+    @Query("""
+        UPDATE TourStartDate t
+        SET t.heldParticipants = t.heldParticipants - :n
+        WHERE t.id = :id AND t.heldParticipants >= :n
+    """)
+    int releaseHold(@Param("id") Long id, @Param("n") int n);
+
+    @Modifying
+    @Query("""
+        UPDATE TourStartDate t
+        SET t.bookedParticipants = t.bookedParticipants - :n
+        WHERE t.id = :id AND t.bookedParticipants >= :n
+    """)
+    int releaseBooked(@Param("id") Long id, @Param("n") int n);
+
+    @Query("SELECT t.capacity - t.bookedParticipants - t.heldParticipants FROM TourStartDate t WHERE t.id = :id")
+    int findRemainingSeats(@Param("id") Long id);
+
+    /* ----------------------------------------------------------
+        Đối soát bộ đếm với bảng bookings. seat_allocation NULL (booking cũ)
+        suy ra từ trạng thái giống SeatInventoryService.allocationOf
+       ---------------------------------------------------------- */
+    @Query(value = """
+        SELECT t.id
+        FROM tour_start_dates t
+        LEFT JOIN (
+            SELECT start_date_id,
+                   SUM(CASE WHEN alloc = 'BOOKED' THEN number_of_people ELSE 0 END) AS booked,
+                   SUM(CASE WHEN alloc = 'HELD' THEN number_of_people ELSE 0 END) AS held
+            FROM (
+                SELECT start_date_id, number_of_people,
+                       COALESCE(seat_allocation,
+                                CASE WHEN status IN ('CONFIRMED', 'COMPLETED', 'CANCEL_REQUEST')
+                                     THEN 'BOOKED' ELSE 'NONE' END) AS alloc
+                FROM bookings
+            ) a
+            GROUP BY start_date_id
+        ) b ON b.start_date_id = t.id
+        WHERE t.start_date >= :from
+          AND (t.booked_participants <> COALESCE(b.booked, 0)
+               OR t.held_participants <> COALESCE(b.held, 0))
+        """, nativeQuery = true)
+    List<Long> findDriftedCounterIds(@Param("from") LocalDate from);
+
+    // Tính lại 1 ngày từ bookings. UPDATE khóa dòng trước, mọi giữ / trả chỗ khác
+    // cũng UPDATE dòng này → không lẫn với thay đổi đang diễn ra
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE tour_start_dates t
+        SET t.booked_participants = (
+                SELECT COALESCE(SUM(b.number_of_people), 0) FROM bookings b
+                WHERE b.start_date_id = t.id
+                  AND COALESCE(b.seat_allocation,
+                               CASE WHEN b.status IN ('CONFIRMED', 'COMPLETED', 'CANCEL_REQUEST')
+                                    THEN 'BOOKED' ELSE 'NONE' END) = 'BOOKED'),
+            t.held_participants = (
+                SELECT COALESCE(SUM(b.number_of_people), 0) FROM bookings b
+                WHERE b.start_date_id = t.id AND b.seat_allocation = 'HELD')
+        WHERE t.id = :id
+        """, nativeQuery = true)
+    void recomputeCounters(@Param("id") Long id);
 }
@@ -0,0 +1,104 @@
+package com.travel.travelbooking.repository;
+
+import com.travel.travelbooking.entity.TourStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface TourStatsRepository extends JpaRepository<TourStats, Long> {
+
+    // === CỘNG / TRỪ BOOKING (upsert theo tour_id) ===
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tour_stats (tour_id, booking_count, participant_sum, review_count, rating_sum, updated_at)
+        VALUES (:tourId, :bookingDelta, :participantDelta, 0, 0, NOW())
+        ON DUPLICATE KEY UPDATE
+            booking_count = booking_count + :bookingDelta,
+            participant_sum = participant_sum + :participantDelta,
+            updated_at = NOW()
+        """, nativeQuery = true)
+    void addBookings(@Param("tourId") Long tourId,
+                     @Param("bookingDelta") long bookingDelta,
+                     @Param("participantDelta") long participantDelta);
+
+    // === CỘNG REVIEW (upsert theo tour_id) ===
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tour_stats (tour_id, booking_count, participant_sum, review_count, rating_sum, updated_at)
+        VALUES (:tourId, 0, 0, :reviewDelta, :ratingDelta, NOW())
+        ON DUPLICATE KEY UPDATE
+            review_count = review_count + :reviewDelta,
+            rating_sum = rating_sum + :ratingDelta,
+            updated_at = NOW()
+        """, nativeQuery = true)
+    void addReviews(@Param("tourId") Long tourId,
+                    @Param("reviewDelta") long reviewDelta,
+                    @Param("ratingDelta") long ratingDelta);
+
+    /* ----------------------------------------------------------
+        Số tour có tour_stats lệch so với bảng gốc (hoặc chưa có dòng)
+        So sánh từng giá trị: affected rows của upsert không dùng được
+        vì MySQL Connector/J mặc định bật CLIENT_FOUND_ROWS
+       ---------------------------------------------------------- */
+    @Query(value = """
+        SELECT COUNT(*)
+        FROM tours t
+        LEFT JOIN tour_stats s ON s.tour_id = t.id
+        LEFT JOIN (
+            SELECT tour_id, COUNT(*) AS cnt, SUM(number_of_people) AS people
+            FROM bookings
+            WHERE status IN ('CONFIRMED', 'COMPLETED')
+            GROUP BY tour_id
+        ) b ON b.tour_id = t.id
+        LEFT JOIN (
+            SELECT tour_id, COUNT(*) AS cnt, SUM(rating) AS total
+            FROM reviews
+            GROUP BY tour_id
+        ) r ON r.tour_id = t.id
+        WHERE s.tour_id IS NULL
+           OR s.booking_count <> COALESCE(b.cnt, 0)
+           OR s.participant_sum <> COALESCE(b.people, 0)
+           OR s.review_count <> COALESCE(r.cnt, 0)
+           OR s.rating_sum <> COALESCE(r.total, 0)
+        """, nativeQuery = true)
+    long countDrifted();
+
+    /* ----------------------------------------------------------
+        Tính lại toàn bộ từ bảng gốc (đối soát)
+       ---------------------------------------------------------- */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tour_stats (tour_id, booking_count, participant_sum, review_count, rating_sum, updated_at)
+        SELECT t.id,
+               COALESCE(b.cnt, 0),
+               COALESCE(b.people, 0),
+               COALESCE(r.cnt, 0),
+               COALESCE(r.total, 0),
+               NOW()
+        FROM tours t
+        LEFT JOIN (
+            SELECT tour_id, COUNT(*) AS cnt, SUM(number_of_people) AS people
+            FROM bookings
+            WHERE status IN ('CONFIRMED', 'COMPLETED')
+            GROUP BY tour_id
+        ) b ON b.tour_id = t.id
+        LEFT JOIN (
+            SELECT tour_id, COUNT(*) AS cnt, SUM(rating) AS total
+            FROM reviews
+            GROUP BY tour_id
+        ) r ON r.tour_id = t.id
+        ON DUPLICATE KEY UPDATE
+            booking_count = VALUES(booking_count),
+            participant_sum = VALUES(participant_sum),
+            review_count = VALUES(review_count),
+            rating_sum = VALUES(rating_sum)
+        """, nativeQuery = true)
+    void rebuildAll();
+}
@@ -25,6 +25,7 @@ public class BlogServiceImpl implements BlogService {
     private final BlogCommentRepository blogCommentRepository;
     private final UserRepository userRepository;
     private final CloudinaryService cloudinaryService;
+    private final ViewCounterService viewCounterService;
 
     // ===================== CREATE BLOG =====================
     @Override
@@ -119,15 +120,17 @@ public class BlogServiceImpl implements BlogService {
 
     // ===================== GET BLOG BY ID =====================
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public BlogDTO getPublishedBlogById(Long id) {
         Blog blog = blogRepository.findByIdAndStatus(id, BlogStatus.APPROVED)
                 .orElseThrow(() -> new ResourceNotFoundException("Bài viết không khả dụng"));
 
-        blog.setViews(blog.getViews() + 1);
-        blogRepository.save(blog);
+        // Lượt xem ghi dồn qua ViewCounterService (không read-modify-save)
+        viewCounterService.incrementBlogView(id);
 
-        return toBlogDTO(blog);
+        BlogDTO dto = toBlogDTO(blog);
+        dto.setViews((int) (blog.getViews() + viewCounterService.pendingBlogViews(id)));
+        return dto;
     }
 
     // ===================== RELATED BLOGS (FIX LAZY) =====================
@@ -0,0 +1,144 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.JobStatsDTO;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.entity.JobCheckpoint;
+import com.travel.travelbooking.repository.BookingRepository;
+import com.travel.travelbooking.repository.JobCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Tự chuyển booking CONFIRMED sang COMPLETED khi tour đã kết thúc (ngày khởi hành + số ngày của tour).
+// Quét keyset theo id từng trang, mỗi trang 1 transaction ngắn (BookingService.autoComplete),
+// lưu id cuối vào job_checkpoints sau mỗi trang → crash giữa chừng thì lượt sau chạy tiếp từ đó.
+// Xử lý lại một trang là vô hại: booking không còn CONFIRMED bị bỏ qua.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingAutoCompleteService {
+
+    static final String JOB_NAME = "booking-auto-complete";
+
+    // "3 ngày 2 đêm", "2 days" → số đứng trước "ngày"; "5N4Đ" → số đầu tiên
+    private static final Pattern DAYS = Pattern.compile("(\\d+)\\s*(?:ngày|days?)", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    private static final Pattern FIRST_NUMBER = Pattern.compile("(\\d+)");
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+
+    @Value("${booking.auto-complete.page-size:200}")
+    private int pageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Chỉ số lượt chạy gần nhất (đọc qua AdminMonitoringController)
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile long lastRunDurationMs;
+    private volatile long lastRunScanned;
+    private volatile long lastRunProcessed;
+    private volatile long totalProcessed;
+
+    @Scheduled(cron = "${booking.auto-complete.cron:0 30 * * * *}")
+    public void run() {
+        if (!running.compareAndSet(false, true)) return;   // lượt trước chưa xong
+        try {
+            runOnce();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public JobStatsDTO getStats() {
+        Long checkpoint = jobCheckpointRepository.findById(JOB_NAME).map(JobCheckpoint::getLastId).orElse(0L);
+        double rowsPerSecond = lastRunDurationMs > 0 ? lastRunScanned * 1000.0 / lastRunDurationMs : 0;
+        return new JobStatsDTO(JOB_NAME, running.get(), checkpoint, lastRunStartedAt, lastRunDurationMs,
+                lastRunScanned, lastRunProcessed, rowsPerSecond, totalProcessed);
+    }
+
+    /* ---- helpers ---- */
+
+    private void runOnce() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME).orElseGet(() -> {
+            JobCheckpoint c = new JobCheckpoint();
+            c.setJobName(JOB_NAME);
+            return c;
+        });
+        if (checkpoint.getLastId() > 0) {
+            log.info("Resuming {} after booking id {}", JOB_NAME, checkpoint.getLastId());
+        } else {
+            checkpoint.setRunStartedAt(LocalDateTime.now());
+        }
+        lastRunStartedAt = LocalDateTime.now();
+
+        long scanned = 0, completed = 0;
+        try {
+            List<Object[]> rows;
+            // Ngày khởi hành < hôm nay là điều kiện cần (tour ít nhất 1 ngày); số ngày lọc tiếp ở dưới
+            while (!(rows = bookingRepository.findCompletionCandidates(BookingStatus.CONFIRMED,
+                    checkpoint.getLastId(), today, PageRequest.of(0, pageSize))).isEmpty()) {
+
+                List<Long> finished = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    LocalDate startDate = (LocalDate) row[1];
+                    if (!startDate.plusDays(durationDays((String) row[2])).isAfter(today)) {
+                        finished.add((Long) row[0]);
+                    }
+                }
+
+                completed += bookingService.autoComplete(finished);
+                scanned += rows.size();
+                saveCheckpoint(checkpoint, (Long) rows.get(rows.size() - 1)[0]);
+            }
+            // Quét hết → lượt sau bắt đầu lại từ đầu (booking chưa tới hạn hôm nay sẽ được xét lại)
+            saveCheckpoint(checkpoint, 0L);
+        } catch (Exception e) {
+            // Giữ checkpoint: lượt sau chạy tiếp từ trang lỗi
+            log.warn("{} stopped after booking id {}: {}", JOB_NAME, checkpoint.getLastId(), e.getMessage());
+        } finally {
+            lastRunDurationMs = System.currentTimeMillis() - start;
+            lastRunScanned = scanned;
+            lastRunProcessed = completed;
+            totalProcessed += completed;
+        }
+
+        if (completed > 0 || scanned > 0) {
+            log.info("{}: scanned {}, completed {} bookings in {} ms", JOB_NAME, scanned, completed, lastRunDurationMs);
+        }
+    }
+
+    private void saveCheckpoint(JobCheckpoint checkpoint, Long lastId) {
+        checkpoint.setLastId(lastId);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        jobCheckpointRepository.save(checkpoint);
+    }
+
+    // Không đọc được số ngày → coi là tour 1 ngày
+    static int durationDays(String duration) {
+        if (duration == null) return 1;
+        Matcher m = DAYS.matcher(duration);
+        if (!m.find()) {
+            m = FIRST_NUMBER.matcher(duration);
+            if (!m.find()) return 1;
+        }
+        try {
+            return Math.max(Integer.parseInt(m.group(1)), 1);
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.RollupPointDTO;
+import com.travel.travelbooking.entity.BookingRollup;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.entity.RollupGranularity;
+import com.travel.travelbooking.event.BookingStatusChangedEvent;
+import com.travel.travelbooking.repository.BookingRollupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+// Chuỗi thời gian booking / doanh thu cho biểu đồ dashboard (bảng booking_rollups):
+//   ghi    → cộng dồn trong bộ nhớ theo (giờ, tour) từ BookingStatusChangedEvent, ghi xuống theo lịch (1 upsert / khung)
+//   dồn    → khung giờ quá booking.rollup.hourly-retention-days ngày được dồn thành khung ngày rồi xóa
+//   đọc    → chỉ đọc các khung trong khoảng cần xem: chi phí theo số khung × số tour, không theo số booking
+// Khung ngày = dòng DAY (đã dồn) + các dòng HOUR chưa dồn của ngày đó; hai phần không chồng nhau.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingRollupService {
+
+    public enum Granularity { HOUR, DAY, WEEK, MONTH }
+
+    public enum GroupBy { NONE, TOUR, DESTINATION, CATEGORY }
+
+    // Số khung tối đa trả về cho 1 biểu đồ
+    private static final long MAX_BUCKETS = 2000;
+
+    private final BookingRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.rollup.hourly-retention-days:7}")
+    private long hourlyRetentionDays;
+
+    private record Key(LocalDateTime hour, Long tourId) {
+    }
+
+    private static final class Delta {
+        long created;
+        long confirmed;
+        long cancelled;
+        double revenue;
+
+        void add(Delta other) {
+            created += other.created;
+            confirmed += other.confirmed;
+            cancelled += other.cancelled;
+            revenue += other.revenue;
+        }
+    }
+
+    private final ConcurrentMap<Key, Delta> pending = new ConcurrentHashMap<>();
+
+    // ===================== GHI =====================
+
+    // confirmed / revenue là số ròng: vào nhóm đã chốt (CONFIRMED / COMPLETED, như tour_stats) +1, rời nhóm -1.
+    // CONFIRMED → CANCEL_REQUEST → CONFIRMED (từ chối yêu cầu hủy) vì vậy chỉ được tính 1 lần.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        Delta delta = new Delta();
+        if (event.oldStatus() == null) delta.created = 1;
+        boolean countedBefore = event.oldStatus() != null && TourStatsService.COUNTED_STATUSES.contains(event.oldStatus());
+        boolean countedAfter = TourStatsService.COUNTED_STATUSES.contains(event.newStatus());
+        if (countedBefore != countedAfter) {
+            int sign = countedAfter ? 1 : -1;
+            delta.confirmed = sign;
+            delta.revenue = sign * (event.totalPrice() != null ? event.totalPrice() : 0);
+        }
+        if (event.newStatus() == BookingStatus.CANCELLED) delta.cancelled = 1;
+        if (delta.created == 0 && delta.confirmed == 0 && delta.cancelled == 0) return;
+
+        Key key = new Key(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS), event.tourId());
+        pending.merge(key, delta, (a, b) -> {
+            Delta sum = new Delta();
+            sum.add(a);
+            sum.add(b);
+            return sum;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${booking.rollup.flush-interval-ms:10000}")
+    public void flush() {
+        for (Key key : new ArrayList<>(pending.keySet())) {
+            Delta delta = pending.remove(key);
+            if (delta == null) continue;
+            try {
+                transactionTemplate.executeWithoutResult(status -> rollupRepository.add(
+                        RollupGranularity.HOUR.name(), key.hour(), key.tourId(),
+                        delta.created, delta.confirmed, delta.cancelled, delta.revenue));
+            } catch (Exception e) {
+                // Trả lại để lần flush sau ghi tiếp
+                pending.merge(key, delta, (a, b) -> {
+                    a.add(b);
+                    return a;
+                });
+                log.warn("Flushing booking rollup {} failed, will retry: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(cron = "${booking.rollup.compact-cron:0 5 * * * *}")
+    public void compact() {
+        LocalDateTime before = LocalDate.now().minusDays(hourlyRetentionDays).atStartOfDay();
+        Integer hours = transactionTemplate.execute(status -> {
+            rollupRepository.compactHoursBefore(before);
+            return rollupRepository.deleteHoursBefore(before);
+        });
+        if (hours != null && hours > 0) log.info("Compacted {} hourly booking rollups before {}", hours, before);
+    }
+
+    // Lần đầu chạy (bảng rỗng): dựng khung ngày cho lịch sử booking sẵn có
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (rollupRepository.count() > 0) return;
+        long start = System.currentTimeMillis();
+        Integer rows = transactionTemplate.execute(status -> rollupRepository.backfillDays());
+        log.info("Backfilled {} daily booking rollups in {} ms", rows, System.currentTimeMillis() - start);
+    }
+
+    // ===================== ĐỌC =====================
+
+    // Khoảng [from, to] tính theo ngày; HOUR chỉ có trong hourly-retention-days ngày gần nhất
+    public List<RollupPointDTO> query(LocalDate from, LocalDate to, Granularity granularity, GroupBy groupBy) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Khoảng thời gian không hợp lệ");
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        long buckets = switch (granularity) {
+            case HOUR -> ChronoUnit.HOURS.between(start, end);
+            case DAY -> ChronoUnit.DAYS.between(start, end);
+            case WEEK -> ChronoUnit.WEEKS.between(start, end) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(start, end) + 1;
+        };
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Khoảng thời gian quá dài cho mức chi tiết " + granularity);
+        }
+
+        List<BookingRollup> rows = new ArrayList<>(rollupRepository.findRange(RollupGranularity.HOUR, start, end));
+        if (granularity != Granularity.HOUR) {
+            rows.addAll(rollupRepository.findRange(RollupGranularity.DAY, start, end));
+        }
+
+        Function<BookingRollup, Long> dimension = switch (groupBy) {
+            case NONE -> r -> null;
+            case TOUR -> BookingRollup::getTourId;
+            case DESTINATION -> BookingRollup::getDestinationId;
+            case CATEGORY -> BookingRollup::getCategoryId;
+        };
+
+        Map<List<Object>, RollupPointDTO> points = new HashMap<>();
+        for (BookingRollup r : rows) {
+            LocalDateTime bucket = bucketOf(r.getBucketStart(), granularity);
+            Long dim = dimension.apply(r);
+            RollupPointDTO p = points.computeIfAbsent(Arrays.asList(bucket, dim),
+                    k -> new RollupPointDTO(bucket, dim, 0, 0, 0, 0));
+            p.setCreatedBookings(p.getCreatedBookings() + r.getCreatedCount());
+            p.setConfirmedBookings(p.getConfirmedBookings() + r.getConfirmedCount());
+            p.setCancelledBookings(p.getCancelledBookings() + r.getCancelledCount());
+            p.setRevenue(p.getRevenue() + r.getRevenue());
+        }
+
+        return points.values().stream()
+                .sorted(Comparator.comparing(RollupPointDTO::getBucketStart)
+                        .thenComparing(RollupPointDTO::getDimensionId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    /* ---- helpers ---- */
+
+    private static LocalDateTime bucketOf(LocalDateTime time, Granularity granularity) {
+        return switch (granularity) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            case MONTH -> time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        };
+    }
+}
@@ -3,10 +3,14 @@ package com.travel.travelbooking.service;
 import com.travel.travelbooking.dto.BookingCreateRequest;
 import com.travel.travelbooking.dto.BookingDTO;
 import com.travel.travelbooking.dto.BookingStatsDTO;
+import com.travel.travelbooking.dto.BulkBookingRequest;
+import com.travel.travelbooking.dto.BulkBookingResultDTO;
 import com.travel.travelbooking.entity.Booking;
 import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.payload.CursorPageResponse;
 import org.springframework.data.domain.Page;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface BookingService {
@@ -21,8 +25,15 @@ public interface BookingService {
     BookingDTO rejectCancellation(Long bookingId, String reason);
     void softDeleteBooking(Long bookingId);
     BookingDTO completeBooking(Long bookingId);
+    BulkBookingResultDTO bulkConfirm(BulkBookingRequest request);
+    BulkBookingResultDTO bulkReject(BulkBookingRequest request);
+    BulkBookingResultDTO bulkComplete(BulkBookingRequest request);
     Page<BookingDTO> getPendingBookings(int page, List<BookingStatus> statuses);
+    CursorPageResponse<BookingDTO> getPendingBookingsAfter(String after, int size, List<BookingStatus> statuses);
     BookingDTO getBookingDetailById(Long id);
     BookingStatsDTO getBookingStatistics();
+    int expireHolds(Collection<Long> bookingIds);
+    void restoreHoldAfterPayment(Long bookingId);
+    int autoComplete(Collection<Long> bookingIds);
     BookingDTO toDTO(Booking booking);
 }
\ No newline at end of file
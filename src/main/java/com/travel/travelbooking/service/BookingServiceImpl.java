@@ -3,18 +3,31 @@ package com.travel.travelbooking.service;
 import com.travel.travelbooking.dto.BookingCreateRequest;
 import com.travel.travelbooking.dto.BookingDTO;
 import com.travel.travelbooking.dto.BookingStatsDTO;
+import com.travel.travelbooking.dto.BulkBookingRequest;
+import com.travel.travelbooking.dto.BulkBookingResultDTO;
 import com.travel.travelbooking.entity.*;
+import com.travel.travelbooking.event.BookingStatusChangedEvent;
 import com.travel.travelbooking.exception.ResourceNotFoundException;
+import com.travel.travelbooking.payload.CursorPageResponse;
 import com.travel.travelbooking.repository.*;
+import com.travel.travelbooking.util.PageCursor;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -26,6 +39,13 @@ public class BookingServiceImpl implements BookingService {
     private final TourStartDateRepository tourStartDateRepository;
     private final BookingContactRepository bookingContactRepository;
     private final PaymentRepository paymentRepository;
+    private final TourStatsService tourStatsService;
+    private final SeatInventoryService seatInventoryService;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${booking.bulk.chunk-size:100}")
+    private int bulkChunkSize;
 
     @Override
     @Transactional
@@ -43,15 +63,6 @@ public class BookingServiceImpl implements BookingService {
                 .findByTourIdAndStartDate(tour.getId(), request.getStartDate())
                 .orElseThrow(() -> new IllegalArgumentException("Ngày khởi hành không hợp lệ hoặc không tồn tại"));
 
-        // === CHECK CHỖ THEO NGÀY ===
-        long current = bookingRepository.getParticipantsByStartDate(startDateEntity.getId());
-        int capacity = startDateEntity.getCapacity();
-
-        if (current + request.getNumberOfPeople() > capacity) {
-            long remaining = capacity - current;
-            throw new IllegalArgumentException("Ngày này chỉ còn " + remaining + " chỗ trống");
-        }
-
         // === Validate transport ===
         Double transportPrice = 0.0;
         String transportName = null;
@@ -107,7 +118,12 @@ public class BookingServiceImpl implements BookingService {
                 .status(BookingStatus.PENDING)
                 .build();
 
+        // === GIỮ CHỖ THEO NGÀY (UPDATE có điều kiện, hết chỗ → 400) ===
+        // Để gần cuối transaction cho khóa dòng ngày khởi hành được giữ ngắn nhất
+        seatInventoryService.hold(booking);
+
         Booking saved = bookingRepository.save(booking);
+        publishStatusChanged(saved, null);
 
         // === Tạo Payment (PENDING) ===
         Payment payment = Payment.builder()
@@ -131,7 +147,7 @@ public class BookingServiceImpl implements BookingService {
             throw new IllegalArgumentException("Chỉ được hủy booking khi đang chờ xác nhận hoặc đã xác nhận");
         }
 
-        booking.setStatus(BookingStatus.CANCEL_REQUEST);
+        changeStatus(booking, BookingStatus.CANCEL_REQUEST);
         if (reason != null && !reason.trim().isEmpty()) {
             booking.setNote("Yêu cầu hủy: " + reason);
         }
@@ -152,24 +168,7 @@ public class BookingServiceImpl implements BookingService {
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
     public BookingDTO confirmBooking(Long bookingId) {
         Booking booking = getBookingForAdmin(bookingId);
-
-        if (booking.getStatus() != BookingStatus.PENDING) {
-            throw new IllegalArgumentException("Chỉ xác nhận được booking đang chờ");
-        }
-
-        TourStartDate sd = booking.getSelectedStartDate();
-        long current = bookingRepository.getParticipantsByStartDate(sd.getId());
-        long after = current + booking.getNumberOfPeople();
-
-        if (after > sd.getCapacity()) {
-            throw new IllegalArgumentException("Không đủ chỗ trống ở ngày này để xác nhận");
-        }
-
-        // Cập nhật số lượng khách của ngày đó
-        sd.setBookedParticipants((int) after);
-        tourStartDateRepository.save(sd);
-
-        booking.setStatus(BookingStatus.CONFIRMED);
+        confirm(booking);
         return toDTO(bookingRepository.save(booking));
     }
 
@@ -177,13 +176,7 @@ public class BookingServiceImpl implements BookingService {
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
     public BookingDTO rejectBooking(Long bookingId, String reason) {
         Booking booking = getBookingForAdmin(bookingId);
-
-        if (booking.getStatus() != BookingStatus.PENDING) {
-            throw new IllegalArgumentException("Chỉ từ chối được booking đang chờ");
-        }
-
-        booking.setStatus(BookingStatus.REJECTED);
-        booking.setNote("Từ chối: " + (reason != null ? reason : "Không đủ điều kiện"));
+        reject(booking, reason);
         return toDTO(bookingRepository.save(booking));
     }
 
@@ -196,12 +189,9 @@ public class BookingServiceImpl implements BookingService {
             throw new IllegalArgumentException("Không có yêu cầu hủy");
         }
 
-        booking.setStatus(BookingStatus.CANCELLED);
-
         // Trả lại số chỗ của ngày
-        TourStartDate sd = booking.getSelectedStartDate();
-        sd.setBookedParticipants(sd.getBookedParticipants() - booking.getNumberOfPeople());
-        tourStartDateRepository.save(sd);
+        seatInventoryService.release(booking);
+        changeStatus(booking, BookingStatus.CANCELLED);
 
         return toDTO(bookingRepository.save(booking));
     }
@@ -215,7 +205,9 @@ public class BookingServiceImpl implements BookingService {
             throw new IllegalArgumentException("Không có yêu cầu hủy");
         }
 
-        booking.setStatus(BookingStatus.CONFIRMED);
+        // Yêu cầu hủy từ booking còn đang chờ → chốt chỗ đang giữ
+        seatInventoryService.commit(booking);
+        changeStatus(booking, BookingStatus.CONFIRMED);
         booking.setNote("Yêu cầu hủy bị từ chối: " + (reason != null ? reason : "Không hợp lệ"));
         return toDTO(bookingRepository.save(booking));
     }
@@ -223,14 +215,17 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
     public void softDeleteBooking(Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new ResourceNotFoundException("Booking không tồn tại"));
+        Booking booking = getBookingForAdmin(bookingId);
 
         if (booking.getStatus() == BookingStatus.CONFIRMED) {
             throw new IllegalArgumentException("Không thể xóa booking đã xác nhận. Vui lòng hủy trước.");
         }
 
-        booking.setStatus(BookingStatus.DELETED);
+        // Tour đã hoàn thành thì giữ nguyên số khách của ngày; booking hết hạn đã được trả chỗ lúc hết hạn
+        if (booking.getStatus() != BookingStatus.COMPLETED && booking.getStatus() != BookingStatus.EXPIRED) {
+            seatInventoryService.release(booking);
+        }
+        changeStatus(booking, BookingStatus.DELETED);
         bookingRepository.save(booking);
     }
 
@@ -238,20 +233,33 @@ public class BookingServiceImpl implements BookingService {
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
     public BookingDTO completeBooking(Long bookingId) {
         Booking booking = getBookingForAdmin(bookingId);
+        complete(booking);
+        return toDTO(bookingRepository.save(booking));
+    }
 
-        if (booking.getStatus() != BookingStatus.CONFIRMED) {
-            throw new IllegalArgumentException("Chỉ có thể hoàn thành booking đã xác nhận");
-        }
+    // === XỬ LÝ HÀNG LOẠT ===
+    // Không chạy trong 1 transaction lớn: chia lô, mỗi lô 1 transaction (khóa + cập nhật + flush theo JDBC batch).
+    // Lỗi nghiệp vụ của 1 booking chỉ đánh dấu booking đó thất bại, không rollback cả lô.
 
-        LocalDateTime tourStartDate = booking.getSelectedStartDate().getStartDate().atStartOfDay();
-        LocalDateTime now = LocalDateTime.now();
+    @Override
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkBookingResultDTO bulkConfirm(BulkBookingRequest request) {
+        return runBulk(request, this::confirm);
+    }
 
-        if (tourStartDate.isAfter(now)) {
-            throw new IllegalArgumentException("Tour chưa diễn ra, không thể hoàn thành");
-        }
+    @Override
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkBookingResultDTO bulkReject(BulkBookingRequest request) {
+        return runBulk(request, booking -> reject(booking, request.getReason()));
+    }
 
-        booking.setStatus(BookingStatus.COMPLETED);
-        return toDTO(bookingRepository.save(booking));
+    @Override
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkBookingResultDTO bulkComplete(BulkBookingRequest request) {
+        return runBulk(request, this::complete);
     }
 
     @Override
@@ -286,6 +294,92 @@ public class BookingServiceImpl implements BookingService {
         ).map(this::toDTO);
     }
 
+    @Override
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
+    @Transactional(readOnly = true)
+    public CursorPageResponse<BookingDTO> getPendingBookingsAfter(String after, int size, List<BookingStatus> statuses) {
+        PageCursor cursor = PageCursor.decode(after);
+
+        // Không lọc → mọi trạng thái trừ DELETED (giống bản phân trang thường)
+        List<BookingStatus> effective = (statuses == null || statuses.isEmpty())
+                ? Arrays.stream(BookingStatus.values()).filter(s -> s != BookingStatus.DELETED).toList()
+                : statuses.stream().filter(s -> s != BookingStatus.DELETED).toList();
+        if (effective.isEmpty()) {
+            return new CursorPageResponse<>(List.of(), size, null, false);
+        }
+
+        List<Booking> rows = bookingRepository.findByStatusInAfter(
+                effective,
+                cursor != null ? cursor.sortKey() : null,
+                cursor != null ? cursor.id() : null,
+                PageCursor.fetchLimit(size)
+        );
+
+        return CursorPageResponse.of(rows, size, b -> new PageCursor(b.getBookingDate(), b.getId()).encode())
+                .map(this::toDTO);
+    }
+
+    // Gọi từ HoldExpiryService (không qua người dùng)
+    @Override
+    public int expireHolds(Collection<Long> bookingIds) {
+        if (bookingIds.isEmpty()) return 0;
+
+        List<Booking> expired = bookingRepository.lockExpiredHolds(bookingIds, LocalDateTime.now());
+        if (expired.isEmpty()) return 0;
+
+        seatInventoryService.releaseHolds(expired);
+        for (Booking booking : expired) {
+            changeStatus(booking, BookingStatus.EXPIRED);
+            booking.setNote("Hết hạn giữ chỗ");
+        }
+        bookingRepository.saveAll(expired);
+        return expired.size();
+    }
+
+    // Gọi từ PaymentServiceImpl khi tiền về nhưng booking không còn chờ (thường là vừa hết hạn giữ chỗ):
+    // còn chỗ → giữ lại, không hết hạn nữa, chờ nhân viên xác nhận như booking đã thanh toán;
+    // hết chỗ → đánh dấu cần hoàn tiền để nhân viên xử lý.
+    // Trạng thái đọc thẳng từ DB kèm khóa dòng: entity trong transaction thanh toán có thể đã được
+    // đọc trước khi job hết hạn commit, nên các cột job đó đổi được đặt lại theo DB trước khi sửa.
+    @Override
+    public void restoreHoldAfterPayment(Long bookingId) {
+        String status = bookingRepository.lockStatus(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking không tồn tại"));
+        if (!BookingStatus.EXPIRED.name().equals(status)) return;
+
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        booking.setStatus(BookingStatus.EXPIRED);
+        booking.setSeatAllocation(SeatAllocation.NONE);
+        booking.setHoldExpiresAt(null);
+
+        try {
+            seatInventoryService.hold(booking);
+            booking.setHoldExpiresAt(null);
+            changeStatus(booking, BookingStatus.PENDING);
+            booking.setNote("Thanh toán sau khi hết hạn giữ chỗ, đã giữ lại chỗ");
+        } catch (IllegalArgumentException e) {
+            booking.setRefundRequired(true);
+            booking.setNote("Cần hoàn tiền: thanh toán sau khi hết hạn giữ chỗ, ngày khởi hành đã hết chỗ");
+            log.warn("Booking {} paid after its hold expired and the start date is full, refund required", bookingId);
+        }
+        bookingRepository.save(booking);
+    }
+
+    // Gọi từ BookingAutoCompleteService: booking đã đổi trạng thái từ lúc quét (hủy, đã hoàn thành...) được bỏ qua
+    // → chạy lại cùng một trang không làm gì thêm
+    @Override
+    public int autoComplete(Collection<Long> bookingIds) {
+        if (bookingIds.isEmpty()) return 0;
+
+        int completed = 0;
+        for (Booking booking : bookingRepository.findAllByIdForUpdate(bookingIds)) {
+            if (booking.getStatus() != BookingStatus.CONFIRMED) continue;
+            complete(booking);
+            completed++;
+        }
+        return completed;
+    }
+
     @Override
     @Transactional(readOnly = true)
     @PreAuthorize("hasRole('ADMIN') or hasRole('STAFF')")
@@ -295,14 +389,121 @@ public class BookingServiceImpl implements BookingService {
 
     // === INTERNAL HELPERS ===
 
+    // Kiểm tra trước, đổi dữ liệu sau: lỗi nghiệp vụ (IllegalArgumentException) không để lại thay đổi dở dang
+    private void confirm(Booking booking) {
+        if (booking.getStatus() != BookingStatus.PENDING) {
+            throw new IllegalArgumentException("Chỉ xác nhận được booking đang chờ");
+        }
+
+        // Chuyển chỗ đang giữ thành chỗ đã đặt
+        seatInventoryService.commit(booking);
+        changeStatus(booking, BookingStatus.CONFIRMED);
+    }
+
+    private void reject(Booking booking, String reason) {
+        if (booking.getStatus() != BookingStatus.PENDING) {
+            throw new IllegalArgumentException("Chỉ từ chối được booking đang chờ");
+        }
+
+        seatInventoryService.release(booking);
+        changeStatus(booking, BookingStatus.REJECTED);
+        booking.setNote("Từ chối: " + (reason != null ? reason : "Không đủ điều kiện"));
+    }
+
+    private void complete(Booking booking) {
+        if (booking.getStatus() != BookingStatus.CONFIRMED) {
+            throw new IllegalArgumentException("Chỉ có thể hoàn thành booking đã xác nhận");
+        }
+
+        LocalDateTime tourStartDate = booking.getSelectedStartDate().getStartDate().atStartOfDay();
+        if (tourStartDate.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Tour chưa diễn ra, không thể hoàn thành");
+        }
+
+        changeStatus(booking, BookingStatus.COMPLETED);
+    }
+
+    private BulkBookingResultDTO runBulk(BulkBookingRequest request, Consumer<Booking> action) {
+        List<Long> ids = resolveBulkIds(request);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        List<BulkBookingResultDTO.Item> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + bulkChunkSize, ids.size()));
+            try {
+                results.addAll(tx.execute(status -> processChunk(chunk, action)));
+            } catch (Exception e) {
+                // Lỗi hệ thống (DB, deadlock...) → cả lô đã rollback; chi tiết chỉ ghi log
+                log.error("Bulk booking chunk of {} bookings (first id {}) rolled back", chunk.size(), chunk.get(0), e);
+                chunk.forEach(id -> results.add(new BulkBookingResultDTO.Item(id, false, null,
+                        "Lỗi hệ thống, vui lòng thử lại")));
+            }
+        }
+
+        int succeeded = (int) results.stream().filter(BulkBookingResultDTO.Item::isSuccess).count();
+        return new BulkBookingResultDTO(results.size(), succeeded, results.size() - succeeded, results);
+    }
+
+    private List<BulkBookingResultDTO.Item> processChunk(List<Long> chunk, Consumer<Booking> action) {
+        Map<Long, Booking> bookings = new HashMap<>();
+        bookingRepository.findAllByIdForUpdate(chunk).forEach(b -> bookings.put(b.getId(), b));
+
+        List<BulkBookingResultDTO.Item> results = new ArrayList<>(chunk.size());
+        for (Long id : chunk) {
+            Booking booking = bookings.get(id);
+            if (booking == null) {
+                results.add(new BulkBookingResultDTO.Item(id, false, null, "Booking không tồn tại"));
+                continue;
+            }
+            try {
+                action.accept(booking);
+                results.add(new BulkBookingResultDTO.Item(id, true, booking.getStatus(), null));
+            } catch (IllegalArgumentException e) {
+                results.add(new BulkBookingResultDTO.Item(id, false, booking.getStatus(), e.getMessage()));
+            }
+        }
+        // Booking đã sửa được flush khi commit, gom thành JDBC batch (hibernate.jdbc.batch_size)
+        return results;
+    }
+
+    private List<Long> resolveBulkIds(BulkBookingRequest request) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            return request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+        }
+        if (request.getStartDateId() != null && request.getStatus() != null) {
+            return bookingRepository.findIdsByStartDateAndStatus(request.getStartDateId(), request.getStatus());
+        }
+        throw new IllegalArgumentException("Vui lòng chọn danh sách booking hoặc ngày khởi hành + trạng thái");
+    }
+
+    // Mọi thay đổi trạng thái đi qua đây để tour_stats luôn khớp
+    private void changeStatus(Booking booking, BookingStatus newStatus) {
+        BookingStatus oldStatus = booking.getStatus();
+        booking.setStatus(newStatus);
+        tourStatsService.onBookingStatusChanged(booking, oldStatus);
+        publishStatusChanged(booking, oldStatus);
+    }
+
+    private void publishStatusChanged(Booking booking, BookingStatus oldStatus) {
+        eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                booking.getId(),
+                booking.getTour().getId(),
+                oldStatus,
+                booking.getStatus(),
+                booking.getNumberOfPeople(),
+                booking.getTotalPrice()
+        ));
+    }
+
+    // Khóa dòng như getBookingForAdmin: job hết hạn giữ chỗ không thể đổi booking giữa lúc đọc và lúc ghi
     private Booking getBookingByIdAndUser(Long id, Long userId) {
-        return bookingRepository.findById(id)
+        return bookingRepository.findByIdForUpdate(id)
                 .filter(b -> b.getUser() != null && b.getUser().getId().equals(userId))
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy booking của bạn"));
     }
 
     private Booking getBookingForAdmin(Long id) {
-        return bookingRepository.findById(id)
+        return bookingRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking không tồn tại"));
     }
 
@@ -322,6 +523,8 @@ public class BookingServiceImpl implements BookingService {
         dto.setBookingDate(b.getBookingDate());
         dto.setStatus(b.getStatus());
         dto.setNote(b.getNote());
+        dto.setHoldExpiresAt(b.getHoldExpiresAt());
+        dto.setRefundRequired(b.isRefundRequired());
 
         dto.setContactName(b.getContact().getFullName());
         dto.setContactEmail(b.getContact().getEmail());
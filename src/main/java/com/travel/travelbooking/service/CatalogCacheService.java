@@ -0,0 +1,149 @@
+package com.travel.travelbooking.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.travel.travelbooking.config.CacheConfig;
+import com.travel.travelbooking.dto.CacheStatsDTO;
+import com.travel.travelbooking.dto.TourDTO;
+import com.travel.travelbooking.event.BookingStatusChangedEvent;
+import com.travel.travelbooking.event.CategoryChangedEvent;
+import com.travel.travelbooking.event.DestinationChangedEvent;
+import com.travel.travelbooking.event.HotelChangedEvent;
+import com.travel.travelbooking.event.ReviewCreatedEvent;
+import com.travel.travelbooking.event.TourChangedEvent;
+import com.travel.travelbooking.event.TourViewsFlushedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Objects;
+
+// Quản lý cache danh mục: xóa theo sự kiện sau khi commit, nạp sẵn khi khởi động, thống kê hit/miss
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogCacheService {
+
+    private final CacheManager cacheManager;
+    private final TourService tourService;
+    private final DestinationService destinationService;
+    private final TourCategoryService tourCategoryService;
+
+    // ===================== XÓA CACHE THEO SỰ KIỆN =====================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        cache(CacheConfig.TOUR_BY_ID).evict(event.tourId());
+        cache(CacheConfig.DESTINATIONS).clear();        // số tour theo điểm đến
+        cache(CacheConfig.PUBLIC_DASHBOARD).clear();
+    }
+
+    // Tên / trạng thái điểm đến nằm trong TourDTO → xóa toàn bộ tourById
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDestinationChanged(DestinationChangedEvent event) {
+        cache(CacheConfig.DESTINATIONS).clear();
+        cache(CacheConfig.TOUR_BY_ID).clear();
+        cache(CacheConfig.PUBLIC_DASHBOARD).clear();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        cache(CacheConfig.ACTIVE_CATEGORIES).clear();
+        cache(CacheConfig.TOUR_BY_ID).clear();
+    }
+
+    // Khách sạn hiển thị trong chi tiết tour
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHotelChanged(HotelChangedEvent event) {
+        cache(CacheConfig.TOUR_BY_ID).clear();
+    }
+
+    // Điểm trung bình / số review nằm trong TourDTO
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReviewCreated(ReviewCreatedEvent event) {
+        cache(CacheConfig.TOUR_BY_ID).evict(event.tourId());
+    }
+
+    // Số booking trong TourDTO chỉ đổi khi booking vào / ra nhóm được tính
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        boolean countedBefore = event.oldStatus() != null && TourStatsService.COUNTED_STATUSES.contains(event.oldStatus());
+        boolean countedAfter = TourStatsService.COUNTED_STATUSES.contains(event.newStatus());
+        if (countedBefore != countedAfter) cache(CacheConfig.TOUR_BY_ID).evict(event.tourId());
+    }
+
+    // Lượt xem vừa ghi xuống DB không còn nằm trong pendingTourViews → cộng vào bản cache,
+    // nếu không số lượt xem trả về sẽ bị tụt sau mỗi lần flush. Thay bằng bản sao (không sửa
+    // object đang được đọc), computeIfPresent để không nạp lại entry vừa bị xóa.
+    @EventListener
+    public void onViewsFlushed(TourViewsFlushedEvent event) {
+        Cache cache = cache(CacheConfig.TOUR_BY_ID);
+        if (!(cache instanceof CaffeineCache caffeine)) {
+            event.deltas().keySet().forEach(cache::evict);
+            return;
+        }
+        event.deltas().forEach((tourId, delta) ->
+                caffeine.getNativeCache().asMap().computeIfPresent(tourId, (k, v) -> {
+                    TourDTO copy = new TourDTO();
+                    BeanUtils.copyProperties(v, copy);
+                    copy.setViews((copy.getViews() != null ? copy.getViews() : 0L) + delta);
+                    return copy;
+                }));
+    }
+
+    // ===================== NẠP SẴN =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            tourCategoryService.getActiveCategories();
+            destinationService.getAllDestinations();
+
+            // Toàn bộ tour với chi tiết, load theo lô (số query cố định)
+            Cache tours = cache(CacheConfig.TOUR_BY_ID);
+            tourService.getAllTours().forEach(t -> tours.put(t.getId(), t));
+
+            log.info("Warmed catalog caches in {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Cache chỉ là tối ưu: lỗi nạp sẵn không được chặn khởi động
+            log.warn("Catalog cache warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    // ===================== THỐNG KÊ =====================
+
+    public List<CacheStatsDTO> getStats() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(name -> cacheManager.getCache(name))
+                .filter(c -> c instanceof CaffeineCache)
+                .map(c -> {
+                    com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) c).getNativeCache();
+                    CacheStats stats = nativeCache.stats();
+                    return new CacheStatsDTO(
+                            c.getName(),
+                            nativeCache.estimatedSize(),
+                            stats.hitCount(),
+                            stats.missCount(),
+                            stats.hitRate(),
+                            stats.evictionCount()
+                    );
+                })
+                .toList();
+    }
+
+    /* ---- helpers ---- */
+
+    private Cache cache(String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name));
+    }
+}
@@ -0,0 +1,94 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.event.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Bộ đếm phiên bản cho từng nhóm dữ liệu danh mục (tour, điểm đến, loại tour, khách sạn).
+// Tăng sau mỗi commit thay đổi → dùng làm ETag / Last-Modified cho GET có điều kiện.
+// Lượt xem không làm tăng phiên bản: số lượt xem trong danh sách có thể cũ cho tới lần thay đổi kế tiếp.
+@Service
+public class CatalogVersionService {
+
+    public enum Aggregate {
+        TOURS, DESTINATIONS, CATEGORIES, HOTELS
+    }
+
+    public record Version(String etag, long lastModified) {
+    }
+
+    // Khác nhau giữa các lần khởi động → ETag cũ không trùng sau khi restart
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Aggregate, Long> counters = new EnumMap<>(Aggregate.class);
+    private final Map<Aggregate, Long> lastModified = new EnumMap<>(Aggregate.class);
+
+    public CatalogVersionService() {
+        long now = System.currentTimeMillis();
+        for (Aggregate a : Aggregate.values()) {
+            counters.put(a, 0L);
+            lastModified.put(a, now);
+        }
+    }
+
+    public synchronized Version current(Aggregate aggregate) {
+        return new Version(
+                "\"" + aggregate.name().toLowerCase() + "-" + bootId + "-" + counters.get(aggregate) + "\"",
+                lastModified.get(aggregate)
+        );
+    }
+
+    // ===================== CẬP NHẬT THEO SỰ KIỆN =====================
+
+    // AFTER_COMPLETION chạy sau mọi listener AFTER_COMMIT (xóa cache, cập nhật chỉ mục)
+    // → không có ETag mới đi kèm dữ liệu cũ. Rollback cũng tăng phiên bản: vô hại, chỉ mất một lần 304.
+
+    // DestinationDTO có số tour → đổi tour cũng đổi danh sách điểm đến
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        bump(Aggregate.TOURS, Aggregate.DESTINATIONS);
+    }
+
+    // TourDTO chứa tên / trạng thái điểm đến và loại tour
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onDestinationChanged(DestinationChangedEvent event) {
+        bump(Aggregate.DESTINATIONS, Aggregate.TOURS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        bump(Aggregate.CATEGORIES, Aggregate.TOURS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onHotelChanged(HotelChangedEvent event) {
+        bump(Aggregate.HOTELS, Aggregate.TOURS);
+    }
+
+    // Số booking / review / điểm trung bình nằm trong TourDTO
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        boolean countedBefore = event.oldStatus() != null && TourStatsService.COUNTED_STATUSES.contains(event.oldStatus());
+        boolean countedAfter = TourStatsService.COUNTED_STATUSES.contains(event.newStatus());
+        if (countedBefore != countedAfter) bump(Aggregate.TOURS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onReviewCreated(ReviewCreatedEvent event) {
+        bump(Aggregate.TOURS);
+    }
+
+    /* ---- helpers ---- */
+
+    private synchronized void bump(Aggregate... aggregates) {
+        long now = System.currentTimeMillis();
+        for (Aggregate a : aggregates) {
+            counters.merge(a, 1L, Long::sum);
+            lastModified.put(a, now);
+        }
+    }
+}
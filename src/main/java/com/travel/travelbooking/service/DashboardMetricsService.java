@@ -0,0 +1,421 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.DashboardStatsDTO;
+import com.travel.travelbooking.dto.MetricDriftDTO;
+import com.travel.travelbooking.dto.RevenueDTO;
+import com.travel.travelbooking.dto.UserCountsDTO;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.entity.DashboardMetric;
+import com.travel.travelbooking.entity.PaymentStatus;
+import com.travel.travelbooking.entity.TourStatus;
+import com.travel.travelbooking.entity.UserStatus;
+import com.travel.travelbooking.event.*;
+import com.travel.travelbooking.repository.BookingRepository;
+import com.travel.travelbooking.repository.DashboardMetricRepository;
+import com.travel.travelbooking.repository.DashboardRepository;
+import com.travel.travelbooking.repository.TourRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Bộ đếm của dashboard admin giữ trong bộ nhớ, cộng / trừ theo sự kiện sau khi transaction commit
+// (người dùng, booking, thanh toán, đánh giá, tour) → /api/admin/dashboard/stats không chạy câu COUNT / SUM nào.
+// Mỗi instance chỉ cộng phần thay đổi của mình vào dashboard_metrics (metric_value = metric_value + delta)
+// định kỳ và khi tắt máy, rồi đọc lại tổng chung → nhiều instance không ghi đè số của nhau.
+// Khởi động đọc lại từ đó; sự kiện tới trước khi đọc xong nằm trong phần chờ ghi nên không bị mất.
+// Bộ đếm có thể lệch (sửa tay trong DB, crash trước lần ghi, sự kiện ở instance khác)
+// → reconcile() tính lại từ DB, báo độ lệch từng chỉ số; chạy hằng đêm và theo yêu cầu của admin.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardMetricsService {
+
+    public enum Metric {
+        TOTAL_USERS,        // chưa xóa
+        TOTAL_CUSTOMERS,
+        TOTAL_STAFF,
+        TOTAL_ADMINS,
+        TOTAL_INACTIVE,     // INACTIVE + BANNED
+        TOTAL_DELETED,
+        NEW_USERS_TODAY,
+        CONFIRMED_BOOKINGS,
+        TOTAL_REVIEWS,
+        ACTUAL_REVENUE,     // booking COMPLETED
+        EXPECTED_REVENUE,   // booking CONFIRMED + COMPLETED
+        PAID_REVENUE        // payment PAID
+    }
+
+    // Ngày (epoch day) mà NEW_USERS_TODAY đang đếm
+    private static final String NEW_USERS_DAY = "NEW_USERS_DAY";
+    private static final double EPSILON = 0.005;
+
+    private final DashboardMetricRepository metricRepository;
+    private final DashboardRepository dashboardRepository;
+    private final BookingRepository bookingRepository;
+    private final TourRepository tourRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // Mọi truy cập qua synchronized: mỗi sự kiện chỉ vài phép cộng.
+    // Giá trị hiện tại = saved (tổng chung đọc lần gần nhất) + pending (thay đổi của instance này chưa ghi)
+    private final double[] saved = new double[Metric.values().length];
+    private final double[] pending = new double[Metric.values().length];
+    private LocalDate today = LocalDate.now();
+    private boolean dayRolled;
+    // Một lần ghi / đối soát tại một thời điểm (không khóa các sự kiện)
+    private final Object flushLock = new Object();
+    // tourId → trạng thái (không giữ tour đã xóa) – tổng tour / tour đang hoạt động
+    private final Map<Long, TourStatus> tourStatuses = new HashMap<>();
+
+    // ===================== ĐỌC =====================
+
+    public synchronized void fill(DashboardStatsDTO stats) {
+        rollDay();
+        stats.setTotalUsers(count(Metric.TOTAL_USERS));
+        stats.setTotalCustomers(count(Metric.TOTAL_CUSTOMERS));
+        stats.setTotalStaff(count(Metric.TOTAL_STAFF));
+        stats.setTotalAdmins(count(Metric.TOTAL_ADMINS));
+        stats.setTotalInactive(count(Metric.TOTAL_INACTIVE));
+        stats.setTotalDeleted(count(Metric.TOTAL_DELETED));
+        stats.setNewUsersToday(count(Metric.NEW_USERS_TODAY));
+
+        stats.setTotalTours(tourStatuses.size());
+        stats.setActiveTours(countActive(tourStatuses));
+        stats.setTotalConfirmedBookings(count(Metric.CONFIRMED_BOOKINGS));
+        stats.setTotalReviews(count(Metric.TOTAL_REVIEWS));
+
+        stats.setActualRevenue(value(Metric.ACTUAL_REVENUE));
+        stats.setExpectedRevenue(value(Metric.EXPECTED_REVENUE));
+        stats.setPaidRevenue(value(Metric.PAID_REVENUE));
+    }
+
+    // ===================== SỰ KIỆN =====================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        rollDay();
+        applyUser(event.oldStatus(), event.oldRoles(), event.createdAt(), -1);
+        applyUser(event.newStatus(), event.newRoles(), event.createdAt(), 1);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        applyBooking(event.oldStatus(), event.totalPrice(), -1);
+        applyBooking(event.newStatus(), event.totalPrice(), 1);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        boolean paidBefore = event.oldStatus() == PaymentStatus.PAID;
+        boolean paidAfter = event.newStatus() == PaymentStatus.PAID;
+        if (paidBefore == paidAfter || event.amount() == null) return;
+        add(Metric.PAID_REVENUE, paidAfter ? event.amount() : -event.amount());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onReviewCreated(ReviewCreatedEvent event) {
+        add(Metric.TOTAL_REVIEWS, 1);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        refreshTours(List.of(event.tourId()));
+    }
+
+    // Ẩn điểm đến / loại tour kéo theo trạng thái các tour thuộc nó
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDestinationChanged(DestinationChangedEvent event) {
+        refreshTours(tourRepository.findIdsByDestinationId(event.destinationId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        refreshTours(tourRepository.findIdsByCategoryId(event.categoryId()));
+    }
+
+    // ===================== LƯU / ĐỐI SOÁT =====================
+
+    // Khởi động: đọc bản lưu; chưa có (lần đầu) → tính từ DB.
+    // Sự kiện đã nhận trước đó vẫn ở pending, cộng thêm trên bản lưu
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<String, DashboardMetric> rows = readCheckpoint();
+        if (rows == null) {
+            log.info("No dashboard metrics checkpoint, computing from database");
+            reconcile(true);
+            return;
+        }
+
+        Map<Long, TourStatus> tours = toStatusMap(tourRepository.findAllStatuses());
+        synchronized (this) {
+            for (Metric m : Metric.values()) {
+                saved[m.ordinal()] = rows.get(m.name()).getValue();
+            }
+            today = LocalDate.ofEpochDay(rows.get(NEW_USERS_DAY).getValue().longValue());
+            tourStatuses.clear();
+            tourStatuses.putAll(tours);
+            rollDay();
+        }
+        log.info("Loaded dashboard metrics checkpoint ({} tours)", tours.size());
+    }
+
+    // Ghi phần thay đổi của instance này rồi đọc lại tổng chung (gồm phần của các instance khác).
+    // pending chỉ được trừ sau khi đã ghi → trong lúc ghi dashboard vẫn thấy đủ số; ghi lỗi thì để lần sau
+    @Scheduled(fixedDelayString = "${dashboard.metrics.flush-interval-ms:10000}")
+    public void flush() {
+        synchronized (flushLock) {
+            double[] deltas;
+            LocalDate day;
+            boolean advanceDay;
+            synchronized (this) {
+                rollDay();
+                deltas = pending.clone();
+                day = today;
+                advanceDay = dayRolled;
+            }
+
+            if (advanceDay || Arrays.stream(deltas).anyMatch(d -> d != 0)) {
+                try {
+                    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                        // Khóa dòng NEW_USERS_DAY tới khi commit → instance khác không cộng người dùng
+                        // của ngày mới vào giữa lúc đặt lại NEW_USERS_TODAY
+                        if (advanceDay && metricRepository.advanceDay(NEW_USERS_DAY, day.toEpochDay()) == 1) {
+                            metricRepository.setValue(Metric.NEW_USERS_TODAY.name(), 0);
+                        }
+                        for (Metric m : Metric.values()) {
+                            if (deltas[m.ordinal()] != 0) metricRepository.addValue(m.name(), deltas[m.ordinal()]);
+                        }
+                    });
+                } catch (Exception e) {
+                    log.warn("Saving dashboard metrics failed: {}", e.getMessage());
+                    return;
+                }
+            }
+
+            Map<String, DashboardMetric> rows = null;
+            try {
+                rows = readCheckpoint();
+            } catch (Exception e) {
+                log.warn("Reading dashboard metrics failed: {}", e.getMessage());
+            }
+
+            synchronized (this) {
+                // Đã sang ngày khác trong lúc ghi → NEW_USERS_TODAY đã được đặt lại, không trừ nữa
+                boolean sameDay = today.equals(day);
+                if (sameDay) dayRolled &= !advanceDay;
+                for (Metric m : Metric.values()) {
+                    if (m == Metric.NEW_USERS_TODAY && !sameDay) continue;
+                    pending[m.ordinal()] -= deltas[m.ordinal()];
+                    if (rows == null) saved[m.ordinal()] += deltas[m.ordinal()];
+                }
+                if (rows != null) {
+                    boolean dbSameDay = today.toEpochDay() == rows.get(NEW_USERS_DAY).getValue().longValue();
+                    for (Metric m : Metric.values()) {
+                        // DB chưa sang ngày của instance này → NEW_USERS_TODAY trong DB là của ngày cũ
+                        if (m == Metric.NEW_USERS_TODAY && !dbSameDay) continue;
+                        saved[m.ordinal()] = rows.get(m.name()).getValue();
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(cron = "${dashboard.metrics.reconcile-cron:0 45 3 * * *}")
+    public void scheduledReconcile() {
+        reconcile(true);
+    }
+
+    // Tính lại mọi bộ đếm từ DB và so với giá trị đang giữ; apply = false chỉ báo cáo, không sửa.
+    // Sự kiện commit trong lúc đang truy vấn (hoặc đang chờ ghi ở instance khác) có thể bị tính 2 lần
+    // → lần đối soát sau sẽ thấy.
+    public List<MetricDriftDTO> reconcile(boolean apply) {
+        synchronized (flushLock) {
+            return doReconcile(apply);
+        }
+    }
+
+    private List<MetricDriftDTO> doReconcile(boolean apply) {
+        long start = System.currentTimeMillis();
+        LocalDate day = LocalDate.now();
+        UserCountsDTO users = dashboardRepository.getUserCounts(day.atStartOfDay());
+        RevenueDTO revenue = bookingRepository.getRevenue();
+
+        double[] actual = new double[saved.length];
+        actual[Metric.TOTAL_USERS.ordinal()] = users.getTotalUsers();
+        actual[Metric.TOTAL_CUSTOMERS.ordinal()] = users.getTotalCustomers();
+        actual[Metric.TOTAL_STAFF.ordinal()] = users.getTotalStaff();
+        actual[Metric.TOTAL_ADMINS.ordinal()] = users.getTotalAdmins();
+        actual[Metric.TOTAL_INACTIVE.ordinal()] = users.getTotalInactive();
+        actual[Metric.TOTAL_DELETED.ordinal()] = users.getTotalDeleted();
+        actual[Metric.NEW_USERS_TODAY.ordinal()] = users.getNewUsersToday();
+        actual[Metric.CONFIRMED_BOOKINGS.ordinal()] = bookingRepository.countByStatus(BookingStatus.CONFIRMED);
+        actual[Metric.TOTAL_REVIEWS.ordinal()] = dashboardRepository.countTotalReviews();
+        actual[Metric.ACTUAL_REVENUE.ordinal()] = revenue.getActualRevenue();
+        actual[Metric.EXPECTED_REVENUE.ordinal()] = revenue.getExpectedRevenue();
+        actual[Metric.PAID_REVENUE.ordinal()] = bookingRepository.getPaidRevenue();
+        Map<Long, TourStatus> tours = toStatusMap(tourRepository.findAllStatuses());
+
+        List<MetricDriftDTO> report = new ArrayList<>();
+        List<DashboardMetric> rows = null;
+        synchronized (this) {
+            rollDay();
+            for (Metric m : Metric.values()) {
+                report.add(drift(m.name(), value(m), actual[m.ordinal()]));
+            }
+            report.add(drift("TOTAL_TOURS", tourStatuses.size(), tours.size()));
+            report.add(drift("ACTIVE_TOURS", countActive(tourStatuses), countActive(tours)));
+
+            if (apply) {
+                System.arraycopy(actual, 0, saved, 0, saved.length);
+                Arrays.fill(pending, 0);
+                today = day;
+                dayRolled = false;
+                tourStatuses.clear();
+                tourStatuses.putAll(tours);
+                rows = checkpointRows();
+            }
+        }
+        // Giá trị tuyệt đối (không phải delta): thay cho tổng chung đang lệch
+        if (rows != null) {
+            try {
+                metricRepository.saveAll(rows);
+            } catch (Exception e) {
+                log.warn("Saving reconciled dashboard metrics failed: {}", e.getMessage());
+            }
+        }
+
+        List<MetricDriftDTO> drifted = report.stream().filter(d -> Math.abs(d.getDrift()) > EPSILON).toList();
+        if (drifted.isEmpty()) {
+            log.info("Dashboard metrics reconciled in {} ms, no drift", System.currentTimeMillis() - start);
+        } else {
+            log.warn("Dashboard metrics drift{}: {}", apply ? " (corrected)" : "",
+                    drifted.stream().map(d -> d.getMetric() + "=" + d.getDrift()).collect(Collectors.joining(", ")));
+        }
+        return report;
+    }
+
+    /* ---- helpers ---- */
+
+    // Cùng điều kiện với DashboardRepository.getUserCounts
+    private void applyUser(UserStatus status, Set<String> roles, LocalDateTime createdAt, int sign) {
+        if (status == null) return;
+        if (status == UserStatus.DELETED) {
+            add(Metric.TOTAL_DELETED, sign);
+            return;
+        }
+        add(Metric.TOTAL_USERS, sign);
+        if (status == UserStatus.INACTIVE || status == UserStatus.BANNED) add(Metric.TOTAL_INACTIVE, sign);
+        if (createdAt != null && !createdAt.toLocalDate().isBefore(today)) add(Metric.NEW_USERS_TODAY, sign);
+        if (hasRole(roles, "USER")) add(Metric.TOTAL_CUSTOMERS, sign);
+        if (hasRole(roles, "STAFF")) add(Metric.TOTAL_STAFF, sign);
+        if (hasRole(roles, "ADMIN")) add(Metric.TOTAL_ADMINS, sign);
+    }
+
+    // Cùng điều kiện với BookingRepository.getRevenue
+    private void applyBooking(BookingStatus status, Double totalPrice, int sign) {
+        if (status == null) return;
+        double price = totalPrice != null ? totalPrice : 0;
+        if (status == BookingStatus.CONFIRMED) add(Metric.CONFIRMED_BOOKINGS, sign);
+        if (status == BookingStatus.CONFIRMED || status == BookingStatus.COMPLETED) {
+            add(Metric.EXPECTED_REVENUE, sign * price);
+        }
+        if (status == BookingStatus.COMPLETED) add(Metric.ACTUAL_REVENUE, sign * price);
+    }
+
+    private void refreshTours(Collection<Long> tourIds) {
+        if (tourIds.isEmpty()) return;
+        Map<Long, TourStatus> fresh = toStatusMap(tourRepository.findStatusesByIds(tourIds));
+        synchronized (this) {
+            tourIds.forEach(tourStatuses::remove);
+            tourStatuses.putAll(fresh);
+        }
+    }
+
+    private void add(Metric metric, double delta) {
+        pending[metric.ordinal()] += delta;
+    }
+
+    private double value(Metric metric) {
+        return saved[metric.ordinal()] + pending[metric.ordinal()];
+    }
+
+    private long count(Metric metric) {
+        return Math.round(value(metric));
+    }
+
+    // Sang ngày mới: chưa có người dùng nào tạo "hôm nay" (dòng trong DB được đặt lại ở lần flush sau)
+    private void rollDay() {
+        LocalDate now = LocalDate.now();
+        if (now.isAfter(today)) {
+            today = now;
+            saved[Metric.NEW_USERS_TODAY.ordinal()] = 0;
+            pending[Metric.NEW_USERS_TODAY.ordinal()] = 0;
+            dayRolled = true;
+        }
+    }
+
+    // Bản lưu đủ mọi chỉ số; null = chưa có / thiếu (lần đầu chạy)
+    private Map<String, DashboardMetric> readCheckpoint() {
+        Map<String, DashboardMetric> rows = metricRepository.findAll().stream()
+                .collect(Collectors.toMap(DashboardMetric::getName, Function.identity()));
+        boolean complete = rows.containsKey(NEW_USERS_DAY)
+                && Arrays.stream(Metric.values()).allMatch(m -> rows.containsKey(m.name()));
+        return complete ? rows : null;
+    }
+
+    private List<DashboardMetric> checkpointRows() {
+        LocalDateTime now = LocalDateTime.now();
+        List<DashboardMetric> rows = new ArrayList<>(saved.length + 1);
+        for (Metric m : Metric.values()) {
+            rows.add(row(m.name(), saved[m.ordinal()], now));
+        }
+        rows.add(row(NEW_USERS_DAY, today.toEpochDay(), now));
+        return rows;
+    }
+
+    private static DashboardMetric row(String name, double value, LocalDateTime now) {
+        DashboardMetric row = new DashboardMetric();
+        row.setName(name);
+        row.setValue(value);
+        row.setUpdatedAt(now);
+        return row;
+    }
+
+    private static MetricDriftDTO drift(String metric, double stored, double actual) {
+        return new MetricDriftDTO(metric, stored, actual, actual - stored);
+    }
+
+    private static boolean hasRole(Set<String> roles, String role) {
+        return roles != null && roles.stream().anyMatch(role::equalsIgnoreCase);
+    }
+
+    private static Map<Long, TourStatus> toStatusMap(List<Object[]> rows) {
+        Map<Long, TourStatus> map = new HashMap<>();
+        for (Object[] row : rows) {
+            if (row[1] != TourStatus.DELETED) map.put((Long) row[0], (TourStatus) row[1]);
+        }
+        return map;
+    }
+
+    private static long countActive(Map<Long, TourStatus> tours) {
+        return tours.values().stream().filter(s -> s == TourStatus.ACTIVE).count();
+    }
+}
@@ -1,11 +1,15 @@
 package com.travel.travelbooking.service;
 
+import com.travel.travelbooking.config.CacheConfig;
 import com.travel.travelbooking.dto.DestinationDTO;
 import com.travel.travelbooking.entity.*;
+import com.travel.travelbooking.event.DestinationChangedEvent;
 import com.travel.travelbooking.exception.ResourceNotFoundException;
 import com.travel.travelbooking.repository.DestinationRepository;
 import com.travel.travelbooking.repository.TourRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -21,6 +25,7 @@ public class DestinationServiceImpl implements DestinationService {
     private final DestinationRepository destinationRepository;
     private final TourRepository tourRepository;
     private final CloudinaryService cloudinaryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     private Destination toEntity(DestinationDTO dto, Destination dest) {
         dest.setName(dto.getName());
@@ -50,10 +55,12 @@ public class DestinationServiceImpl implements DestinationService {
         dest.setImageUrl(imageUrl);
 
         Destination saved = destinationRepository.save(dest);
+        eventPublisher.publishEvent(new DestinationChangedEvent(saved.getId()));
         return findWithTourCount(saved.getId());
     }
 
     @Override
+    @Cacheable(CacheConfig.DESTINATIONS)
     public List<DestinationDTO> getAllDestinations() {
         return destinationRepository.findAllWithTourCount();
     }
@@ -96,6 +103,7 @@ public class DestinationServiceImpl implements DestinationService {
         syncTourStatus(dest);
 
         destinationRepository.save(dest);
+        eventPublisher.publishEvent(new DestinationChangedEvent(id));
         return findWithTourCount(id);
     }
 
@@ -111,6 +119,7 @@ public class DestinationServiceImpl implements DestinationService {
         dest.getTours().forEach(t -> t.setStatus(TourStatus.DELETED));
         tourRepository.saveAll(dest.getTours());
         destinationRepository.save(dest);
+        eventPublisher.publishEvent(new DestinationChangedEvent(id));
     }
 
     // === Helpers ===
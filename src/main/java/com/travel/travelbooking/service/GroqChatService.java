@@ -3,9 +3,11 @@ package com.travel.travelbooking.service;
 import com.travel.travelbooking.dto.ChatHistoryDTO;
 import com.travel.travelbooking.entity.*;
 import com.travel.travelbooking.repository.*;
+import com.travel.travelbooking.util.CircuitBreaker;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -17,6 +19,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class GroqChatService {
@@ -27,6 +30,8 @@ public class GroqChatService {
     private final TourStartDateRepository startDateRepository;
     private final ChatHistoryRepository historyRepository;
     private final UserRepository userRepository;
+    private final PopularityRankingService popularityRankingService;
+    private final RestTemplate groqRestTemplate;
 
     @Value("${groq.api.key}")
     private String groqApiKey;
@@ -37,14 +42,47 @@ public class GroqChatService {
     @Value("${groq.model}")
     private String model;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${groq.circuit.failure-threshold:5}")
+    private int circuitFailureThreshold;
+
+    @Value("${groq.circuit.open-seconds:30}")
+    private long circuitOpenSeconds;
+
+    // Groq lỗi / chậm liên tục → ngắt mạch, trả lời bằng mẫu dựng từ dữ liệu tour (fallbackReply)
+    private CircuitBreaker groqCircuit;
+
     private final DateTimeFormatter df = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    // Tour đã đưa vào context (dùng cho câu trả lời dự phòng)
+    private record TourHint(Long id, String name, String destination, Double price, String seatInfo, String dates) {
+    }
+
+    private record SmartContext(String text, List<TourHint> tours, List<String> hotDestinations) {
+    }
+
+    @PostConstruct
+    void initCircuit() {
+        groqCircuit = new CircuitBreaker("groq", circuitFailureThreshold, circuitOpenSeconds * 1000);
+    }
+
     public String chat(String userMessage, String username) {
         User user = username != null ? userRepository.findByUsername(username) : null;
-        String context = buildSmartContext(userMessage.toLowerCase());
-
-        String reply = callGroq(userMessage, context, user);
+        SmartContext context = buildSmartContext(userMessage.toLowerCase());
+
+        String reply = null;
+        if (groqCircuit.tryAcquire()) {
+            // Mọi lối ra (kể cả exception ngoài lời gọi HTTP, vd. đọc lịch sử chat) đều phải báo lại
+            // cho circuit breaker, nếu không lời gọi thử ở HALF_OPEN bị giữ mãi và mạch không đóng lại được
+            try {
+                reply = callGroq(userMessage, context.text(), user);
+            } catch (RuntimeException e) {
+                log.warn("Preparing Groq call failed: {}", e.getMessage());
+            } finally {
+                if (reply != null) groqCircuit.onSuccess();
+                else groqCircuit.onFailure();
+            }
+        }
+        if (reply == null) reply = fallbackReply(context);
 
         if (user != null) {
             ChatHistory h = new ChatHistory();
@@ -71,14 +109,17 @@ public class GroqChatService {
                 .collect(Collectors.toList());
     }
 
-    @Cacheable(value = "chatContext", key = "#msg.hashCode()", unless = "#result.length() > 2500")
-    private String buildSmartContext(String msg) {
+    private SmartContext buildSmartContext(String msg) {
 
         StringBuilder ctx = new StringBuilder("=== TOUR HOT & DỮ LIỆU MỚI NHẤT ===\n");
+        List<TourHint> hotTours = new ArrayList<>();
+        List<TourHint> priceTours = new ArrayList<>();
+        List<TourHint> keywordTours = new ArrayList<>();
+        List<String> hotDestinations = new ArrayList<>();
 
         // TOP ĐIỂM ĐẾN HOT
         ctx.append("ĐIỂM ĐẾN ĐANG HOT NHẤT HIỆN TẠI:\n");
-        destinationRepository.findTop5PopularDestinations()
+        popularityRankingService.topDestinations(5)
                 .forEach(d -> {
                     String regionText = switch (d.getRegion()) {
                         case BAC -> "miền Bắc";
@@ -93,6 +134,7 @@ public class GroqChatService {
 
                     ctx.append(String.format("• %s (%s) – %s với %d tour và %d lượt đặt\n",
                             d.getDestinationName(), regionText, hotness, d.getTourCount(), d.getBookingCount()));
+                    hotDestinations.add(d.getDestinationName());
                 });
         ctx.append("\n");
 
@@ -104,7 +146,7 @@ public class GroqChatService {
         if (!hasPriceFilter) {
             ctx.append("TOUR ĐANG HOT NHẤT:\n");
 
-            tourRepository.findTop10PopularTours().stream().limit(6).forEach(t -> {
+            popularityRankingService.topTours(6).stream().forEach(t -> {
 
                 Tour tour = tourRepository.findById(t.getTourId()).orElse(null);
                 if (tour == null) return;
@@ -120,13 +162,13 @@ public class GroqChatService {
 
                 // Tìm ngày gần nhất còn chỗ
                 TourStartDate firstAvailable = startDates.stream()
-                        .filter(d -> d.getBookedParticipants() < d.getCapacity())
+                        .filter(d -> d.getRemainingSeats() > 0)
                         .findFirst()
                         .orElse(null);
 
                 int left = 0;
                 if (firstAvailable != null) {
-                    left = firstAvailable.getCapacity() - firstAvailable.getBookedParticipants();
+                    left = firstAvailable.getRemainingSeats();
                 }
 
                 String seatInfo;
@@ -147,6 +189,8 @@ public class GroqChatService {
                         dates.isEmpty() ? "Đang cập nhật" : dates,
                         t.getTourId()
                 ));
+                hotTours.add(new TourHint(t.getTourId(), t.getTourName(), t.getDestinationName(), tour.getPrice(),
+                        seatInfo, dates.isEmpty() ? null : dates));
             });
 
             ctx.append("\n");
@@ -167,10 +211,11 @@ public class GroqChatService {
                     max,
                     null,
                     org.springframework.data.domain.PageRequest.of(0, 12)
-            ).forEach(t -> ctx.append(
-                    String.format("• %s – %.0fđ – %s – Link: /tour/%d\n",
-                            t.getName(), t.getPrice(), t.getDestinationName(), t.getId())
-            ));
+            ).forEach(t -> {
+                ctx.append(String.format("• %s – %.0fđ – %s – Link: /tour/%d\n",
+                        t.getName(), t.getPrice(), t.getDestinationName(), t.getId()));
+                priceTours.add(new TourHint(t.getId(), t.getName(), t.getDestinationName(), t.getPrice(), null, null));
+            });
 
             ctx.append("\n");
         }
@@ -196,7 +241,7 @@ public class GroqChatService {
                         // Tính chỗ còn lại theo ngày gần nhất
                         int remaining = startDates.isEmpty()
                                 ? 0
-                                : startDates.get(0).getCapacity() - startDates.get(0).getBookedParticipants();
+                                : startDates.get(0).getRemainingSeats();
 
                         ctx.append(String.format("""
                 ──────────────────
@@ -214,6 +259,9 @@ public class GroqChatService {
                                 formattedDates.isEmpty() ? "Liên hệ" : String.join(", ", formattedDates),
                                 t.getId()
                         ));
+                        keywordTours.add(new TourHint(t.getId(), t.getName(), t.getDestinationName(), t.getPrice(),
+                                "còn " + Math.max(remaining, 0) + " chỗ",
+                                formattedDates.isEmpty() ? null : String.join(", ", formattedDates)));
                     });
 
             ctx.append("\n");
@@ -236,12 +284,47 @@ public class GroqChatService {
         }
 
         String result = ctx.toString();
-        return result.length() > 2200
+        String text = result.length() > 2200
                 ? result.substring(0, 2200) + "\n...Còn nhiều tour khác nữa!"
                 : result;
+
+        // Ưu tiên tour khớp từ khóa, rồi theo giá, rồi tour hot
+        List<TourHint> tours = new ArrayList<>(keywordTours);
+        tours.addAll(priceTours);
+        tours.addAll(hotTours);
+        return new SmartContext(text, tours, hotDestinations);
+    }
+
+    // ==================== TRẢ LỜI DỰ PHÒNG ====================
+    // Groq đang ngắt mạch / lỗi → trả lời theo mẫu từ chính dữ liệu context (không bịa, có link)
+    private String fallbackReply(SmartContext context) {
+        Map<Long, TourHint> unique = new LinkedHashMap<>();
+        context.tours().forEach(t -> unique.putIfAbsent(t.id(), t));
+
+        if (unique.isEmpty()) {
+            if (context.hotDestinations().isEmpty()) {
+                return "Mình chưa tìm thấy tour phù hợp, bạn cho thêm thông tin nhé!";
+            }
+            return "Trợ lý tư vấn đang bận xíu ạ 🙏 Các điểm đến đang hot nè: "
+                    + String.join(", ", context.hotDestinations())
+                    + ". Anh/chị muốn đi đâu, khoảng giá bao nhiêu để em gợi ý tour nha?";
+        }
+
+        StringBuilder reply = new StringBuilder("Trợ lý tư vấn đang bận xíu ạ 🙏 Em gửi nhanh vài tour phù hợp nha:\n");
+        unique.values().stream().limit(4).forEach(t -> {
+            reply.append("• ").append(t.name());
+            if (t.destination() != null) reply.append(" đi ").append(t.destination());
+            if (t.price() != null) reply.append(String.format(" – %.0fđ", t.price()));
+            if (t.seatInfo() != null) reply.append(" – ").append(t.seatInfo());
+            if (t.dates() != null) reply.append(" – ngày ").append(t.dates());
+            reply.append(". Xem chi tiết: /tour/").append(t.id()).append("\n");
+        });
+        reply.append("Anh/chị thích tour nào, hay muốn em tìm theo điểm đến / khoảng giá khác ạ? 😊");
+        return reply.toString();
     }
 
     // ==================== CALL GROQ ====================
+    // null = lỗi / phản hồi không dùng được (tính là 1 lần lỗi của circuit breaker)
     private String callGroq(String userMessage, String context, User user) {
 
         String systemPrompt = """
@@ -292,24 +375,24 @@ public class GroqChatService {
         headers.setBearerAuth(groqApiKey);
 
         try {
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = groqRestTemplate.exchange(
                     apiUrl, HttpMethod.POST, new HttpEntity<>(body, headers),
                     new ParameterizedTypeReference<Map<String, Object>>() {}
             );
 
             Map<String, Object> res = response.getBody();
             if (res == null || !res.containsKey("choices")) {
-                return "Em hơi lag xíu, anh/chị nhắn lại giúp em nha!";
+                return null;
             }
 
             Map<String, Object> message = (Map<String, Object>)
                     ((List<?>) res.get("choices")).get(0);
 
             String content = (String) ((Map<?, ?>) message.get("message")).get("content");
-            return content != null ? content.trim() : "Em bị lỗi xíu, mình nhắn lại nha!";
+            return content != null && !content.isBlank() ? content.trim() : null;
         } catch (Exception e) {
-            e.printStackTrace();
-            return "Hệ thống lỗi nhẹ ạ, anh/chị thử lại sau 30 giây nha!";
+            log.warn("Groq call failed: {}", e.getMessage());
+            return null;
         }
     }
 
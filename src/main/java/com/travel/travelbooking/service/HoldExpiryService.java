@@ -0,0 +1,116 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.event.BookingStatusChangedEvent;
+import com.travel.travelbooking.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Hết hạn giữ chỗ của booking chờ (PENDING): hàng đợi ưu tiên theo hạn giữ chỗ trong bộ nhớ,
+// mỗi nhịp chỉ lấy các phần tử đã tới hạn ở đầu heap → không có query nào cho từng giữ chỗ.
+// Booking tới hạn được xử lý theo lô: khóa, chuyển EXPIRED, trả chỗ gộp theo ngày khởi hành.
+// Một lượt quét DB định kỳ bắt các giữ chỗ mà heap không biết (tạo ở instance khác, instance khởi động lại...).
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HoldExpiryService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final SeatInventoryService seatInventoryService;
+
+    private record Hold(LocalDateTime expiresAt, Long bookingId) {
+    }
+
+    private final PriorityQueue<Hold> queue = new PriorityQueue<>(Comparator.comparing(Hold::expiresAt));
+
+    // ===================== ĐĂNG KÝ =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        List<Object[]> holds = bookingRepository.findActiveHolds();
+        synchronized (queue) {
+            holds.forEach(row -> queue.add(new Hold((LocalDateTime) row[1], (Long) row[0])));
+        }
+        log.info("Loaded {} active seat holds", holds.size());
+    }
+
+    // Booking mới (giữ chỗ trong SeatInventoryService.hold) → vào heap sau khi commit.
+    // Hạn ở đây trễ hơn hạn lưu trong DB vài ms; lúc xử lý vẫn so với giá trị trong DB.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        if (event.oldStatus() != null || event.newStatus() != BookingStatus.PENDING) return;
+        synchronized (queue) {
+            queue.add(new Hold(LocalDateTime.now().plus(seatInventoryService.holdTtl()), event.bookingId()));
+        }
+    }
+
+    public int size() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    // ===================== HẾT HẠN =====================
+
+    @Scheduled(fixedDelayString = "${booking.hold.sweep-interval-ms:1000}")
+    public void expireDue() {
+        List<Long> due;
+        while (!(due = pollDue(LocalDateTime.now())).isEmpty()) {
+            expire(due);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${booking.hold.reconcile-interval-ms:300000}",
+            fixedDelayString = "${booking.hold.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        List<Long> overdue;
+        int total = 0;
+        while (!(overdue = bookingRepository.findExpiredHoldIds(LocalDateTime.now(), PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+            int expired = expire(overdue);
+            total += expired;
+            if (expired == 0) break;   // lô không xử lý được (lỗi đã log) → để lượt sau
+        }
+        if (total > 0) log.info("Reconcile expired {} seat holds missed by the in-memory queue", total);
+    }
+
+    /* ---- helpers ---- */
+
+    private List<Long> pollDue(LocalDateTime now) {
+        List<Long> due = new ArrayList<>();
+        synchronized (queue) {
+            while (due.size() < BATCH_SIZE && !queue.isEmpty() && !queue.peek().expiresAt().isAfter(now)) {
+                due.add(queue.poll().bookingId());
+            }
+        }
+        return due;
+    }
+
+    // Booking đã được xác nhận / thanh toán / hủy trong lúc chờ sẽ bị bỏ qua ở lockExpiredHolds
+    private int expire(List<Long> bookingIds) {
+        try {
+            int expired = bookingService.expireHolds(bookingIds);
+            if (expired > 0) log.info("Expired {} seat holds", expired);
+            return expired;
+        } catch (Exception e) {
+            // Không đưa lại vào heap: lượt reconcile sẽ thử lại từ DB
+            log.warn("Expiring {} seat holds failed: {}", bookingIds.size(), e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -4,9 +4,11 @@ package com.travel.travelbooking.service;
 
 import com.travel.travelbooking.dto.HotelDTO;
 import com.travel.travelbooking.entity.Hotel;
+import com.travel.travelbooking.event.HotelChangedEvent;
 import com.travel.travelbooking.exception.ResourceNotFoundException;
 import com.travel.travelbooking.repository.HotelRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,6 +25,7 @@ public class HotelServiceImpl implements HotelService {
 
     private final HotelRepository hotelRepository;
     private final CloudinaryService cloudinaryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -43,7 +46,9 @@ public class HotelServiceImpl implements HotelService {
         uploadImages(images, hotel.getImages());
         uploadVideos(videos, hotel.getVideos());
 
-        return mapToDTO(hotelRepository.save(hotel));
+        Hotel saved = hotelRepository.save(hotel);
+        eventPublisher.publishEvent(new HotelChangedEvent(saved.getId()));
+        return mapToDTO(saved);
     }
 
     @Override
@@ -67,7 +72,9 @@ public class HotelServiceImpl implements HotelService {
         uploadImages(images, hotel.getImages());
         uploadVideos(videos, hotel.getVideos());
 
-        return mapToDTO(hotelRepository.save(hotel));
+        Hotel saved = hotelRepository.save(hotel);
+        eventPublisher.publishEvent(new HotelChangedEvent(saved.getId()));
+        return mapToDTO(saved);
     }
 
     @Override
@@ -77,6 +84,7 @@ public class HotelServiceImpl implements HotelService {
             throw new ResourceNotFoundException("Khách sạn không tồn tại");
         }
         hotelRepository.deleteById(id);
+        eventPublisher.publishEvent(new HotelChangedEvent(id));
     }
 
     // XÓA ẢNH RIÊNG LẺ (chỉ xóa URL trong DB)
@@ -91,6 +99,7 @@ public class HotelServiceImpl implements HotelService {
         }
 
         hotelRepository.save(hotel);
+        eventPublisher.publishEvent(new HotelChangedEvent(hotelId));
     }
 
     // XÓA VIDEO RIÊNG LẺ (chỉ xóa URL trong DB)
@@ -105,6 +114,7 @@ public class HotelServiceImpl implements HotelService {
         }
 
         hotelRepository.save(hotel);
+        eventPublisher.publishEvent(new HotelChangedEvent(hotelId));
     }
 
     @Override
@@ -0,0 +1,185 @@
+package com.travel.travelbooking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.travel.travelbooking.entity.IdempotencyRecord;
+import com.travel.travelbooking.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Lưu response theo Idempotency-Key (dùng bởi IdempotencyFilter):
+// - Bộ nhớ (Caffeine, giới hạn số key): request trùng đang chạy cùng lúc chờ chung 1 lần xử lý,
+//   request trùng sau đó trả lại response đã lưu → chỉ tốn 1 lần tra map
+// - DB (idempotency_keys): dùng khi bộ nhớ không có key (instance khác, khởi động lại, đã bị đẩy khỏi cache)
+// Response 5xx không được lưu: client gửi lại sẽ được xử lý lại.
+// Quyền xử lý trên DB là một lease (idempotency.lease-seconds): instance đang xử lý chết giữa chừng
+// thì sau lease, request gửi lại giành được key thay vì nhận 409 tới hết window.
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    public enum Outcome {
+        EXECUTE,        // request đầu tiên: xử lý rồi gọi complete / abort
+        REPLAY,         // đã có response → trả lại
+        MISMATCH,       // cùng key nhưng nội dung request khác
+        IN_PROGRESS     // instance khác đang xử lý key này
+    }
+
+    public record Result(Outcome outcome, StoredResponse response, Ticket ticket) {
+    }
+
+    // Quyền xử lý của request đầu tiên
+    public static final class Ticket {
+        private final String key;
+        private final LocalDateTime claimedAt;
+        private final Entry entry;
+
+        private Ticket(String key, LocalDateTime claimedAt, Entry entry) {
+            this.key = key;
+            this.claimedAt = claimedAt;
+            this.entry = entry;
+        }
+    }
+
+    // response hoàn tất với null = lần xử lý đầu bị hủy (lỗi 5xx / exception)
+    private record Entry(String fingerprint, CompletableFuture<StoredResponse> response) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final Cache<String, Entry> entries;
+    private final Duration window;
+    private final Duration lease;
+    private final long waitTimeoutMs;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              @Value("${idempotency.window-minutes:1440}") long windowMinutes,
+                              @Value("${idempotency.max-entries:10000}") long maxEntries,
+                              @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMs,
+                              @Value("${idempotency.lease-seconds:60}") long leaseSeconds) {
+        this.repository = repository;
+        this.window = Duration.ofMinutes(windowMinutes);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public Result begin(String key, String fingerprint) {
+        while (true) {
+            Entry mine = new Entry(fingerprint, new CompletableFuture<>());
+            Entry existing = entries.asMap().putIfAbsent(key, mine);
+
+            if (existing != null) {
+                if (!existing.fingerprint().equals(fingerprint)) return new Result(Outcome.MISMATCH, null, null);
+                StoredResponse stored = await(existing);
+                if (stored != null) return new Result(Outcome.REPLAY, stored, null);
+                if (existing.response().isDone()) continue;   // lần đầu bị hủy → thử giành quyền xử lý
+                return new Result(Outcome.IN_PROGRESS, null, null);   // chờ quá lâu
+            }
+
+            return claim(key, mine);
+        }
+    }
+
+    public void complete(Ticket ticket, StoredResponse response) {
+        if (response.status() >= 500) {
+            abort(ticket);
+            return;
+        }
+        try {
+            if (repository.saveResponse(ticket.key, ticket.claimedAt, response.status(),
+                    response.contentType(), response.body()) == 0) {
+                log.warn("Idempotency lease lapsed before the response was saved, key taken over by another request");
+            }
+        } catch (Exception e) {
+            // Vẫn còn bản trong bộ nhớ; dòng DB không có response sẽ hết hạn theo window
+            log.warn("Saving idempotent response failed: {}", e.getMessage());
+        }
+        ticket.entry.response().complete(response);
+    }
+
+    public void abort(Ticket ticket) {
+        try {
+            repository.release(ticket.key, ticket.claimedAt);
+        } catch (Exception e) {
+            log.warn("Releasing idempotency key failed: {}", e.getMessage());
+        }
+        entries.asMap().remove(ticket.key, ticket.entry);
+        ticket.entry.response().complete(null);
+    }
+
+    @Scheduled(cron = "${idempotency.cleanup-cron:0 */10 * * * *}")
+    public void purgeExpired() {
+        int deleted, total = 0;
+        while ((deleted = repository.deleteExpired(LocalDateTime.now())) > 0) {
+            total += deleted;
+        }
+        if (total > 0) log.info("Purged {} expired idempotency keys", total);
+    }
+
+    /* ---- helpers ---- */
+
+    // Bộ nhớ chưa có key → giành quyền trên DB (key mới, hoặc lease của lần trước đã hết)
+    private Result claim(String key, Entry mine) {
+        // claimed_at dùng để so khớp lại khi ghi response → bỏ phần lẻ mà cột DATETIME có thể làm tròn
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        try {
+            repository.deleteIfExpired(key, now);
+            if (repository.claim(key, mine.fingerprint(), now, now.plus(window)) == 1) {
+                return new Result(Outcome.EXECUTE, null, new Ticket(key, now, mine));
+            }
+            if (repository.takeOver(key, mine.fingerprint(), now, now.minus(lease)) == 1) {
+                log.info("Took over idempotency key whose lease lapsed without a response");
+                return new Result(Outcome.EXECUTE, null, new Ticket(key, now, mine));
+            }
+
+            Optional<IdempotencyRecord> record = repository.findById(key);
+            if (record.isPresent() && record.get().getResponseStatus() != null
+                    && record.get().getFingerprint().equals(mine.fingerprint())) {
+                StoredResponse stored = new StoredResponse(record.get().getResponseStatus(),
+                        record.get().getContentType(), record.get().getBody());
+                mine.response().complete(stored);   // giữ trong bộ nhớ cho các lần sau
+                return new Result(Outcome.REPLAY, stored, null);
+            }
+
+            entries.asMap().remove(key, mine);
+            mine.response().complete(null);
+            if (record.isEmpty()) return begin(key, mine.fingerprint());   // vừa bị xóa giữa chừng
+            return record.get().getFingerprint().equals(mine.fingerprint())
+                    ? new Result(Outcome.IN_PROGRESS, null, null)
+                    : new Result(Outcome.MISMATCH, null, null);
+        } catch (RuntimeException e) {
+            entries.asMap().remove(key, mine);
+            mine.response().complete(null);
+            throw e;
+        }
+    }
+
+    private StoredResponse await(Entry entry) {
+        try {
+            return entry.response().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
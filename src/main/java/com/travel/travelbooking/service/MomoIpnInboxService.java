@@ -0,0 +1,285 @@
+package com.travel.travelbooking.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travel.travelbooking.config.MomoConfig;
+import com.travel.travelbooking.dto.IpnInboxStatsDTO;
+import com.travel.travelbooking.entity.IpnInboxStatus;
+import com.travel.travelbooking.entity.MomoIpnInbox;
+import com.travel.travelbooking.exception.ResourceNotFoundException;
+import com.travel.travelbooking.repository.MomoIpnInboxRepository;
+import com.travel.travelbooking.util.MomoSigner;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Hộp thư IPN MoMo:
+//   nhận  → ghi nguyên văn vào momo_ipn_inbox (1 INSERT) rồi trả 204 ngay, MoMo không phải gửi lại vì chậm
+//   xử lý → theo lô: nhận lô bằng 1 UPDATE (nhiều instance không nhận trùng), gộp theo orderId,
+//           kiểm tra chữ ký, áp dụng kết quả vào payment trên worker pool
+// At-least-once: IPN chỉ rời hàng đợi sau khi đã áp dụng; worker chết giữa chừng thì lô được trả lại sau
+// momo.ipn.claim-timeout-seconds. Áp dụng lại cùng IPN là vô hại (PaymentService.applyMomoIpn).
+// Vòng nhận lô chạy trên luồng riêng (momo-ipn-poller), không dùng chung luồng @Scheduled với
+// các job đối soát / dọn dẹp chạy lâu → IPN không bị trễ theo chúng.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MomoIpnInboxService {
+
+    private final MomoIpnInboxRepository inboxRepository;
+    private final PaymentService paymentService;
+    private final MomoConfig momoConfig;
+    private final MomoSigner momoSigner;
+    private final ObjectMapper objectMapper;
+
+    @Value("${momo.ipn.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    @Value("${momo.ipn.batch-size:200}")
+    private int batchSize;
+
+    @Value("${momo.ipn.workers:4}")
+    private int workerCount;
+
+    @Value("${momo.ipn.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${momo.ipn.claim-timeout-seconds:300}")
+    private long claimTimeoutSeconds;
+
+    @Value("${momo.ipn.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${momo.ipn.verify-signature:true}")
+    private boolean verifySignature;
+
+    private final String token = UUID.randomUUID().toString();
+    private ExecutorService workers;
+    private ScheduledExecutorService poller;
+
+    // Chỉ số kể từ lúc khởi động
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private volatile long lastBatchSize;
+    private volatile long lastBatchMaxLagMs;
+    private volatile LocalDateTime lastBatchAt;
+
+    @PostConstruct
+    void startWorkers() {
+        workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread t = new Thread(r, "momo-ipn-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Bắt đầu nhận lô khi ứng dụng đã sẵn sàng
+    @EventListener(ApplicationReadyEvent.class)
+    void startPolling() {
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "momo-ipn-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::drainQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        if (poller != null) poller.shutdownNow();
+        workers.shutdown();
+    }
+
+    // ===================== NHẬN =====================
+
+    public void receive(Map<String, Object> body) throws Exception {
+        MomoIpnInbox row = new MomoIpnInbox();
+        Object orderId = body.get("orderId");
+        row.setOrderId(orderId != null ? orderId.toString() : null);
+        row.setPayload(objectMapper.writeValueAsString(body));
+        row.setReceivedAt(LocalDateTime.now());
+        inboxRepository.save(row);
+        received.incrementAndGet();
+    }
+
+    // ===================== XỬ LÝ =====================
+
+    public void drain() {
+        while (inboxRepository.claim(token, LocalDateTime.now(), batchSize) > 0) {
+            List<MomoIpnInbox> batch = inboxRepository.findByClaimedByAndStatusOrderById(token, IpnInboxStatus.PROCESSING);
+            if (batch.isEmpty()) break;
+            process(batch);
+            if (batch.size() < batchSize) break;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${momo.ipn.maintenance-interval-ms:60000}")
+    public void maintenance() {
+        int released = inboxRepository.releaseStaleClaims(LocalDateTime.now().minusSeconds(claimTimeoutSeconds));
+        if (released > 0) log.warn("Released {} stale IPN claims back to the inbox", released);
+
+        int deleted, total = 0;
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        while ((deleted = inboxRepository.deleteProcessedBefore(before)) > 0) {
+            total += deleted;
+        }
+        if (total > 0) log.info("Purged {} processed IPNs older than {} days", total, retentionDays);
+    }
+
+    public IpnInboxStatsDTO getStats() {
+        Object[] backlog = inboxRepository.findBacklog().get(0);
+        long pending = ((Number) backlog[0]).longValue();
+        LocalDateTime oldest = (LocalDateTime) backlog[1];
+        long lagMs = oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis();
+        return new IpnInboxStatsDTO(pending, oldest, lagMs, received.get(), processed.get(), duplicates.get(),
+                rejected.get(), retried.get(), lastBatchAt, lastBatchSize, lastBatchMaxLagMs);
+    }
+
+    /* ---- helpers ---- */
+
+    // Exception lọt ra scheduleWithFixedDelay sẽ dừng hẳn vòng lặp → chỉ log
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (Exception e) {
+            log.warn("Draining IPN inbox failed: {}", e.getMessage());
+        }
+    }
+
+    private void process(List<MomoIpnInbox> batch) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Cùng orderId (MoMo gửi lại) → chỉ áp dụng IPN mới nhất có chữ ký hợp lệ, tuần tự trên 1 worker
+        Map<String, List<MomoIpnInbox>> byOrder = batch.stream()
+                .collect(Collectors.groupingBy(i -> Objects.toString(i.getOrderId(), ""), LinkedHashMap::new, Collectors.toList()));
+
+        List<Callable<Void>> tasks = new ArrayList<>(byOrder.size());
+        byOrder.values().forEach(group -> tasks.add(() -> {
+            processOrder(group);
+            return null;
+        }));
+
+        try {
+            for (Future<Void> f : workers.invokeAll(tasks)) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    log.warn("IPN worker failed: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        lastBatchAt = now;
+        lastBatchSize = batch.size();
+        lastBatchMaxLagMs = batch.stream()
+                .mapToLong(i -> Duration.between(i.getReceivedAt(), now).toMillis())
+                .max().orElse(0);
+    }
+
+    private void processOrder(List<MomoIpnInbox> group) {
+        List<Long> invalid = new ArrayList<>();
+        MomoIpnInbox latest = null;
+        Map<String, Object> latestBody = null;
+
+        for (MomoIpnInbox row : group) {
+            Map<String, Object> body = parse(row);
+            if (body == null || row.getOrderId() == null || !(body.get("resultCode") instanceof Number) || !signatureValid(body)) {
+                invalid.add(row.getId());
+            } else if (latest == null || row.getId() > latest.getId()) {
+                latest = row;
+                latestBody = body;
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!invalid.isEmpty()) {
+            inboxRepository.finish(invalid, IpnInboxStatus.REJECTED, "Sai chữ ký hoặc thiếu dữ liệu", now);
+            rejected.addAndGet(invalid.size());
+            log.warn("Rejected {} IPNs with invalid signature or payload", invalid.size());
+        }
+        if (latest == null) return;
+
+        MomoIpnInbox applied = latest;
+        List<Long> superseded = group.stream()
+                .map(MomoIpnInbox::getId)
+                .filter(id -> !id.equals(applied.getId()) && !invalid.contains(id))
+                .toList();
+
+        try {
+            paymentService.applyMomoIpn(latest.getOrderId(), ((Number) latestBody.get("resultCode")).intValue());
+            inboxRepository.finish(List.of(latest.getId()), IpnInboxStatus.PROCESSED, null, now);
+            processed.incrementAndGet();
+            if (!superseded.isEmpty()) {
+                inboxRepository.finish(superseded, IpnInboxStatus.DUPLICATE, null, now);
+                duplicates.addAndGet(superseded.size());
+            }
+        } catch (ResourceNotFoundException e) {
+            // orderId không tồn tại: gửi lại cũng không khác
+            List<Long> all = group.stream().map(MomoIpnInbox::getId).filter(id -> !invalid.contains(id)).toList();
+            inboxRepository.finish(all, IpnInboxStatus.REJECTED, truncate(e.getMessage()), now);
+            rejected.addAndGet(all.size());
+        } catch (Exception e) {
+            List<Long> all = group.stream().map(MomoIpnInbox::getId).filter(id -> !invalid.contains(id)).toList();
+            inboxRepository.retry(all, truncate(e.getMessage()), maxAttempts);
+            retried.addAndGet(all.size());
+            log.warn("Applying IPN for order {} failed, will retry: {}", latest.getOrderId(), e.getMessage());
+        }
+    }
+
+    private Map<String, Object> parse(MomoIpnInbox row) {
+        try {
+            return objectMapper.readValue(row.getPayload(), new TypeReference<>() {});
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Chuỗi ký theo tài liệu IPN của MoMo (các trường xếp theo alphabet)
+    private boolean signatureValid(Map<String, Object> body) {
+        if (!verifySignature) return true;
+        Object signature = body.get("signature");
+
+        String raw = "accessKey=" + momoConfig.getAccessKey()
+                + "&amount=" + field(body, "amount")
+                + "&extraData=" + field(body, "extraData")
+                + "&message=" + field(body, "message")
+                + "&orderId=" + field(body, "orderId")
+                + "&orderInfo=" + field(body, "orderInfo")
+                + "&orderType=" + field(body, "orderType")
+                + "&partnerCode=" + field(body, "partnerCode")
+                + "&payType=" + field(body, "payType")
+                + "&requestId=" + field(body, "requestId")
+                + "&responseTime=" + field(body, "responseTime")
+                + "&resultCode=" + field(body, "resultCode")
+                + "&transId=" + field(body, "transId");
+        return momoSigner.verify(raw, signature != null ? signature.toString() : null);
+    }
+
+    private static String field(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        return value == null ? "" : value.toString();
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -0,0 +1,95 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.OutboundLatencyDTO;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogram độ trễ các lời gọi HTTP ra ngoài (MoMo, Groq) theo từng endpoint.
+// Bucket cố định (ms) → ghi nhận chỉ là vài phép cộng, không giữ từng mẫu.
+@Service
+public class OutboundHttpMetrics {
+
+    private static final long[] BOUNDS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private static final class Histogram {
+        final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder totalMs = new LongAdder();
+        final AtomicLong maxMs = new AtomicLong();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+    }
+
+    private record Key(String target, String endpoint) {
+    }
+
+    private final ConcurrentMap<Key, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(String target, String endpoint, long elapsedMs, boolean error) {
+        Histogram h = histogram(target, endpoint);
+        h.buckets[bucketOf(elapsedMs)].increment();
+        h.count.increment();
+        h.totalMs.add(elapsedMs);
+        h.maxMs.accumulateAndGet(elapsedMs, Math::max);
+        if (error) h.errors.increment();
+    }
+
+    public void recordRejected(String target, String endpoint) {
+        histogram(target, endpoint).rejected.increment();
+    }
+
+    public List<OutboundLatencyDTO> snapshot() {
+        List<OutboundLatencyDTO> result = new ArrayList<>();
+        histograms.forEach((key, h) -> {
+            long[] counts = new long[h.buckets.length];
+            long n = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = h.buckets[i].sum();
+                n += counts[i];
+            }
+            long max = h.maxMs.get();
+            result.add(new OutboundLatencyDTO(key.target(), key.endpoint(), n, h.errors.sum(), h.rejected.sum(),
+                    n == 0 ? 0 : (double) h.totalMs.sum() / n,
+                    percentile(counts, n, 0.50, max), percentile(counts, n, 0.95, max),
+                    percentile(counts, n, 0.99, max), max));
+        });
+        result.sort(Comparator.comparing(OutboundLatencyDTO::getTarget).thenComparing(OutboundLatencyDTO::getEndpoint));
+        return result;
+    }
+
+    /* ---- helpers ---- */
+
+    private Histogram histogram(String target, String endpoint) {
+        return histograms.computeIfAbsent(new Key(target, endpoint), k -> new Histogram());
+    }
+
+    private static int bucketOf(long ms) {
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            if (ms <= BOUNDS_MS[i]) return i;
+        }
+        return BOUNDS_MS.length;
+    }
+
+    // Cận trên của bucket chứa phân vị q (bucket cuối: dùng max)
+    private static long percentile(long[] counts, long n, double q, long max) {
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return i < BOUNDS_MS.length ? Math.min(BOUNDS_MS[i], max) : max;
+        }
+        return max;
+    }
+}
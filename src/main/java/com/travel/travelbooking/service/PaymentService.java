@@ -11,6 +11,6 @@ public interface PaymentService {
     // Tạo link thanh toán MoMo cho booking
     String createMomoPaymentUrl(Long bookingId) throws Exception;
 
-    // Xử lý IPN callback từ MoMo
-    PaymentDTO handleMomoIpn(String orderId, int resultCode, String signature, String rawData) throws Exception;
+    // Áp dụng kết quả IPN MoMo (đã kiểm tra chữ ký) - gọi từ MomoIpnInboxService
+    PaymentDTO applyMomoIpn(String orderId, int resultCode);
 }
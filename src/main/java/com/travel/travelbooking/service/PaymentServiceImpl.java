@@ -6,10 +6,13 @@ import com.travel.travelbooking.config.MomoConfig;
 import com.travel.travelbooking.dto.BookingDTO;
 import com.travel.travelbooking.dto.PaymentDTO;
 import com.travel.travelbooking.entity.*;
+import com.travel.travelbooking.event.PaymentStatusChangedEvent;
+import com.travel.travelbooking.exception.ResourceNotFoundException;
 import com.travel.travelbooking.repository.BookingRepository;
 import com.travel.travelbooking.repository.PaymentRepository;
-import com.travel.travelbooking.util.MomoSignatureUtil;
+import com.travel.travelbooking.util.MomoSigner;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,8 +30,11 @@ public class PaymentServiceImpl implements PaymentService {
     private final BookingRepository bookingRepository;
     private final PaymentRepository paymentRepository;
     private final MomoConfig momoConfig;
-    private final RestTemplate restTemplate;
+    private final MomoSigner momoSigner;
+    private final RestTemplate momoRestTemplate;
     private final BookingService bookingService;
+    private final SeatInventoryService seatInventoryService;
+    private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -40,6 +46,10 @@ public class PaymentServiceImpl implements PaymentService {
             throw new RuntimeException("Tổng tiền không hợp lệ");
         }
 
+        if (booking.getStatus() == BookingStatus.EXPIRED) {
+            throw new IllegalArgumentException("Booking đã hết hạn giữ chỗ, vui lòng đặt lại");
+        }
+
         Payment payment = booking.getPayment();
         if (payment == null) {
             // Nếu chưa có payment thì tạo
@@ -74,7 +84,7 @@ public class PaymentServiceImpl implements PaymentService {
                 + "&requestId=" + requestId
                 + "&requestType=" + requestType;
 
-        String signature = MomoSignatureUtil.hmacSHA256(rawHash, momoConfig.getSecretKey());
+        String signature = momoSigner.sign(rawHash);
 
         Map<String, Object> body = new HashMap<>();
         body.put("partnerCode", momoConfig.getPartnerCode());
@@ -96,7 +106,7 @@ public class PaymentServiceImpl implements PaymentService {
 
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
 
-        String response = restTemplate.postForObject(momoConfig.getEndpoint(), request, String.class);
+        String response = momoRestTemplate.postForObject(momoConfig.getEndpoint(), request, String.class);
         JsonNode json = objectMapper.readTree(response);
 
         if (!json.has("payUrl")) {
@@ -106,31 +116,31 @@ public class PaymentServiceImpl implements PaymentService {
         return json.get("payUrl").asText();
     }
 
+    // IPN có thể tới nhiều lần / sai thứ tự (MoMo gửi lại, inbox xử lý lại sau crash):
+    // áp dụng lại cùng kết quả không đổi gì, và không hạ payment đã PAID xuống FAILED / CANCELLED
     @Override
-    public PaymentDTO handleMomoIpn(String orderId,
-                                    int resultCode,
-                                    String signature,
-                                    String rawData) throws Exception {
-
-        // TODO: bạn có thể verify lại signature bằng rawData nếu muốn chắc chắn tuyệt đối
-
-        Payment payment = paymentRepository.findByTransactionId(orderId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy payment với orderId: " + orderId));
+    public PaymentDTO applyMomoIpn(String orderId, int resultCode) {
+        Payment payment = paymentRepository.findByTransactionIdForUpdate(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy payment với orderId: " + orderId));
 
-        if (resultCode == 0) {
-            payment.setStatus(PaymentStatus.PAID);
-            if (payment.getPaidAt() == null) {
-                payment.setPaidAt(LocalDateTime.now());
+        Booking booking = payment.getBooking();
+        PaymentStatus oldStatus = payment.getStatus();
+        if (oldStatus != PaymentStatus.PAID) {
+            if (resultCode == 0) {
+                payment.setStatus(PaymentStatus.PAID);
+                if (payment.getPaidAt() == null) {
+                    payment.setPaidAt(LocalDateTime.now());
+                }
+                keepHoldAfterPayment(booking);
+            } else if (resultCode == 9000) { // ví dụ code hủy
+                payment.setStatus(PaymentStatus.CANCELLED);
+            } else {
+                payment.setStatus(PaymentStatus.FAILED);
             }
-        } else if (resultCode == 9000) { // ví dụ code hủy
-            payment.setStatus(PaymentStatus.CANCELLED);
-        } else {
-            payment.setStatus(PaymentStatus.FAILED);
+            paymentRepository.save(payment);
+            publishStatusChanged(payment, oldStatus);
         }
 
-        paymentRepository.save(payment);
-        Booking booking = payment.getBooking();
-
         return new PaymentDTO(
                 payment.getId(),
                 payment.getMethod(),
@@ -151,15 +161,37 @@ public class PaymentServiceImpl implements PaymentService {
             throw new RuntimeException("Booking chưa có thông tin thanh toán");
         }
 
+        PaymentStatus oldStatus = payment.getStatus();
         payment.setStatus(status);
 
         if (status == PaymentStatus.PAID) {
             payment.setPaidAt(LocalDateTime.now());
+            keepHoldAfterPayment(booking);
         }
 
         paymentRepository.save(payment);
+        publishStatusChanged(payment, oldStatus);
 
         // ⭐ Convert entity -> DTO bằng BookingServiceImpl (đã có toDTO())
         return bookingService.toDTO(booking);
     }
+
+    // Đã thanh toán thì giữ chỗ không còn hết hạn (chờ nhân viên xác nhận).
+    // Không còn chờ (hết hạn trước khi tiền về) → giữ lại chỗ nếu còn, không thì đánh dấu cần hoàn tiền
+    private void keepHoldAfterPayment(Booking booking) {
+        if (!seatInventoryService.keepHold(booking)) {
+            bookingService.restoreHoldAfterPayment(booking.getId());
+        }
+    }
+
+    private void publishStatusChanged(Payment payment, PaymentStatus oldStatus) {
+        if (payment.getStatus() == oldStatus) return;
+        eventPublisher.publishEvent(new PaymentStatusChangedEvent(
+                payment.getId(),
+                payment.getBooking().getId(),
+                oldStatus,
+                payment.getStatus(),
+                payment.getBooking().getTotalPrice()
+        ));
+    }
 }
@@ -0,0 +1,253 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.PopularDestinationDTO;
+import com.travel.travelbooking.dto.PopularTourDTO;
+import com.travel.travelbooking.dto.TopBookedTourDTO;
+import com.travel.travelbooking.entity.DestinationStatus;
+import com.travel.travelbooking.entity.Region;
+import com.travel.travelbooking.event.*;
+import com.travel.travelbooking.repository.DestinationRepository;
+import com.travel.travelbooking.repository.TourRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Bảng xếp hạng tour / điểm đến phổ biến giữ sẵn trong bộ nhớ (thay findTopPopularTours / findTopPopularDestinations).
+// - Tour:     views * 0.3 + bookings * 0.5 + reviews * 0.2
+// - Điểm đến: số tour ACTIVE * 0.4 + tổng views * 0.00001 + bookings * 0.6
+// Khởi động đọc tours + tour_stats (số đếm đã lưu sẵn, không GROUP BY trên bookings / reviews),
+// sau đó cập nhật từng bước theo sự kiện lượt xem / booking / review / tour / điểm đến.
+// Đọc top-k = duyệt k phần tử đầu của skip list, không chạm DB.
+// Cùng dữ liệu đó phục vụ dashboard: tour được đặt nhiều nhất, số điểm đến ACTIVE theo khu vực.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PopularityRankingService {
+
+    private final TourRepository tourRepository;
+    private final DestinationRepository destinationRepository;
+
+    private record TourEntry(Long id, String name, String imageUrl, Long destinationId, String destinationName,
+                             String description, long views, long bookings, long reviews, double averageRating) {
+        double score() {
+            return views * 0.3 + bookings * 0.5 + reviews * 0.2;
+        }
+
+        TourEntry withViews(long v) {
+            return new TourEntry(id, name, imageUrl, destinationId, destinationName, description,
+                    v, bookings, reviews, averageRating);
+        }
+
+        TourEntry withBookings(long b) {
+            return new TourEntry(id, name, imageUrl, destinationId, destinationName, description,
+                    views, b, reviews, averageRating);
+        }
+    }
+
+    private record DestinationEntry(Long id, String name, String imageUrl, Region region, String description,
+                                    long tourCount, long totalViews, long bookings) {
+        double score() {
+            return tourCount * 0.4 + totalViews * 0.00001 + bookings * 0.6;
+        }
+
+        DestinationEntry plus(long tours, long views, long b) {
+            return new DestinationEntry(id, name, imageUrl, region, description,
+                    tourCount + tours, totalViews + views, bookings + b);
+        }
+    }
+
+    // Khóa sắp xếp: điểm giảm dần, cùng điểm thì id tăng dần
+    private record RankKey(double score, long id) implements Comparable<RankKey> {
+        @Override
+        public int compareTo(RankKey o) {
+            int c = Double.compare(o.score, score);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+    }
+
+    // Bộ xếp hạng hiện hành. Sự kiện cập nhật tại chỗ; reloadAll dựng bộ mới rồi thay tham chiếu
+    // một lần → người đọc không bao giờ thấy bảng xếp hạng rỗng / dựng dở.
+    private static final class Ranking {
+        final Map<Long, TourEntry> tours = new ConcurrentHashMap<>();
+        final ConcurrentSkipListSet<RankKey> tourRanking = new ConcurrentSkipListSet<>();
+        final ConcurrentSkipListSet<RankKey> bookedRanking = new ConcurrentSkipListSet<>();   // theo số booking
+        final Map<Long, DestinationEntry> destinations = new ConcurrentHashMap<>();
+        final ConcurrentSkipListSet<RankKey> destinationRanking = new ConcurrentSkipListSet<>();
+    }
+
+    private volatile Ranking ranking = new Ranking();
+
+    // ===================== ĐỌC =====================
+
+    public List<PopularTourDTO> topTours(int limit) {
+        Ranking r = ranking;
+        List<PopularTourDTO> result = new ArrayList<>(limit);
+        for (RankKey key : r.tourRanking) {
+            if (result.size() >= limit) break;
+            TourEntry e = r.tours.get(key.id());
+            // Bỏ khóa cũ còn sót trong lúc đang cập nhật
+            if (e == null || e.score() != key.score()) continue;
+            result.add(new PopularTourDTO(e.id(), e.name(), e.imageUrl(), e.destinationName(), e.description(),
+                    e.views(), e.bookings(), e.reviews(), e.averageRating(), e.score()));
+        }
+        return result;
+    }
+
+    public List<PopularDestinationDTO> topDestinations(int limit) {
+        Ranking r = ranking;
+        List<PopularDestinationDTO> result = new ArrayList<>(limit);
+        for (RankKey key : r.destinationRanking) {
+            if (result.size() >= limit) break;
+            DestinationEntry e = r.destinations.get(key.id());
+            if (e == null || e.score() != key.score()) continue;
+            result.add(new PopularDestinationDTO(e.id(), e.name(), e.imageUrl(), e.region(), e.description(),
+                    e.tourCount(), e.totalViews(), e.bookings()));
+        }
+        return result;
+    }
+
+    // Thay findTopBookedTours (GROUP BY trên bookings): số booking CONFIRMED / COMPLETED của tour ACTIVE
+    public List<TopBookedTourDTO> topBookedTours(int limit) {
+        Ranking r = ranking;
+        List<TopBookedTourDTO> result = new ArrayList<>(limit);
+        for (RankKey key : r.bookedRanking) {
+            if (result.size() >= limit) break;
+            TourEntry e = r.tours.get(key.id());
+            if (e == null || e.bookings() != key.score()) continue;
+            result.add(new TopBookedTourDTO(e.id(), e.name(), e.imageUrl(), e.destinationName(), e.bookings()));
+        }
+        return result;
+    }
+
+    // Thay countDestinationsByRegion: [Region, số điểm đến ACTIVE], nhiều nhất trước
+    public List<Object[]> destinationCountsByRegion() {
+        Map<Region, Long> counts = new HashMap<>();
+        ranking.destinations.values().forEach(d -> counts.merge(d.region(), 1L, Long::sum));
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Region, Long>comparingByValue().reversed())
+                .map(e -> new Object[]{e.getKey(), e.getValue()})
+                .toList();
+    }
+
+    // ===================== ĐỒNG BỘ =====================
+
+    // Khởi động + đối soát định kỳ sau khi tour_stats được dựng lại
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${popularity.reload-cron:0 15 3 * * *}")
+    public synchronized void reloadAll() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = tourRepository.findRankingRows();
+
+        Ranking next = new Ranking();
+        destinationRepository.findByStatus(DestinationStatus.ACTIVE).forEach(d ->
+                putDestination(next, new DestinationEntry(d.getId(), d.getName(), d.getImageUrl(), d.getRegion(),
+                        d.getDescription(), 0, 0, 0)));
+        rows.forEach(row -> putTour(next, toEntry(row)));
+        ranking = next;
+
+        log.info("Loaded popularity ranking: {} tours, {} destinations in {} ms",
+                next.tours.size(), next.destinations.size(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public synchronized void onViewsFlushed(TourViewsFlushedEvent event) {
+        Ranking r = ranking;
+        event.deltas().forEach((tourId, delta) -> {
+            TourEntry e = r.tours.get(tourId);
+            if (e != null) putTour(r, e.withViews(e.views() + delta));
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        boolean countedBefore = event.oldStatus() != null && TourStatsService.COUNTED_STATUSES.contains(event.oldStatus());
+        boolean countedAfter = TourStatsService.COUNTED_STATUSES.contains(event.newStatus());
+        if (countedBefore == countedAfter) return;
+
+        Ranking r = ranking;
+        TourEntry e = r.tours.get(event.tourId());
+        if (e != null) putTour(r, e.withBookings(e.bookings() + (countedAfter ? 1 : -1)));
+    }
+
+    // Review đổi cả điểm trung bình → đọc lại dòng của tour
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReviewCreated(ReviewCreatedEvent event) {
+        reload(event.tourId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        reload(event.tourId());
+    }
+
+    // Đổi / ẩn điểm đến kéo theo nhiều tour → nạp lại toàn bộ (hiếm khi xảy ra)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDestinationChanged(DestinationChangedEvent event) {
+        reloadAll();
+    }
+
+    /* ---- helpers ---- */
+
+    private synchronized void reload(Long tourId) {
+        List<Object[]> rows = tourRepository.findRankingRowsByIds(List.of(tourId));
+        if (rows.isEmpty()) {
+            removeTour(ranking, tourId);   // tour đã xóa / ngừng hoạt động
+        } else {
+            putTour(ranking, toEntry(rows.get(0)));
+        }
+    }
+
+    // row = [id, name, imageUrl, destinationId, destinationName, description, views, bookingCount, reviewCount, averageRating]
+    private TourEntry toEntry(Object[] row) {
+        return new TourEntry((Long) row[0], (String) row[1], (String) row[2], (Long) row[3], (String) row[4],
+                (String) row[5], ((Number) row[6]).longValue(), ((Number) row[7]).longValue(),
+                ((Number) row[8]).longValue(), ((Number) row[9]).doubleValue());
+    }
+
+    // Thêm khóa mới trước rồi mới gỡ khóa cũ → người đọc không bị "mất" tour giữa chừng
+    private static void putTour(Ranking r, TourEntry entry) {
+        TourEntry old = r.tours.put(entry.id(), entry);
+        r.tourRanking.add(new RankKey(entry.score(), entry.id()));
+        if (old != null && old.score() != entry.score()) {
+            r.tourRanking.remove(new RankKey(old.score(), old.id()));
+        }
+        r.bookedRanking.add(new RankKey(entry.bookings(), entry.id()));
+        if (old != null && old.bookings() != entry.bookings()) {
+            r.bookedRanking.remove(new RankKey(old.bookings(), old.id()));
+        }
+        adjustDestination(r, old, -1);
+        adjustDestination(r, entry, 1);
+    }
+
+    private static void removeTour(Ranking r, Long tourId) {
+        TourEntry old = r.tours.remove(tourId);
+        if (old == null) return;
+        r.tourRanking.remove(new RankKey(old.score(), old.id()));
+        r.bookedRanking.remove(new RankKey(old.bookings(), old.id()));
+        adjustDestination(r, old, -1);
+    }
+
+    private static void adjustDestination(Ranking r, TourEntry tour, int sign) {
+        if (tour == null || tour.destinationId() == null) return;
+        DestinationEntry d = r.destinations.get(tour.destinationId());
+        if (d == null) return;   // điểm đến không ACTIVE
+        putDestination(r, d.plus(sign, sign * tour.views(), sign * tour.bookings()));
+    }
+
+    private static void putDestination(Ranking r, DestinationEntry entry) {
+        DestinationEntry old = r.destinations.put(entry.id(), entry);
+        r.destinationRanking.add(new RankKey(entry.score(), entry.id()));
+        if (old != null && old.score() != entry.score()) {
+            r.destinationRanking.remove(new RankKey(old.score(), old.id()));
+        }
+    }
+}
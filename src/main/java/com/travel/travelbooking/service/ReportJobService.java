@@ -0,0 +1,318 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.ReportJobDTO;
+import com.travel.travelbooking.dto.ReportRequest;
+import com.travel.travelbooking.exception.ResourceNotFoundException;
+import com.travel.travelbooking.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Báo cáo chạy nền: POST tạo job → worker ghi file Excel ra thư mục tạm → client hỏi tiến độ rồi tải về.
+// Không giữ luồng Tomcat trong lúc tạo file. Giới hạn để vài admin xuất cùng lúc không làm đói API:
+//   - report.max-concurrent báo cáo được tạo cùng lúc (tính cả xuất trực tiếp qua stream())
+//   - hàng đợi report.queue-capacity job, đầy → 429
+//   - mỗi người tối đa report.max-active-per-user job chưa xong → 429
+// Job giữ trong bộ nhớ của instance đã nhận; file bị xóa sau report.retention-minutes
+// (kể cả file mồ côi trong report.dir của lần chạy trước / job đã mất khi khởi động lại).
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportJobService {
+
+    public enum ReportType { DASHBOARD, BOOKINGS, REVENUE_BY_TOUR }
+
+    public enum JobStatus { QUEUED, RUNNING, DONE, FAILED }
+
+    private final ReportService reportService;
+
+    @Value("${report.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${report.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${report.max-active-per-user:1}")
+    private int maxActivePerUser;
+
+    @Value("${report.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${report.dir:${java.io.tmpdir}/travel-reports}")
+    private String reportDir;
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final ReportRequest request;
+        final String requestedBy;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile JobStatus status = JobStatus.QUEUED;
+        volatile long rowsWritten;
+        volatile long totalRows;          // 0 = không biết trước
+        volatile LocalDateTime finishedAt;
+        volatile Path file;
+        volatile String error;
+
+        Job(ReportRequest request, String requestedBy) {
+            this.request = request;
+            this.requestedBy = requestedBy;
+        }
+
+        boolean active() {
+            return status == JobStatus.QUEUED || status == JobStatus.RUNNING;
+        }
+    }
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private Semaphore permits;
+    private ThreadPoolExecutor workers;
+    private Path dir;
+
+    @PostConstruct
+    void start() throws IOException {
+        dir = Files.createDirectories(Paths.get(reportDir));
+        deleteOrphanFiles();
+        permits = new Semaphore(maxConcurrent);
+        workers = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "report-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.shutdownNow();
+    }
+
+    // ===================== JOB =====================
+
+    public ReportJobDTO submit(ReportRequest request, String username) {
+        if (request.getFrom() != null && request.getTo() != null && request.getTo().isBefore(request.getFrom())) {
+            throw new IllegalArgumentException("Khoảng thời gian không hợp lệ");
+        }
+
+        Job job = new Job(request, username);
+        synchronized (this) {
+            long active = jobs.values().stream().filter(j -> j.active() && j.requestedBy.equals(username)).count();
+            if (active >= maxActivePerUser) {
+                throw new TooManyRequestsException("Bạn đang có báo cáo chưa hoàn tất, vui lòng chờ báo cáo đó xong");
+            }
+            jobs.put(job.id, job);
+        }
+
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new TooManyRequestsException("Hệ thống đang tạo nhiều báo cáo, vui lòng thử lại sau");
+        }
+        log.info("Report job {} ({}) queued by {}", job.id, request.getType(), username);
+        return toDTO(job);
+    }
+
+    public ReportJobDTO get(String id) {
+        return toDTO(find(id));
+    }
+
+    public List<ReportJobDTO> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job j) -> j.createdAt).reversed())
+                .map(this::toDTO)
+                .toList();
+    }
+
+    // File của job đã xong (để tải về)
+    public Path file(String id) {
+        Job job = find(id);
+        if (job.status != JobStatus.DONE || job.file == null || !Files.exists(job.file)) {
+            throw new IllegalArgumentException("Báo cáo chưa sẵn sàng để tải về");
+        }
+        return job.file;
+    }
+
+    public String filename(String id) {
+        Job job = find(id);
+        return "Bao_cao_" + job.request.getType().name().toLowerCase() + "_"
+                + job.createdAt.toLocalDate() + ".xlsx";
+    }
+
+    // Xuất trực tiếp ra response: dùng chung giới hạn với job nền, hết lượt → 429 ngay.
+    // Body có thể không bao giờ chạy (request async hết hạn / client ngắt trước khi tới lượt)
+    // → lượt cũng được trả khi request async kết thúc; trả đúng 1 lần dù cả hai cùng xảy ra.
+    public StreamingResponseBody stream(StreamingResponseBody body) {
+        if (!permits.tryAcquire()) {
+            throw new TooManyRequestsException("Hệ thống đang tạo nhiều báo cáo, vui lòng dùng báo cáo chạy nền hoặc thử lại sau");
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) permits.release();
+        };
+
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            WebAsyncUtils.getAsyncManager(attributes.getRequest()).registerCallableInterceptor(
+                    ReportJobService.class.getName(), new CallableProcessingInterceptor() {
+                        @Override
+                        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                            release.run();
+                        }
+                    });
+        }
+        return out -> {
+            try {
+                body.writeTo(out);
+            } finally {
+                release.run();
+            }
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${report.cleanup-interval-ms:300000}")
+    public void cleanup() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.active() || job.finishedAt == null || job.finishedAt.isAfter(before)) return false;
+            deleteQuietly(job.file);
+            return true;
+        });
+        deleteOrphanFiles();
+    }
+
+    /* ---- helpers ---- */
+
+    private void run(Job job) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, "Bị hủy khi tắt ứng dụng");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Path file = null;
+        try {
+            job.status = JobStatus.RUNNING;
+            file = Files.createTempFile(dir, "report-", ".xlsx");
+            job.file = file;          // để dọn file mồ côi không xóa file đang ghi
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                job.rowsWritten = generate(job, out);
+            }
+            job.finishedAt = LocalDateTime.now();
+            job.status = JobStatus.DONE;
+            log.info("Report job {} done: {} rows, {} bytes in {} ms", job.id, job.rowsWritten,
+                    Files.size(file), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            deleteQuietly(file);
+            fail(job, e.getMessage());
+            log.warn("Report job {} failed: {}", job.id, e.getMessage());
+        } finally {
+            permits.release();
+        }
+    }
+
+    private long generate(Job job, OutputStream out) throws IOException {
+        ReportRequest r = job.request;
+        return switch (r.getType()) {
+            case DASHBOARD -> {
+                reportService.writeDashboard(out);
+                yield 0;
+            }
+            case BOOKINGS -> {
+                job.totalRows = reportService.countBookings(r.getFrom(), r.getTo());
+                yield reportService.writeBookings(r.getFrom(), r.getTo(), out, rows -> job.rowsWritten = rows);
+            }
+            case REVENUE_BY_TOUR -> reportService.writeRevenueByTour(r.getFrom(), r.getTo(), out);
+        };
+    }
+
+    private void fail(Job job, String error) {
+        job.error = error;
+        job.finishedAt = LocalDateTime.now();
+        job.status = JobStatus.FAILED;
+    }
+
+    private Job find(String id) {
+        Job job = jobs.get(id);
+        if (job == null) throw new ResourceNotFoundException("Không tìm thấy báo cáo: " + id);
+        return job;
+    }
+
+    private ReportJobDTO toDTO(Job job) {
+        int progress = switch (job.status) {
+            case QUEUED -> 0;
+            case DONE -> 100;
+            // Ghi xong dữ liệu vẫn còn bước ghi file → tối đa 99 khi đang chạy
+            case RUNNING, FAILED -> job.totalRows > 0
+                    ? (int) Math.min(99, job.rowsWritten * 100 / job.totalRows)
+                    : 0;
+        };
+        Long size = null;
+        if (job.status == JobStatus.DONE) {
+            try {
+                size = Files.size(job.file);
+            } catch (IOException ignored) {
+                // file đã bị xóa
+            }
+        }
+        String url = job.status == JobStatus.DONE ? "/api/admin/reports/" + job.id + "/download" : null;
+        return new ReportJobDTO(job.id, job.request.getType(), job.status, progress, job.rowsWritten,
+                job.requestedBy, job.createdAt, job.finishedAt, size, url, job.error);
+    }
+
+    // File báo cáo quá hạn giữ mà không thuộc job nào đang giữ (instance trước đã tắt / crash).
+    // Chỉ xóa file cũ hơn retention → không đụng file mới của instance khác dùng chung thư mục
+    private void deleteOrphanFiles() {
+        Set<Path> owned = new HashSet<>();
+        jobs.values().forEach(job -> {
+            if (job.file != null) owned.add(job.file);
+        });
+        FileTime before = FileTime.from(Instant.now().minus(Duration.ofMinutes(retentionMinutes)));
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "report-*.xlsx")) {
+            for (Path file : files) {
+                if (owned.contains(file) || Files.getLastModifiedTime(file).compareTo(before) > 0) continue;
+                deleteQuietly(file);
+                deleted++;
+            }
+        } catch (IOException e) {
+            log.warn("Could not list report dir {}: {}", dir, e.getMessage());
+        }
+        if (deleted > 0) log.info("Deleted {} orphaned report files from {}", deleted, dir);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete report file {}: {}", file, e.getMessage());
+        }
+    }
+}
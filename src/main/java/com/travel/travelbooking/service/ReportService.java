@@ -0,0 +1,218 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.*;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.entity.PaymentStatus;
+import com.travel.travelbooking.entity.Region;
+import com.travel.travelbooking.repository.BookingRepository;
+import com.travel.travelbooking.util.ExcelReportWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+// Báo cáo Excel ghi thẳng ra OutputStream (response / file) qua ExcelReportWriter:
+// không dựng cả file trong bộ nhớ, booking đọc theo trang keyset → bộ nhớ không đổi theo số dòng.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportService {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final DashboardService dashboardService;
+    private final BookingRepository bookingRepository;
+
+    @Value("${report.export.page-size:1000}")
+    private int pageSize;
+
+    // ===================== DASHBOARD =====================
+
+    public void writeDashboard(OutputStream out) throws IOException {
+        DashboardStatsDTO stats = dashboardService.getFullDashboardStats();
+
+        try (ExcelReportWriter w = new ExcelReportWriter()) {
+            w.sheet("Báo Cáo Dashboard", 32, 36, 22, 14, 26, 18, 16, 12, 12);
+
+            w.title("BÁO CÁO DASHBOARD - TRAVEL BOOKING");
+            w.text("Ngày xuất báo cáo: " + LocalDateTime.now().format(DATE_TIME));
+            w.skip(2);
+
+            // === 1. DOANH THU ===
+            w.section("DOANH THU");
+            w.keyValue("Doanh thu thực tế (Hoàn thành)", formatCurrency(stats.getActualRevenue()) + " ₫");
+            w.keyValue("Doanh thu dự kiến (Đã xác nhận)", formatCurrency(stats.getExpectedRevenue()) + " ₫");
+            w.keyValue("Đã thanh toán", formatCurrency(stats.getPaidRevenue()) + " ₫");
+            w.skip(1);
+
+            // === 2. THỐNG KÊ CHUNG ===
+            w.section("THỐNG KÊ CHUNG");
+            w.keyValue("Tổng tour", stats.getTotalTours() + " tour");
+            w.keyValue("Tour đang hoạt động", stats.getActiveTours() + " tour");
+            w.keyValue("Tổng lượt đặt tour", stats.getTotalConfirmedBookings() + " lượt");
+            w.keyValue("Tổng người dùng", stats.getTotalUsers() + " người");
+            w.keyValue("Người dùng mới hôm nay", "+" + stats.getNewUsersToday());
+            w.skip(2);
+
+            // === 3. TOP 10 TOUR PHỔ BIẾN NHẤT ===
+            w.section("TOP 10 TOUR PHỔ BIẾN NHẤT");
+            w.header("STT", "Tên tour", "Điểm đến", "Lượt xem", "Lượt đặt", "Đánh giá");
+            int idx = 1;
+            for (PopularTourDTO tour : stats.getTopPopularTours()) {
+                w.row(idx++, tour.getTourName(), tour.getDestinationName(), tour.getViews(),
+                        tour.getBookingsCount(), tour.getAverageRating() + " ★");
+            }
+            w.skip(2);
+
+            // === 4. TOP 5 TOUR ĐẶT NHIỀU NHẤT ===
+            w.section("TOP 5 TOUR ĐẶT NHIỀU NHẤT");
+            w.header("STT", "Tên tour", "Điểm đến", "Lượt đặt");
+            idx = 1;
+            for (TopBookedTourDTO tour : stats.getTop5BookedTours()) {
+                w.row(idx++, tour.getTourName(), tour.getDestinationName(), tour.getBookingCount());
+            }
+            w.skip(2);
+
+            // === 5. TOP 5 ĐIỂM ĐẾN NỔI BẬT ===
+            w.section("TOP 5 ĐIỂM ĐẾN NỔI BẬT");
+            w.header("STT", "Điểm đến", "Khu vực", "Số tour", "Lượt đặt");
+            idx = 1;
+            for (PopularDestinationDTO dest : stats.getTop5PopularDestinations()) {
+                w.row(idx++, dest.getDestinationName(), regionLabel(dest.getRegion()),
+                        dest.getTourCount(), dest.getBookingCount());
+            }
+            w.skip(2);
+
+            // === 6. 5 ĐƠN ĐẶT TOUR GẦN NHẤT ===
+            w.section("5 ĐƠN ĐẶT TOUR GẦN NHẤT");
+            w.header("Mã đơn", "Khách hàng", "SĐT", "Tour", "Ngày đặt", "Giá trị", "Trạng thái");
+            for (LatestBookingDTO b : stats.getLatestBookings()) {
+                w.row("#" + b.getBookingId(), b.getCustomerName(), b.getCustomerPhone(), b.getTourName(),
+                        b.getBookingDate(), b.getTotalPrice(), statusLabel(b.getStatus()));
+            }
+
+            w.write(out);
+        }
+    }
+
+    // ===================== BOOKING =====================
+
+    public long writeBookings(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        return writeBookings(from, to, out, rows -> {});
+    }
+
+    // Toàn bộ booking có ngày đặt trong [from, to] (null = không giới hạn); trả về số dòng đã ghi.
+    // onProgress nhận số dòng đã ghi sau mỗi trang
+    public long writeBookings(LocalDate from, LocalDate to, OutputStream out, LongConsumer onProgress) throws IOException {
+        long start = System.currentTimeMillis();
+        LocalDateTime fromTime = startOf(from);
+        LocalDateTime toTime = endOf(to);
+
+        long count = 0;
+        try (ExcelReportWriter w = new ExcelReportWriter()) {
+            w.sheet("Booking", 10, 18, 26, 14, 28, 40, 14, 10, 16, 16, 16);
+            w.header("Mã đơn", "Ngày đặt", "Khách hàng", "SĐT", "Email", "Tour", "Khởi hành",
+                    "Số người", "Giá trị", "Trạng thái", "Thanh toán");
+            w.freezeHeader();
+
+            long afterId = 0;
+            List<Object[]> rows;
+            while (!(rows = bookingRepository.findExportRows(afterId, fromTime, toTime,
+                    PageRequest.of(0, pageSize))).isEmpty()) {
+                for (Object[] r : rows) {
+                    w.row(r[0], r[1], r[2], r[3], r[4], r[5], r[6], r[7], r[8],
+                            statusLabel((BookingStatus) r[9]), paymentLabel((PaymentStatus) r[10]));
+                }
+                count += rows.size();
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+                onProgress.accept(count);
+            }
+
+            w.write(out);
+        }
+        log.info("Exported {} bookings in {} ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    public long countBookings(LocalDate from, LocalDate to) {
+        return bookingRepository.countExportRows(startOf(from), endOf(to));
+    }
+
+    // ===================== DOANH THU THEO TOUR =====================
+
+    // Booking CONFIRMED / COMPLETED đặt trong [from, to], mỗi tour 1 dòng; trả về số tour
+    public long writeRevenueByTour(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        List<Object[]> rows = bookingRepository.findRevenueByTour(startOf(from), endOf(to));
+
+        try (ExcelReportWriter w = new ExcelReportWriter()) {
+            w.sheet("Doanh thu theo tour", 10, 40, 24, 12, 12, 20, 20);
+            w.title("DOANH THU THEO TOUR");
+            w.text("Ngày đặt: " + (from != null ? from : "...") + " → " + (to != null ? to : "..."));
+            w.skip(1);
+            w.header("Mã tour", "Tên tour", "Điểm đến", "Số booking", "Số khách",
+                    "Doanh thu thực tế", "Doanh thu dự kiến");
+            w.freezeHeader();
+            for (Object[] r : rows) {
+                w.row(r[0], r[1], r[2], r[3], r[4], r[5], r[6]);
+            }
+            w.write(out);
+        }
+        return rows.size();
+    }
+
+    /* ---- helpers ---- */
+
+    private static LocalDateTime startOf(LocalDate from) {
+        return from != null ? from.atStartOfDay() : null;
+    }
+
+    // Hết ngày "to" (mốc loại trừ)
+    private static LocalDateTime endOf(LocalDate to) {
+        return to != null ? to.plusDays(1).atStartOfDay() : null;
+    }
+
+    private static String statusLabel(BookingStatus status) {
+        return switch (status) {
+            case CONFIRMED -> "Đã xác nhận";
+            case PENDING -> "Chờ thanh toán";
+            case CANCEL_REQUEST -> "Yêu cầu hủy";
+            case CANCELLED -> "Đã hủy";
+            case COMPLETED -> "Hoàn thành";
+            case REJECTED -> "Bị từ chối";
+            case EXPIRED -> "Hết hạn giữ chỗ";
+            case DELETED -> "Đã xóa";
+        };
+    }
+
+    private static String paymentLabel(PaymentStatus status) {
+        if (status == null) return "";
+        return switch (status) {
+            case PENDING -> "Chưa thanh toán";
+            case PAID -> "Đã thanh toán";
+            case FAILED -> "Thất bại";
+            case CANCELLED -> "Đã hủy";
+        };
+    }
+
+    private static String regionLabel(Region region) {
+        return switch (region) {
+            case BAC -> "Miền Bắc";
+            case TRUNG -> "Miền Trung";
+            case NAM -> "Miền Nam";
+        };
+    }
+
+    private static String formatCurrency(Double amount) {
+        if (amount == null) return "0";
+        return String.format("%,.0f", amount);
+    }
+}
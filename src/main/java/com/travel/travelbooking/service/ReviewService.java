@@ -2,6 +2,7 @@ package com.travel.travelbooking.service;
 
 import com.travel.travelbooking.dto.ReviewCreateRequest;
 import com.travel.travelbooking.dto.ReviewDTO;
+import com.travel.travelbooking.payload.CursorPageResponse;
 import org.springframework.data.domain.Page;
 
 import java.util.List;
@@ -10,5 +11,6 @@ public interface ReviewService {
     ReviewDTO createReview(Long tourId, ReviewCreateRequest request, Long userId);
     List<ReviewDTO> getReviewsByTour(Long tourId);
     Page<ReviewDTO> getReviewsByTourPaged(Long tourId, int page, int size);
+    CursorPageResponse<ReviewDTO> getReviewsByTourAfter(Long tourId, String after, int size);
     boolean canUserReviewTour(Long tourId, Long userId);
 }
\ No newline at end of file
@@ -3,12 +3,16 @@ package com.travel.travelbooking.service;
 import com.travel.travelbooking.dto.ReviewCreateRequest;
 import com.travel.travelbooking.dto.ReviewDTO;
 import com.travel.travelbooking.entity.*;
+import com.travel.travelbooking.event.ReviewCreatedEvent;
 import com.travel.travelbooking.exception.ResourceNotFoundException;
+import com.travel.travelbooking.payload.CursorPageResponse;
 import com.travel.travelbooking.repository.BookingRepository;
 import com.travel.travelbooking.repository.ReviewRepository;
 import com.travel.travelbooking.repository.TourRepository;
 import com.travel.travelbooking.repository.UserRepository;
+import com.travel.travelbooking.util.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,6 +31,8 @@ public class ReviewServiceImpl implements ReviewService {
     private final TourRepository tourRepository;
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final TourStatsService tourStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public ReviewDTO createReview(Long tourId, ReviewCreateRequest request, Long userId) {
@@ -61,12 +67,15 @@ public class ReviewServiceImpl implements ReviewService {
         review.setComment(request.getComment());
 
         Review saved = reviewRepository.save(review);
+        tourStatsService.onReviewCreated(tourId, saved.getRating());
 
         // 6. Cập nhật averageRating cho tour
         Double avg = reviewRepository.calculateAverageRating(tourId);
         tour.setAverageRating(avg);
         tourRepository.save(tour);
 
+        eventPublisher.publishEvent(new ReviewCreatedEvent(saved.getId(), tourId, saved.getRating()));
+
         return toDTO(saved);
     }
 
@@ -91,6 +100,25 @@ public class ReviewServiceImpl implements ReviewService {
                 .map(this::toDTO);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ReviewDTO> getReviewsByTourAfter(Long tourId, String after, int size) {
+        if (!tourRepository.existsById(tourId)) {
+            throw new ResourceNotFoundException("Tour không tồn tại");
+        }
+        PageCursor cursor = PageCursor.decode(after);
+
+        List<Review> rows = reviewRepository.findByTourIdBefore(
+                tourId,
+                cursor != null ? cursor.sortKey() : null,
+                cursor != null ? cursor.id() : null,
+                PageCursor.fetchLimit(size)
+        );
+
+        return CursorPageResponse.of(rows, size, r -> new PageCursor(r.getCreatedAt(), r.getId()).encode())
+                .map(this::toDTO);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean canUserReviewTour(Long tourId, Long userId) {
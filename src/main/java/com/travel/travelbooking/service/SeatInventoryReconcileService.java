@@ -0,0 +1,47 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.repository.TourStartDateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Đối soát bộ đếm booked / held của tour_start_dates (nguồn của TourAvailabilityService)
+// với bảng bookings: lúc khởi động (dòng cũ chưa có bộ đếm) và theo lịch.
+// Chỉ các ngày khởi hành chưa qua; mỗi ngày lệch được tính lại trong transaction riêng.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeatInventoryReconcileService {
+
+    private final TourStartDateRepository tourStartDateRepository;
+
+    @Scheduled(cron = "${seat-inventory.reconcile-cron:0 20 3 * * *}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        List<Long> drifted = tourStartDateRepository.findDriftedCounterIds(LocalDate.now());
+        int fixed = 0;
+        for (Long id : drifted) {
+            try {
+                tourStartDateRepository.recomputeCounters(id);
+                fixed++;
+            } catch (Exception e) {
+                log.warn("Recomputing seat counters of start date {} failed: {}", id, e.getMessage());
+            }
+        }
+        if (!drifted.isEmpty()) {
+            log.warn("Seat counters drifted on {} start dates {}, recomputed {}", drifted.size(), drifted, fixed);
+        }
+        log.info("Reconciled seat counters in {} ms", System.currentTimeMillis() - start);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        reconcile();
+    }
+}
@@ -0,0 +1,135 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.entity.Booking;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.entity.SeatAllocation;
+import com.travel.travelbooking.repository.BookingRepository;
+import com.travel.travelbooking.repository.TourStartDateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Quản lý chỗ theo ngày khởi hành:
+//   tạo booking  → giữ chỗ (heldParticipants)
+//   xác nhận     → chuyển chỗ giữ thành chỗ đã đặt (bookedParticipants)
+//   từ chối/hủy  → trả chỗ
+//   quá hạn giữ  → trả chỗ theo lô (HoldExpiryService)
+// Mọi thay đổi là một UPDATE có điều kiện trên dòng tour_start_dates, không đọc-rồi-ghi,
+// nên không thể bán vượt capacity dù nhiều request chạy song song (kể cả nhiều instance).
+@Slf4j
+@Service
+@RequiredArgsConstructor
+// Hết chỗ ném IllegalArgumentException trước khi đổi dữ liệu → không đánh dấu rollback giao dịch ngoài
+// (xử lý hàng loạt chỉ bỏ qua booking đó, các booking khác trong lô vẫn được lưu)
+@Transactional(propagation = Propagation.MANDATORY, noRollbackFor = IllegalArgumentException.class)
+public class SeatInventoryService {
+
+    private final TourStartDateRepository tourStartDateRepository;
+    private final BookingRepository bookingRepository;
+
+    @Value("${booking.hold.ttl-minutes:15}")
+    private long holdTtlMinutes;
+
+    public Duration holdTtl() {
+        return Duration.ofMinutes(holdTtlMinutes);
+    }
+
+    // Giữ chỗ cho booking mới trong holdTtl(); hết chỗ → IllegalArgumentException (400)
+    public void hold(Booking booking) {
+        Long startDateId = booking.getSelectedStartDate().getId();
+        int n = booking.getNumberOfPeople();
+
+        if (tourStartDateRepository.hold(startDateId, n) == 0) {
+            int remaining = Math.max(tourStartDateRepository.findRemainingSeats(startDateId), 0);
+            throw new IllegalArgumentException("Ngày này chỉ còn " + remaining + " chỗ trống");
+        }
+        booking.setSeatAllocation(SeatAllocation.HELD);
+        booking.setHoldExpiresAt(LocalDateTime.now().plus(holdTtl()));
+    }
+
+    // Đã thanh toán → giữ chỗ tới khi nhân viên xác nhận, không hết hạn nữa.
+    // UPDATE có điều kiện để không ghi đè trạng thái EXPIRED nếu job hết hạn vừa chạy trước;
+    // false = booking không còn chờ (xem BookingService.restoreHoldAfterPayment)
+    public boolean keepHold(Booking booking) {
+        return bookingRepository.clearHoldExpiry(booking.getId()) == 1;
+    }
+
+    // Chốt chỗ khi xác nhận; booking cũ chưa giữ chỗ thì đặt thẳng (vẫn kiểm tra capacity)
+    public void commit(Booking booking) {
+        SeatAllocation allocation = allocationOf(booking);
+        if (allocation == SeatAllocation.BOOKED) return;
+
+        Long startDateId = booking.getSelectedStartDate().getId();
+        int n = booking.getNumberOfPeople();
+
+        boolean ok = allocation == SeatAllocation.HELD
+                && tourStartDateRepository.convertHold(startDateId, n) == 1;
+        if (!ok) {
+            if (allocation == SeatAllocation.HELD) {
+                log.warn("Hold of booking {} not found on start date {}, reserving directly", booking.getId(), startDateId);
+            }
+            if (tourStartDateRepository.reserve(startDateId, n) == 0) {
+                throw new IllegalArgumentException("Không đủ chỗ trống ở ngày này để xác nhận");
+            }
+        }
+        booking.setSeatAllocation(SeatAllocation.BOOKED);
+        booking.setHoldExpiresAt(null);
+    }
+
+    // Trả lại chỗ đang giữ / đã đặt
+    public void release(Booking booking) {
+        SeatAllocation allocation = allocationOf(booking);
+        if (allocation == SeatAllocation.NONE) return;
+
+        Long startDateId = booking.getSelectedStartDate().getId();
+        int n = booking.getNumberOfPeople();
+
+        int updated = allocation == SeatAllocation.HELD
+                ? tourStartDateRepository.releaseHold(startDateId, n)
+                : tourStartDateRepository.releaseBooked(startDateId, n);
+        if (updated == 0) {
+            log.warn("Nothing to release for booking {} ({}) on start date {}", booking.getId(), allocation, startDateId);
+        }
+        booking.setSeatAllocation(SeatAllocation.NONE);
+        booking.setHoldExpiresAt(null);
+    }
+
+    // Trả chỗ của nhiều booking đang giữ: gộp theo ngày khởi hành → 1 UPDATE mỗi ngày
+    public void releaseHolds(List<Booking> bookings) {
+        Map<Long, Integer> seatsByStartDate = bookings.stream()
+                .filter(b -> allocationOf(b) == SeatAllocation.HELD)
+                .collect(Collectors.groupingBy(b -> b.getSelectedStartDate().getId(),
+                        Collectors.summingInt(Booking::getNumberOfPeople)));
+
+        seatsByStartDate.forEach((startDateId, n) -> {
+            if (tourStartDateRepository.releaseHold(startDateId, n) == 0) {
+                log.warn("Held seats on start date {} lower than {} being released", startDateId, n);
+            }
+        });
+        bookings.forEach(b -> {
+            b.setSeatAllocation(SeatAllocation.NONE);
+            b.setHoldExpiresAt(null);
+        });
+    }
+
+    // Booking tạo trước khi có cột seat_allocation: suy ra từ trạng thái
+    // (giống cách bookedParticipants được cộng / trừ trước đây)
+    public static SeatAllocation allocationOf(Booking booking) {
+        if (booking.getSeatAllocation() != null) return booking.getSeatAllocation();
+        BookingStatus status = booking.getStatus();
+        return status == BookingStatus.CONFIRMED
+                || status == BookingStatus.COMPLETED
+                || status == BookingStatus.CANCEL_REQUEST
+                ? SeatAllocation.BOOKED
+                : SeatAllocation.NONE;
+    }
+}
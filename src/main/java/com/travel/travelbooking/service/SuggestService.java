@@ -0,0 +1,178 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.SuggestionDTO;
+import com.travel.travelbooking.entity.CategoryStatus;
+import com.travel.travelbooking.entity.DestinationStatus;
+import com.travel.travelbooking.event.CategoryChangedEvent;
+import com.travel.travelbooking.event.DestinationChangedEvent;
+import com.travel.travelbooking.event.TourChangedEvent;
+import com.travel.travelbooking.repository.DestinationRepository;
+import com.travel.travelbooking.repository.TourCategoryRepository;
+import com.travel.travelbooking.repository.TourRepository;
+import com.travel.travelbooking.util.VietnameseText;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Gợi ý khi gõ (typeahead) cho tour / điểm đến / loại tour.
+// Trả lời hoàn toàn từ bộ nhớ: trie (đã bỏ dấu) với top-K gợi ý tính sẵn ở mỗi nút,
+// nên mỗi lần tra chỉ là đi theo các ký tự của câu truy vấn.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SuggestService {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final TourRepository tourRepository;
+    private final DestinationRepository destinationRepository;
+    private final TourCategoryRepository tourCategoryRepository;
+
+    // Dữ liệu nguồn (cập nhật từng phần theo sự kiện)
+    private final Map<Long, TourEntry> tours = new ConcurrentHashMap<>();
+    private final Map<Long, String> destinations = new ConcurrentHashMap<>();
+    private final Map<Long, String> categories = new ConcurrentHashMap<>();
+
+    // Snapshot trie chỉ đọc, thay nguyên khối sau mỗi lần dựng lại
+    private volatile Node root = new Node();
+
+    private record TourEntry(Long id, String name, Long destinationId, Long categoryId, double score) {
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        Set<SuggestionDTO> candidates = new LinkedHashSet<>();   // chỉ dùng khi dựng
+        List<SuggestionDTO> top = List.of();
+    }
+
+    // ===================== TRA CỨU =====================
+
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        String key = String.join(" ", VietnameseText.tokenize(query));
+        if (key.isEmpty()) return List.of();
+
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) return List.of();
+
+        List<SuggestionDTO> top = node.top;
+        return top.subList(0, Math.min(Math.max(limit, 1), top.size()));
+    }
+
+    // ===================== ĐỒNG BỘ =====================
+
+    // Khởi động + làm mới định kỳ để điểm phổ biến (lượt xem, booking) không bị cũ
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${suggest.refresh-interval-ms:600000}",
+            fixedDelayString = "${suggest.refresh-interval-ms:600000}")
+    public synchronized void reloadAll() {
+        Map<Long, TourEntry> tourRows = new HashMap<>();
+        tourRepository.findSuggestRows().forEach(row -> {
+            TourEntry e = toEntry(row);
+            tourRows.put(e.id(), e);
+        });
+        tours.clear();
+        tours.putAll(tourRows);
+
+        destinations.clear();
+        destinationRepository.findByStatus(DestinationStatus.ACTIVE)
+                .forEach(d -> destinations.put(d.getId(), d.getName()));
+
+        categories.clear();
+        tourCategoryRepository.findByStatus(CategoryStatus.ACTIVE)
+                .forEach(c -> categories.put(c.getId(), c.getName()));
+
+        rebuildTrie();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onTourChanged(TourChangedEvent event) {
+        tours.remove(event.tourId());
+        tourRepository.findSuggestRowsByIds(List.of(event.tourId()))
+                .forEach(row -> tours.put(event.tourId(), toEntry(row)));
+        rebuildTrie();
+    }
+
+    // Đổi điểm đến / loại tour có thể kéo theo trạng thái nhiều tour → nạp lại toàn bộ (hiếm khi xảy ra)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDestinationChanged(DestinationChangedEvent event) {
+        reloadAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        reloadAll();
+    }
+
+    /* ---- helpers ---- */
+
+    // row = [id, name, destinationId, categoryId, popularityScore]
+    private TourEntry toEntry(Object[] row) {
+        return new TourEntry((Long) row[0], (String) row[1], (Long) row[2], (Long) row[3],
+                row[4] != null ? ((Number) row[4]).doubleValue() : 0);
+    }
+
+    private void rebuildTrie() {
+        long start = System.nanoTime();
+
+        // Điểm của điểm đến / loại tour = tổng điểm các tour đang hoạt động
+        Map<Long, Double> destinationScores = new HashMap<>();
+        Map<Long, Double> categoryScores = new HashMap<>();
+        for (TourEntry t : tours.values()) {
+            if (t.destinationId() != null) destinationScores.merge(t.destinationId(), t.score(), Double::sum);
+            if (t.categoryId() != null) categoryScores.merge(t.categoryId(), t.score(), Double::sum);
+        }
+
+        Node newRoot = new Node();
+        tours.values().forEach(t ->
+                insert(newRoot, new SuggestionDTO("TOUR", t.id(), t.name(), t.score())));
+        destinations.forEach((id, name) ->
+                insert(newRoot, new SuggestionDTO("DESTINATION", id, name, destinationScores.getOrDefault(id, 0.0))));
+        categories.forEach((id, name) ->
+                insert(newRoot, new SuggestionDTO("CATEGORY", id, name, categoryScores.getOrDefault(id, 0.0))));
+        finish(newRoot);
+
+        root = newRoot;
+        log.debug("Rebuilt suggest trie ({} tours, {} destinations, {} categories) in {} µs",
+                tours.size(), destinations.size(), categories.size(), (System.nanoTime() - start) / 1000);
+    }
+
+    // Chèn theo mọi điểm bắt đầu từ: "Vịnh Hạ Long" khớp cả "vinh", "ha", "long"
+    private void insert(Node root, SuggestionDTO suggestion) {
+        List<String> tokens = VietnameseText.tokenize(suggestion.getLabel());
+        for (int i = 0; i < tokens.size(); i++) {
+            String key = String.join(" ", tokens.subList(i, tokens.size()));
+            Node node = root;
+            for (int c = 0; c < key.length(); c++) {
+                node = node.children.computeIfAbsent(key.charAt(c), k -> new Node());
+                node.candidates.add(suggestion);
+            }
+        }
+    }
+
+    private static final Comparator<SuggestionDTO> RANKING =
+            Comparator.comparingDouble(SuggestionDTO::getScore).reversed()
+                    .thenComparing(SuggestionDTO::getLabel);
+
+    // Chốt top-K cho từng nút, bỏ danh sách ứng viên
+    private void finish(Node node) {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node n = stack.pop();
+            n.top = n.candidates.stream().sorted(RANKING).limit(MAX_SUGGESTIONS).toList();
+            n.candidates = null;
+            n.children.values().forEach(stack::push);
+        }
+    }
+}
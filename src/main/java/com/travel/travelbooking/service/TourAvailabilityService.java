@@ -0,0 +1,97 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.StartDateAvailabilityDTO;
+import com.travel.travelbooking.dto.TourAvailabilityDTO;
+import com.travel.travelbooking.exception.ResourceNotFoundException;
+import com.travel.travelbooking.repository.TourRepository;
+import com.travel.travelbooking.repository.TourStartDateRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+// Tình trạng chỗ theo ngày khởi hành, đọc thẳng bộ đếm booked / held của tour_start_dates
+// (SeatInventoryService duy trì) → một query cho cả lịch của một hoặc nhiều tour.
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TourAvailabilityService {
+
+    public static final int MAX_BATCH_TOURS = 100;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final String[] WEEKDAYS = {"CN", "T2", "T3", "T4", "T5", "T6", "T7"};
+
+    private final TourStartDateRepository tourStartDateRepository;
+    private final TourRepository tourRepository;
+
+    // Toàn bộ lịch của 1 tour; tour không ACTIVE → danh sách rỗng, không tồn tại → 404
+    public List<StartDateAvailabilityDTO> getStartDates(Long tourId) {
+        List<Object[]> rows = tourStartDateRepository.findAvailabilityRows(List.of(tourId), null, null);
+        if (rows.isEmpty() && !tourRepository.existsById(tourId)) {
+            throw new ResourceNotFoundException("Tour không tồn tại");
+        }
+        return rows.stream().map(this::toDTO).toList();
+    }
+
+    // Nhiều tour cùng lúc (trang danh sách); from mặc định hôm nay.
+    // Mỗi id được hỏi có đúng 1 phần tử theo thứ tự đã hỏi; tour không ACTIVE / không có ngày → rỗng, soldOut
+    public List<TourAvailabilityDTO> getAvailability(Collection<Long> tourIds, LocalDate from, LocalDate to) {
+        if (tourIds == null || tourIds.isEmpty()) return List.of();
+        if (tourIds.size() > MAX_BATCH_TOURS) {
+            throw new IllegalArgumentException("Tối đa " + MAX_BATCH_TOURS + " tour mỗi lần");
+        }
+        LocalDate effectiveFrom = from != null ? from : LocalDate.now();
+        if (to != null && to.isBefore(effectiveFrom)) {
+            throw new IllegalArgumentException("Khoảng ngày không hợp lệ");
+        }
+
+        Map<Long, List<StartDateAvailabilityDTO>> byTour = new LinkedHashMap<>();
+        tourIds.forEach(id -> byTour.putIfAbsent(id, new ArrayList<>()));
+        for (Object[] row : tourStartDateRepository.findAvailabilityRows(byTour.keySet(), effectiveFrom, to)) {
+            byTour.get((Long) row[0]).add(toDTO(row));
+        }
+
+        List<TourAvailabilityDTO> result = new ArrayList<>(byTour.size());
+        byTour.forEach((tourId, dates) -> {
+            StartDateAvailabilityDTO next = dates.stream()
+                    .filter(StartDateAvailabilityDTO::isAvailable)
+                    .findFirst()
+                    .orElse(null);
+            result.add(new TourAvailabilityDTO(
+                    tourId,
+                    next != null ? next.getDate() : null,
+                    next != null ? next.getRemainingSeats() : 0,
+                    next == null,
+                    dates
+            ));
+        });
+        return result;
+    }
+
+    /* ---- helpers ---- */
+
+    // row = [tourId, startDate, capacity, bookedParticipants, heldParticipants]
+    private StartDateAvailabilityDTO toDTO(Object[] row) {
+        LocalDate date = (LocalDate) row[1];
+        int held = (Integer) row[4];
+        int remaining = (Integer) row[2] - (Integer) row[3] - held;
+
+        StartDateAvailabilityDTO dto = new StartDateAvailabilityDTO();
+        dto.setDate(date);
+        dto.setFormattedDate(formatVietnameseDate(date));
+        dto.setRemainingSeats(Math.max(remaining, 0));
+        dto.setHeldSeats(held);
+        dto.setAvailable(remaining > 0);
+        return dto;
+    }
+
+    private String formatVietnameseDate(LocalDate date) {
+        if (date == null) return "";
+        int dayOfWeek = date.getDayOfWeek().getValue() % 7; // Chủ nhật = 0
+        return date.format(DATE_FORMAT) + " (" + WEEKDAYS[dayOfWeek] + ")";
+    }
+}
@@ -1,11 +1,15 @@
 package com.travel.travelbooking.service;
 
+import com.travel.travelbooking.config.CacheConfig;
 import com.travel.travelbooking.dto.TourCategoryDTO;
 import com.travel.travelbooking.entity.CategoryStatus;
 import com.travel.travelbooking.entity.TourCategory;
+import com.travel.travelbooking.event.CategoryChangedEvent;
 import com.travel.travelbooking.exception.ResourceNotFoundException;
 import com.travel.travelbooking.repository.TourCategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,8 +22,10 @@ import java.util.List;
 public class TourCategoryServiceImpl implements TourCategoryService {
 
     private final TourCategoryRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Cacheable(CacheConfig.ACTIVE_CATEGORIES)
     public List<TourCategoryDTO> getActiveCategories() {
         return repository.findByStatusOrderByDisplayOrderAsc(CategoryStatus.ACTIVE)
                 .stream()
@@ -46,7 +52,9 @@ public class TourCategoryServiceImpl implements TourCategoryService {
         }
         TourCategory entity = new TourCategory();
         copyDtoToEntity(dto, entity);
-        return toDTO(repository.save(entity));
+        TourCategory saved = repository.save(entity);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
+        return toDTO(saved);
     }
 
     @Override
@@ -60,7 +68,9 @@ public class TourCategoryServiceImpl implements TourCategoryService {
         }
 
         copyDtoToEntity(dto, entity);
-        return toDTO(repository.save(entity));
+        TourCategory saved = repository.save(entity);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+        return toDTO(saved);
     }
 
     @Override
@@ -70,6 +80,7 @@ public class TourCategoryServiceImpl implements TourCategoryService {
                 .orElseThrow(() -> new ResourceNotFoundException("Loại tour không tồn tại"));
         category.setStatus(CategoryStatus.INACTIVE);
         repository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
     private void copyDtoToEntity(TourCategoryDTO dto, TourCategory entity) {
@@ -5,7 +5,9 @@ import com.travel.travelbooking.dto.TransportDTO;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface TourDetailService {
 
@@ -23,6 +25,9 @@ public interface TourDetailService {
 
     TourDetailDTO getTourDetailDTO(Long tourId);
 
+    // Load chi tiết cho nhiều tour với số query cố định (key = tourId, tour chưa có chi tiết thì không có key)
+    Map<Long, TourDetailDTO> getTourDetailDTOs(Collection<Long> tourIds);
+
     void deleteAdditionalImage(Long tourId, String imageUrl);
     void deleteVideo(Long tourId, String videoUrl);
 }
\ No newline at end of file
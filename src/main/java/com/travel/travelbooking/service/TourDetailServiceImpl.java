@@ -4,18 +4,20 @@ import com.travel.travelbooking.dto.HotelDTO;
 import com.travel.travelbooking.dto.TourDetailDTO;
 import com.travel.travelbooking.dto.TransportDTO;
 import com.travel.travelbooking.entity.*;
+import com.travel.travelbooking.event.TourChangedEvent;
 import com.travel.travelbooking.exception.ResourceNotFoundException;
 import com.travel.travelbooking.repository.HotelRepository;
 import com.travel.travelbooking.repository.TourDetailRepository;
 import com.travel.travelbooking.repository.TourRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +27,7 @@ public class TourDetailServiceImpl implements TourDetailService {
     private final TourRepository tourRepository;
     private final HotelRepository hotelRepository;
     private final CloudinaryService cloudinaryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // CREATE / UPDATE → TRẢ DTO NGAY TRONG @Transactional
     @Override
@@ -114,6 +117,9 @@ public class TourDetailServiceImpl implements TourDetailService {
             tourRepository.save(tour);
         }
 
+        // Lịch trình thay đổi → cập nhật chỉ mục tìm kiếm
+        eventPublisher.publishEvent(new TourChangedEvent(tourId));
+
         // 9. Trả DTO + load thông tin khách sạn đầy đủ
         TourDetailDTO dto = mapToDTO(savedDetail);
         enhanceWithHotels(savedDetail, dto);
@@ -132,6 +138,47 @@ public class TourDetailServiceImpl implements TourDetailService {
         return dto;
     }
 
+    // GET DETAIL HÀNG LOẠT → 4 query cho TourDetail + 2 query cho Hotel, bất kể số tour
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, TourDetailDTO> getTourDetailDTOs(Collection<Long> tourIds) {
+        if (tourIds == null || tourIds.isEmpty()) return Map.of();
+
+        // 1. TourDetail + transports
+        List<TourDetail> details = tourDetailRepository.findAllByTourIdInWithTransports(tourIds);
+        if (details.isEmpty()) return Map.of();
+
+        // 2. Các collection còn lại (khởi tạo trên cùng entity đã load)
+        tourDetailRepository.fetchSelectedHotelIds(details);
+        tourDetailRepository.fetchAdditionalImages(details);
+        tourDetailRepository.fetchVideos(details);
+
+        // 3. Toàn bộ khách sạn được chọn của các tour
+        Set<Long> hotelIds = details.stream()
+                .flatMap(d -> d.getSelectedHotelIds().stream())
+                .collect(Collectors.toSet());
+        Map<Long, HotelDTO> hotelMap = new HashMap<>();
+        if (!hotelIds.isEmpty()) {
+            List<Hotel> hotels = hotelRepository.findAllByIdInWithImages(hotelIds);
+            hotelRepository.fetchVideos(hotels);
+            hotelMap = hotels.stream().collect(Collectors.toMap(Hotel::getId, this::mapHotelToDTO));
+        }
+
+        // 4. Map DTO theo tourId
+        Map<Long, TourDetailDTO> result = new HashMap<>();
+        for (TourDetail detail : details) {
+            TourDetailDTO dto = mapToDTO(detail);
+            if (!detail.getSelectedHotelIds().isEmpty()) {
+                dto.setSelectedHotels(detail.getSelectedHotelIds().stream()
+                        .map(hotelMap::get)
+                        .filter(Objects::nonNull)
+                        .toList());
+            }
+            result.put(detail.getTour().getId(), dto);
+        }
+        return result;
+    }
+
     // DELETE IMAGE
     @Override
     @Transactional
@@ -140,6 +187,8 @@ public class TourDetailServiceImpl implements TourDetailService {
                 .orElseThrow(() -> new ResourceNotFoundException("Chi tiết tour không tồn tại"));
         detail.getAdditionalImages().remove(imageUrl);
         tourDetailRepository.save(detail);
+
+        eventPublisher.publishEvent(new TourChangedEvent(tourId));
     }
 
     // DELETE VIDEO
@@ -150,6 +199,8 @@ public class TourDetailServiceImpl implements TourDetailService {
                 .orElseThrow(() -> new ResourceNotFoundException("Chi tiết tour không tồn tại"));
         detail.getVideos().remove(videoUrl);
         tourDetailRepository.save(detail);
+
+        eventPublisher.publishEvent(new TourChangedEvent(tourId));
     }
 
     // === PRIVATE HELPER METHODS ===
@@ -0,0 +1,260 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.FacetCountDTO;
+import com.travel.travelbooking.dto.TourFacetsDTO;
+import com.travel.travelbooking.entity.Region;
+import com.travel.travelbooking.entity.TourStatus;
+import com.travel.travelbooking.event.CategoryChangedEvent;
+import com.travel.travelbooking.event.DestinationChangedEvent;
+import com.travel.travelbooking.event.TourChangedEvent;
+import com.travel.travelbooking.repository.TourRepository;
+import com.travel.travelbooking.util.VietnameseText;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Chỉ mục bitmap cho bộ lọc tour: mỗi giá trị facet (loại tour, vùng, điểm đến, thời lượng,
+// khoảng giá, trạng thái) là một BitSet trên id tour. Đếm facet = AND các BitSet + cardinality,
+// thay cho nhiều query GROUP BY. Đồng bộ theo sự kiện thay đổi tour / điểm đến / loại tour.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TourFacetService {
+
+    // Khoảng giá (VNĐ), cận dưới tính vào, cận trên không tính
+    public enum PriceBand {
+        UNDER_2M(0, 2_000_000, "Dưới 2 triệu"),
+        FROM_2M_TO_5M(2_000_000, 5_000_000, "2 - 5 triệu"),
+        FROM_5M_TO_10M(5_000_000, 10_000_000, "5 - 10 triệu"),
+        FROM_10M_TO_20M(10_000_000, 20_000_000, "10 - 20 triệu"),
+        OVER_20M(20_000_000, Double.MAX_VALUE, "Trên 20 triệu");
+
+        final double min;
+        final double max;
+        final String label;
+
+        PriceBand(double min, double max, String label) {
+            this.min = min;
+            this.max = max;
+            this.label = label;
+        }
+
+        static PriceBand of(double price) {
+            for (PriceBand b : values()) {
+                if (price < b.max) return b;
+            }
+            return OVER_20M;
+        }
+    }
+
+    private record FacetDoc(TourStatus status, double price, String duration,
+                            Long destinationId, Region region, Long categoryId) {
+    }
+
+    private final TourRepository tourRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, FacetDoc> docs = new HashMap<>();
+    private final BitSet all = new BitSet();
+    private final Map<TourStatus, BitSet> byStatus = new EnumMap<>(TourStatus.class);
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final Map<Region, BitSet> byRegion = new EnumMap<>(Region.class);
+    private final Map<Long, BitSet> byDestination = new HashMap<>();
+    private final Map<String, BitSet> byDuration = new TreeMap<>();
+    private final Map<PriceBand, BitSet> byPriceBand = new EnumMap<>(PriceBand.class);
+
+    // Nhãn hiển thị
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<Long, String> destinationNames = new HashMap<>();
+
+    // ===================== ĐẾM FACET =====================
+
+    public TourFacetsDTO computeFacets(String destinationName, TourStatus status,
+                                       Double minPrice, Double maxPrice, Long categoryId) {
+        lock.readLock().lock();
+        try {
+            BitSet base = copy(status != null ? byStatus.get(status) : all);
+            BitSet destFilter = destinationFilter(destinationName);
+            BitSet catFilter = categoryId != null ? copy(byCategory.get(categoryId)) : null;
+            BitSet priceFilter = priceFilter(minPrice, maxPrice);
+
+            BitSet matching = and(base, destFilter, catFilter, priceFilter);
+
+            return new TourFacetsDTO(
+                    matching.cardinality(),
+                    sortByCount(count(byCategory, and(base, destFilter, priceFilter),
+                            String::valueOf, id -> categoryNames.getOrDefault(id, ""))),
+                    count(byRegion, matching, Region::name, Region::name),
+                    sortByCount(count(byDestination, and(base, catFilter, priceFilter),
+                            String::valueOf, id -> destinationNames.getOrDefault(id, ""))),
+                    sortByCount(count(byDuration, matching, d -> d, d -> d)),
+                    count(byPriceBand, and(base, destFilter, catFilter), PriceBand::name, b -> b.label)
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== ĐỒNG BỘ =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = tourRepository.findFacetRows();
+
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            all.clear();
+            byStatus.clear();
+            byCategory.clear();
+            byRegion.clear();
+            byDestination.clear();
+            byDuration.clear();
+            byPriceBand.clear();
+            categoryNames.clear();
+            destinationNames.clear();
+            rows.forEach(this::indexRow);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built tour facet index: {} tours in {} ms", rows.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        reindex(List.of(event.tourId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDestinationChanged(DestinationChangedEvent event) {
+        reindex(tourRepository.findIdsByDestinationId(event.destinationId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        reindex(tourRepository.findIdsByCategoryId(event.categoryId()));
+    }
+
+    public void reindex(Collection<Long> tourIds) {
+        if (tourIds.isEmpty()) return;
+        List<Object[]> rows = tourRepository.findFacetRowsByIds(tourIds);
+
+        lock.writeLock().lock();
+        try {
+            tourIds.forEach(this::removeDoc);   // tour đã xóa không còn trong rows
+            rows.forEach(this::indexRow);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* ---- helpers (gọi khi đang giữ lock) ---- */
+
+    // row = [id, status, price, duration, destinationId, destinationName, region, categoryId, categoryName]
+    private void indexRow(Object[] row) {
+        Long id = (Long) row[0];
+        FacetDoc doc = new FacetDoc(
+                (TourStatus) row[1],
+                row[2] != null ? (Double) row[2] : 0,
+                (String) row[3],
+                (Long) row[4],
+                (Region) row[6],
+                (Long) row[7]
+        );
+        if (doc.destinationId() != null) destinationNames.put(doc.destinationId(), (String) row[5]);
+        if (doc.categoryId() != null) categoryNames.put(doc.categoryId(), (String) row[8]);
+
+        int bit = bit(id);
+        docs.put(id, doc);
+        all.set(bit);
+        forEachValue(doc, set -> set.set(bit));
+    }
+
+    private void removeDoc(Long id) {
+        FacetDoc doc = docs.remove(id);
+        if (doc == null) return;
+        int bit = bit(id);
+        all.clear(bit);
+        forEachValue(doc, set -> set.clear(bit));
+    }
+
+    private void forEachValue(FacetDoc doc, Consumer<BitSet> action) {
+        action.accept(byStatus.computeIfAbsent(doc.status(), k -> new BitSet()));
+        action.accept(byPriceBand.computeIfAbsent(PriceBand.of(doc.price()), k -> new BitSet()));
+        if (doc.categoryId() != null) action.accept(byCategory.computeIfAbsent(doc.categoryId(), k -> new BitSet()));
+        if (doc.region() != null) action.accept(byRegion.computeIfAbsent(doc.region(), k -> new BitSet()));
+        if (doc.destinationId() != null) action.accept(byDestination.computeIfAbsent(doc.destinationId(), k -> new BitSet()));
+        if (doc.duration() != null) action.accept(byDuration.computeIfAbsent(doc.duration(), k -> new BitSet()));
+    }
+
+    // Id tự tăng → dùng trực tiếp làm vị trí bit
+    private static int bit(Long id) {
+        return Math.toIntExact(id);
+    }
+
+    // Giống LIKE '%name%' của findFilteredTours (collation MySQL không phân biệt dấu)
+    private BitSet destinationFilter(String destinationName) {
+        if (destinationName == null || destinationName.isBlank()) return null;
+        String needle = VietnameseText.fold(destinationName.trim());
+        BitSet result = new BitSet();
+        destinationNames.forEach((id, name) -> {
+            if (VietnameseText.fold(name).contains(needle)) {
+                BitSet set = byDestination.get(id);
+                if (set != null) result.or(set);
+            }
+        });
+        return result;
+    }
+
+    private BitSet priceFilter(Double minPrice, Double maxPrice) {
+        if (minPrice == null && maxPrice == null) return null;
+        BitSet result = new BitSet();
+        docs.forEach((id, doc) -> {
+            if ((minPrice == null || doc.price() >= minPrice) && (maxPrice == null || doc.price() <= maxPrice)) {
+                result.set(bit(id));
+            }
+        });
+        return result;
+    }
+
+    private static BitSet copy(BitSet set) {
+        return set != null ? (BitSet) set.clone() : new BitSet();
+    }
+
+    // AND các bộ lọc (null = không lọc); base không bị thay đổi
+    private static BitSet and(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet f : filters) {
+            if (f != null) result.and(f);
+        }
+        return result;
+    }
+
+    private static <K> List<FacetCountDTO> count(Map<K, BitSet> facet, BitSet scope,
+                                                 Function<K, String> key, Function<K, String> label) {
+        List<FacetCountDTO> result = new ArrayList<>();
+        facet.forEach((value, set) -> {
+            BitSet hits = (BitSet) set.clone();
+            hits.and(scope);
+            int n = hits.cardinality();
+            if (n > 0) result.add(new FacetCountDTO(key.apply(value), label.apply(value), n));
+        });
+        return result;
+    }
+
+    private static List<FacetCountDTO> sortByCount(List<FacetCountDTO> counts) {
+        counts.sort(Comparator.comparingLong(FacetCountDTO::getCount).reversed());
+        return counts;
+    }
+}
@@ -0,0 +1,203 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.event.CategoryChangedEvent;
+import com.travel.travelbooking.event.DestinationChangedEvent;
+import com.travel.travelbooking.event.TourChangedEvent;
+import com.travel.travelbooking.repository.TourRepository;
+import com.travel.travelbooking.util.VietnameseText;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Chỉ mục đảo ngược (inverted index) trong bộ nhớ cho tìm kiếm tour:
+// - bỏ dấu tiếng Việt ("ha long" khớp "Hạ Long")
+// - xếp hạng theo trường (tên > điểm đến > loại tour > mô tả > lịch trình) × độ hiếm của từ
+// - khớp tiền tố và chịu lỗi gõ (sai 1-2 ký tự)
+// Dựng lại từ DB khi khởi động, cập nhật từng tour qua TourChangedEvent
+// (và các tour liên quan khi điểm đến / loại tour thay đổi).
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TourSearchService {
+
+    // Trọng số theo trường
+    private static final float W_NAME = 4f;
+    private static final float W_DESTINATION = 3f;
+    private static final float W_CATEGORY = 2f;
+    private static final float W_DESCRIPTION = 1f;
+    private static final float W_ITINERARY = 0.5f;
+
+    // Hệ số theo kiểu khớp
+    private static final float EXACT = 1f;
+    private static final float PREFIX = 0.7f;
+    private static final float FUZZY = 0.5f;
+
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    private final TourRepository tourRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // term → (tourId → trọng số cao nhất của term trong tour)
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // tourId → các term của tour (để gỡ khi cập nhật / xóa)
+    private final Map<Long, Set<String>> docTerms = new HashMap<>();
+
+    // ===================== TÌM KIẾM =====================
+
+    // Trả về id tour theo thứ tự liên quan giảm dần; mọi từ trong câu truy vấn đều phải khớp
+    public List<Long> search(String query) {
+        List<String> tokens = VietnameseText.tokenize(query);
+        if (tokens.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String token : tokens) {
+                Map<Long, Float> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, s) -> s + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) return List.of();
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Float>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== ĐỒNG BỘ =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = tourRepository.findSearchRows();
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docTerms.clear();
+            rows.forEach(this::indexRow);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built tour search index: {} tours, {} terms in {} ms",
+                rows.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        reindex(List.of(event.tourId()));
+    }
+
+    // Tên điểm đến / loại tour nằm trong chỉ mục của từng tour
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDestinationChanged(DestinationChangedEvent event) {
+        reindex(tourRepository.findIdsByDestinationId(event.destinationId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        reindex(tourRepository.findIdsByCategoryId(event.categoryId()));
+    }
+
+    public void reindex(Collection<Long> tourIds) {
+        if (tourIds.isEmpty()) return;
+        List<Object[]> rows = tourRepository.findSearchRowsByIds(tourIds);
+
+        lock.writeLock().lock();
+        try {
+            tourIds.forEach(this::removeDoc);   // tour đã xóa không còn trong rows
+            rows.forEach(this::indexRow);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* ---- helpers (gọi khi đang giữ lock) ---- */
+
+    // row = [id, name, description, destinationName, categoryName, itinerary]
+    private void indexRow(Object[] row) {
+        Long id = (Long) row[0];
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, (String) row[1], W_NAME);
+        addField(weights, (String) row[3], W_DESTINATION);
+        addField(weights, (String) row[4], W_CATEGORY);
+        addField(weights, (String) row[2], W_DESCRIPTION);
+        addField(weights, (String) row[5], W_ITINERARY);
+
+        weights.forEach((term, w) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(id, w));
+        docTerms.put(id, weights.keySet());
+    }
+
+    private void addField(Map<String, Float> weights, String text, float weight) {
+        for (String term : VietnameseText.tokenize(text)) {
+            weights.merge(term, weight, Math::max);
+        }
+    }
+
+    private void removeDoc(Long id) {
+        Set<String> terms = docTerms.remove(id);
+        if (terms == null) return;
+        for (String term : terms) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs == null) continue;
+            docs.remove(id);
+            if (docs.isEmpty()) postings.remove(term);
+        }
+    }
+
+    // Điểm của 1 từ truy vấn cho từng tour: khớp đúng > tiền tố > gần đúng (chỉ khi không có 2 loại trên)
+    private Map<Long, Float> scoreToken(String token) {
+        Map<Long, Float> scores = new HashMap<>();
+
+        int seen = 0;
+        for (Map.Entry<String, Map<Long, Float>> e : postings.tailMap(token, true).entrySet()) {
+            String term = e.getKey();
+            if (!term.startsWith(token) || seen++ >= MAX_PREFIX_TERMS) break;
+            accumulate(scores, e.getValue(), term.equals(token) ? EXACT : PREFIX);
+        }
+
+        if (scores.isEmpty() && token.length() >= 4) {
+            int maxEdits = token.length() >= 8 ? 2 : 1;
+            // Giả định ký tự đầu gõ đúng → chỉ quét các term cùng chữ cái đầu
+            String first = token.substring(0, 1);
+            for (Map.Entry<String, Map<Long, Float>> e : postings.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                if (VietnameseText.editDistance(token, e.getKey(), maxEdits) <= maxEdits) {
+                    accumulate(scores, e.getValue(), FUZZY);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void accumulate(Map<Long, Float> scores, Map<Long, Float> docs, float matchFactor) {
+        // idf: từ càng hiếm càng có giá trị phân biệt
+        float idf = (float) Math.log(1 + (double) docTerms.size() / docs.size());
+        docs.forEach((id, w) -> scores.merge(id, w * matchFactor * idf, Math::max));
+    }
+}
@@ -1,8 +1,10 @@
 package com.travel.travelbooking.service;
 
 import com.travel.travelbooking.dto.TourDTO;
+import com.travel.travelbooking.dto.TourFilterResultDTO;
 import com.travel.travelbooking.dto.TourStatsDTO;
 import com.travel.travelbooking.entity.TourStatus;
+import com.travel.travelbooking.payload.CursorPageResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -37,6 +39,16 @@ public interface TourService {
                                    Double minPrice, Double maxPrice,
                                    Long categoryId, int page);
 
+    // 5a. Lọc tour + số lượng theo từng nhóm lọc (facet)
+    TourFilterResultDTO getFilteredToursWithFacets(String destinationName, TourStatus status,
+                                                   Double minPrice, Double maxPrice,
+                                                   Long categoryId, int page);
+
+    // 5b. Lọc tour – phân trang keyset (cursor)
+    CursorPageResponse<TourDTO> getFilteredToursAfter(String destinationName, TourStatus status,
+                                                      Double minPrice, Double maxPrice,
+                                                      Long categoryId, String after, int size);
+
     // 9. Thống kê tour
     TourStatsDTO getTourStats();
 
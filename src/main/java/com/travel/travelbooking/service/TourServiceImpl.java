@@ -1,12 +1,23 @@
 package com.travel.travelbooking.service;
 
+import com.travel.travelbooking.config.CacheConfig;
 import com.travel.travelbooking.dto.TourDTO;
+import com.travel.travelbooking.dto.TourDetailDTO;
+import com.travel.travelbooking.dto.TourFilterResultDTO;
 import com.travel.travelbooking.dto.TourStatsDTO;
 import com.travel.travelbooking.entity.*;
+import com.travel.travelbooking.event.TourChangedEvent;
 import com.travel.travelbooking.exception.ResourceNotFoundException;
+import com.travel.travelbooking.payload.CursorPageResponse;
 import com.travel.travelbooking.repository.*;
+import com.travel.travelbooking.util.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,6 +30,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +43,11 @@ public class TourServiceImpl implements TourService {
     private final TourStartDateRepository tourStartDateRepository;
     private final CloudinaryService cloudinaryService;
     private final TourDetailService tourDetailService;
+    private final ViewCounterService viewCounterService;
+    private final TourSearchService tourSearchService;
+    private final TourFacetService tourFacetService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
     private final BookingRepository bookingRepository; // THÊM ĐỂ CHECK BOOKING THEO NGÀY
 
     // ====================== PUBLIC METHODS ======================
@@ -65,6 +82,7 @@ public class TourServiceImpl implements TourService {
         }
 
         tourRepository.save(tour);
+        eventPublisher.publishEvent(new TourChangedEvent(tour.getId()));
         return findWithEnhancements(tour.getId());
     }
 
@@ -77,17 +95,27 @@ public class TourServiceImpl implements TourService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public TourDTO getTourById(Long id) {
         validateId(id);
 
-        // TĂNG LƯỢT XEM (native query - hiệu suất cao)
-        tourRepository.incrementViews(id);
+        // Đọc qua cache (CatalogCacheService xóa khi tour / điểm đến / loại tour / khách sạn thay đổi)
+        Cache cache = tourByIdCache();
+        TourDTO cached = cache.get(id, TourDTO.class);
+        if (cached == null) {
+            cached = tourRepository.findByIdWithCounts(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Tour không tồn tại hoặc đã bị xóa"));
+            enhanceWithDetails(List.of(cached));
+            cache.put(id, cached);
+        }
 
-        TourDTO dto = tourRepository.findByIdWithCounts(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Tour không tồn tại hoặc đã bị xóa"));
+        // TĂNG LƯỢT XEM (đếm trong bộ nhớ, ViewCounterService ghi dồn xuống DB)
+        viewCounterService.incrementTourView(id);
 
-        enhanceWithDetails(List.of(dto));
+        // Bản sao nông: không sửa object đang nằm trong cache
+        TourDTO dto = new TourDTO();
+        BeanUtils.copyProperties(cached, dto);
+        dto.setViews(cached.getViews() + viewCounterService.pendingTourViews(id));
         return dto;
     }
 
@@ -98,9 +126,21 @@ public class TourServiceImpl implements TourService {
             throw new IllegalArgumentException("Tên tìm kiếm không được để trống");
         }
         Pageable pageable = PageRequest.of(page, 10);
-        Page<TourDTO> result = tourRepository.findByNameContainingIgnoreCaseWithCountsAndPageable(name, pageable);
-        enhanceWithDetails(result.getContent());
-        return result;
+
+        // Xếp hạng từ chỉ mục trong bộ nhớ, chỉ query DB cho các tour của trang hiện tại
+        List<Long> rankedIds = tourSearchService.search(name);
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        List<Long> pageIds = rankedIds.subList(from, to);
+
+        List<TourDTO> content = new ArrayList<>();
+        if (!pageIds.isEmpty()) {
+            Map<Long, TourDTO> byId = tourRepository.findByIdsWithCounts(pageIds).stream()
+                    .collect(Collectors.toMap(TourDTO::getId, t -> t));
+            pageIds.stream().map(byId::get).filter(Objects::nonNull).forEach(content::add);
+        }
+        enhanceWithDetails(content);
+        return new PageImpl<>(content, pageable, rankedIds.size());
     }
 
     @Override
@@ -181,10 +221,11 @@ public class TourServiceImpl implements TourService {
 
         // 3) ĐỒNG BỘ CAPACITY THEO maxParticipants MỚI
         for (TourStartDate tsd : existingDates) {
-            if (dto.getMaxParticipants() < tsd.getBookedParticipants()) {
+            int taken = tsd.getBookedParticipants() + tsd.getHeldParticipants();
+            if (dto.getMaxParticipants() < taken) {
                 throw new IllegalArgumentException(
                         "Số chỗ tối đa mới (" + dto.getMaxParticipants() +
-                                ") nhỏ hơn số khách đã đặt (" + tsd.getBookedParticipants() +
+                                ") nhỏ hơn số khách đã đặt (" + taken +
                                 ") cho ngày " + tsd.getStartDate()
                 );
             }
@@ -193,6 +234,7 @@ public class TourServiceImpl implements TourService {
         // ================== HẾT PHẦN CẬP NHẬT NGÀY ==================
 
         tourRepository.save(tour);
+        eventPublisher.publishEvent(new TourChangedEvent(id));
         return findWithEnhancements(id);
     }
 
@@ -204,6 +246,7 @@ public class TourServiceImpl implements TourService {
                 .orElseThrow(() -> new ResourceNotFoundException("Tour không tồn tại"));
         tour.setStatus(TourStatus.DELETED);
         tourRepository.save(tour);
+        eventPublisher.publishEvent(new TourChangedEvent(id));
     }
 
     @Override
@@ -223,6 +266,37 @@ public class TourServiceImpl implements TourService {
         return result;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public TourFilterResultDTO getFilteredToursWithFacets(String destinationName, TourStatus status,
+                                                          Double minPrice, Double maxPrice,
+                                                          Long categoryId, int page) {
+        Page<TourDTO> result = getFilteredTours(destinationName, status, minPrice, maxPrice, categoryId, page);
+        return new TourFilterResultDTO(
+                result,
+                tourFacetService.computeFacets(destinationName, status, minPrice, maxPrice, categoryId)
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TourDTO> getFilteredToursAfter(String destinationName, TourStatus status,
+                                                             Double minPrice, Double maxPrice,
+                                                             Long categoryId, String after, int size) {
+        validatePriceRange(minPrice, maxPrice);
+        PageCursor cursor = PageCursor.decode(after);
+
+        List<TourDTO> rows = tourRepository.findFilteredToursAfter(
+                destinationName, status, minPrice, maxPrice, categoryId,
+                cursor != null ? cursor.id() : null,
+                PageCursor.fetchLimit(size)
+        );
+
+        CursorPageResponse<TourDTO> result = CursorPageResponse.of(rows, size, t -> PageCursor.ofId(t.getId()).encode());
+        enhanceWithDetails(result.content());
+        return result;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public TourStatsDTO getTourStats() {
@@ -253,11 +327,13 @@ public class TourServiceImpl implements TourService {
     private void enhanceWithDetails(List<TourDTO> dtos) {
         if (dtos == null || dtos.isEmpty()) return;
 
-        // 1. Load TourDetail
-        dtos.forEach(dto -> dto.setTourDetail(tourDetailService.getTourDetailDTO(dto.getId())));
+        List<Long> tourIds = dtos.stream().map(TourDTO::getId).toList();
+
+        // 1. Load TourDetail (số query cố định cho tất cả tour)
+        Map<Long, TourDetailDTO> detailMap = tourDetailService.getTourDetailDTOs(tourIds);
+        dtos.forEach(dto -> dto.setTourDetail(detailMap.get(dto.getId())));
 
         // 2. Load StartDates (1 query cho tất cả tour)
-        List<Long> tourIds = dtos.stream().map(TourDTO::getId).toList();
         List<TourStartDate> allStartDates = tourStartDateRepository.findByTourIdIn(tourIds);
 
         Map<Long, List<LocalDate>> startDatesMap = allStartDates.stream()
@@ -272,6 +348,10 @@ public class TourServiceImpl implements TourService {
         });
     }
 
+    private Cache tourByIdCache() {
+        return Objects.requireNonNull(cacheManager.getCache(CacheConfig.TOUR_BY_ID));
+    }
+
     private TourDTO findWithEnhancements(Long id) {
         TourDTO dto = tourRepository.findByIdWithCounts(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Tour không tồn tại"));
@@ -0,0 +1,63 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.entity.Booking;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.repository.TourStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Duy trì bảng tour_stats: cập nhật từng bước khi booking / review thay đổi,
+// và đối soát lại toàn bộ từ bảng gốc theo lịch
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TourStatsService {
+
+    // Giống điều kiện JOIN cũ: chỉ tính booking CONFIRMED / COMPLETED
+    static final Set<BookingStatus> COUNTED_STATUSES =
+            EnumSet.of(BookingStatus.CONFIRMED, BookingStatus.COMPLETED);
+
+    private final TourStatsRepository tourStatsRepository;
+
+    // Gọi trong cùng transaction với việc đổi trạng thái booking
+    public void onBookingStatusChanged(Booking booking, BookingStatus oldStatus) {
+        boolean countedBefore = oldStatus != null && COUNTED_STATUSES.contains(oldStatus);
+        boolean countedAfter = COUNTED_STATUSES.contains(booking.getStatus());
+        if (countedBefore == countedAfter) return;
+
+        int sign = countedAfter ? 1 : -1;
+        tourStatsRepository.addBookings(
+                booking.getTour().getId(),
+                sign,
+                (long) sign * booking.getNumberOfPeople()
+        );
+    }
+
+    public void onReviewCreated(Long tourId, int rating) {
+        tourStatsRepository.addReviews(tourId, 1, rating);
+    }
+
+    // Đối soát định kỳ (mặc định 3h sáng)
+    @Scheduled(cron = "${tour-stats.rebuild-cron:0 0 3 * * *}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long drifted = tourStatsRepository.countDrifted();
+        tourStatsRepository.rebuildAll();
+        log.info("Rebuilt tour_stats: {} tours drifted, {} ms", drifted, System.currentTimeMillis() - start);
+    }
+
+    // Lần đầu chạy (bảng rỗng) → dựng lại từ dữ liệu hiện có
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (tourStatsRepository.count() == 0) {
+            rebuild();
+        }
+    }
+}
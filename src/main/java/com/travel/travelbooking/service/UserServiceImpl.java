@@ -6,12 +6,14 @@ import com.travel.travelbooking.entity.BookingContact;
 import com.travel.travelbooking.entity.Role;
 import com.travel.travelbooking.entity.User;
 import com.travel.travelbooking.entity.UserStatus;
+import com.travel.travelbooking.event.UserChangedEvent;
 import com.travel.travelbooking.repository.BookingContactRepository;
 import com.travel.travelbooking.repository.BookingRepository;
 import com.travel.travelbooking.repository.RoleRepository;
 import com.travel.travelbooking.repository.UserRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +35,7 @@ public class UserServiceImpl implements UserService {
     /** ⭐ Thêm bookingRepository + bookingContactRepository */
     private final BookingRepository bookingRepository;
     private final BookingContactRepository bookingContactRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public UserServiceImpl(
@@ -41,7 +44,8 @@ public class UserServiceImpl implements UserService {
             PasswordEncoder passwordEncoder,
             CloudinaryService cloudinaryService,
             BookingRepository bookingRepository,
-            BookingContactRepository bookingContactRepository
+            BookingContactRepository bookingContactRepository,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
@@ -49,6 +53,7 @@ public class UserServiceImpl implements UserService {
         this.cloudinaryService = cloudinaryService;
         this.bookingRepository = bookingRepository;
         this.bookingContactRepository = bookingContactRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -71,7 +76,9 @@ public class UserServiceImpl implements UserService {
         user.setCreatedAt(LocalDateTime.now());
         user.setRoles(getOrCreateRoles(roleNames.length > 0 ? roleNames : new String[]{"USER"}));
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        publishUserChanged(saved, null, Set.of());
+        return saved;
     }
 
     @Override
@@ -99,8 +106,11 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public boolean softDeleteUser(Long id) {
         return userRepository.findById(id).map(user -> {
+            UserStatus oldStatus = user.getStatus();
+            Set<String> oldRoles = roleNames(user);
             user.setStatus(UserStatus.DELETED);
             userRepository.save(user);
+            publishUserChanged(user, oldStatus, oldRoles);
             return true;
         }).orElse(false);
     }
@@ -125,7 +135,9 @@ public class UserServiceImpl implements UserService {
         user.setCreatedAt(LocalDateTime.now());
         user.setRoles(getOrCreateRoles(dto.getRoles().toArray(new String[0])));
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        publishUserChanged(saved, null, Set.of());
+        return saved;
     }
 
     @Override
@@ -137,6 +149,8 @@ public class UserServiceImpl implements UserService {
         if (!user.getRoles().stream().anyMatch(r -> r.getName().equalsIgnoreCase("STAFF"))) {
             throw new RuntimeException("Chỉ có thể cập nhật thông tin của Staff");
         }
+        UserStatus oldStatus = user.getStatus();
+        Set<String> oldRoles = roleNames(user);
 
         user.setFullname(dto.getFullname());
         user.setPhoneNumber(dto.getPhoneNumber());
@@ -146,7 +160,9 @@ public class UserServiceImpl implements UserService {
         }
         user.setRoles(getOrCreateRoles(dto.getRoles().toArray(new String[0])));
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        publishUserChanged(saved, oldStatus, oldRoles);
+        return saved;
     }
 
     @Override
@@ -167,9 +183,12 @@ public class UserServiceImpl implements UserService {
         if (user == null || user.getStatus() == UserStatus.DELETED) {
             throw new RuntimeException("User not found");
         }
+        UserStatus oldStatus = user.getStatus();
         UserStatus newStatus = UserStatus.valueOf(status.toUpperCase());
         user.setStatus(newStatus);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        publishUserChanged(saved, oldStatus, roleNames(saved));
+        return saved;
     }
 
     @Override
@@ -226,4 +245,15 @@ public class UserServiceImpl implements UserService {
                         .orElseGet(() -> roleRepository.save(new Role(name))))
                 .collect(Collectors.toSet());
     }
+
+    // Bộ đếm người dùng của dashboard (DashboardMetricsService) cập nhật theo sự kiện này
+    private void publishUserChanged(User user, UserStatus oldStatus, Set<String> oldRoles) {
+        eventPublisher.publishEvent(new UserChangedEvent(
+                user.getId(), oldStatus, user.getStatus(), oldRoles, roleNames(user), user.getCreatedAt()));
+    }
+
+    private static Set<String> roleNames(User user) {
+        return user.getRoles() == null ? Set.of()
+                : user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
+    }
 }
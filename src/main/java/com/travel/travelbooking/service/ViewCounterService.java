@@ -0,0 +1,117 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.event.TourViewsFlushedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Đếm lượt xem trong bộ nhớ (write-behind) và ghi dồn xuống DB theo lịch.
+// Đường đọc (GET tour / blog) không còn UPDATE + khóa dòng.
+// Mất mát tối đa khi crash: số lượt xem của một chu kỳ flush (view-counter.flush-interval-ms).
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ViewCounterService {
+
+    // Số id tối đa trong 1 câu UPDATE ... CASE
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentMap<Long, LongAdder> tourViews = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LongAdder> blogViews = new ConcurrentHashMap<>();
+
+    public void incrementTourView(Long tourId) {
+        tourViews.computeIfAbsent(tourId, k -> new LongAdder()).increment();
+    }
+
+    public void incrementBlogView(Long blogId) {
+        blogViews.computeIfAbsent(blogId, k -> new LongAdder()).increment();
+    }
+
+    // Lượt xem chưa ghi xuống DB (để hiển thị số mới nhất)
+    public long pendingTourViews(Long tourId) {
+        LongAdder adder = tourViews.get(tourId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long pendingBlogViews(Long blogId) {
+        LongAdder adder = blogViews.get(blogId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${view-counter.flush-interval-ms:5000}")
+    public void flush() {
+        Map<Long, Long> tourDeltas = flush(tourViews, "tours", "AND status <> 'DELETED'");
+        flush(blogViews, "blogs", "");
+        if (!tourDeltas.isEmpty()) {
+            eventPublisher.publishEvent(new TourViewsFlushedEvent(tourDeltas));
+        }
+    }
+
+    // Ghi nốt khi tắt ứng dụng
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /* ---- helpers ---- */
+
+    private Map<Long, Long> flush(ConcurrentMap<Long, LongAdder> counters, String table, String extraCondition) {
+        Map<Long, Long> deltas = drain(counters);
+        if (deltas.isEmpty()) return deltas;
+
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(deltas.entrySet());
+        for (int from = 0; from < entries.size(); from += FLUSH_CHUNK_SIZE) {
+            List<Map.Entry<Long, Long>> chunk = entries.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, entries.size()));
+            try {
+                updateViews(table, extraCondition, chunk);
+            } catch (Exception e) {
+                // Trả lại bộ đếm để lần flush sau ghi tiếp
+                chunk.forEach(en -> {
+                    counters.computeIfAbsent(en.getKey(), k -> new LongAdder()).add(en.getValue());
+                    deltas.remove(en.getKey());
+                });
+                log.warn("Flush lượt xem bảng {} thất bại ({} id), sẽ thử lại: {}", table, chunk.size(), e.getMessage());
+            }
+        }
+        return deltas;   // phần đã ghi thành công
+    }
+
+    private Map<Long, Long> drain(ConcurrentMap<Long, LongAdder> counters) {
+        Map<Long, Long> deltas = new HashMap<>();
+        counters.forEach((id, adder) -> {
+            long n = adder.sumThenReset();
+            if (n > 0) deltas.put(id, n);
+        });
+        return deltas;
+    }
+
+    // UPDATE <table> SET views = views + CASE id WHEN ? THEN ? ... END WHERE id IN (...)
+    private void updateViews(String table, String extraCondition, List<Map.Entry<Long, Long>> chunk) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET views = views + CASE id");
+        List<Object> args = new ArrayList<>(chunk.size() * 3);
+        for (Map.Entry<Long, Long> en : chunk) {
+            sql.append(" WHEN ? THEN ?");
+            args.add(en.getKey());
+            args.add(en.getValue());
+        }
+        sql.append(" ELSE 0 END WHERE id IN (")
+                .append(String.join(",", Collections.nCopies(chunk.size(), "?")))
+                .append(") ")
+                .append(extraCondition);
+        chunk.forEach(en -> args.add(en.getKey()));
+
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
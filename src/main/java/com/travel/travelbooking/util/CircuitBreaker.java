@@ -0,0 +1,71 @@
+package com.travel.travelbooking.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Ngắt mạch cho lời gọi ra ngoài:
+//   CLOSED    → gọi bình thường; failureThreshold lần lỗi liên tiếp → OPEN
+//   OPEN      → không gọi (dùng phương án dự phòng) trong openMillis
+//   HALF_OPEN → cho đúng 1 lời gọi thử: thành công → CLOSED, lỗi → OPEN lại
+// Caller: tryAcquire() == true thì gọi rồi báo onSuccess() / onFailure().
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.openMillis = openMillis;
+    }
+
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) return false;
+                state = State.HALF_OPEN;
+                log.info("Circuit {} half-open, probing", name);
+                // fall through: lời gọi này là lời gọi thử
+            case HALF_OPEN:
+            default:
+                if (probeInFlight) return false;
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            log.info("Circuit {} closed", name);
+        }
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            log.warn("Circuit {} opened after {} consecutive failures", name, consecutiveFailures);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,174 @@
+package com.travel.travelbooking.util;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Ghi file Excel dạng luồng (SXSSF): chỉ giữ ROW_WINDOW dòng gần nhất trong bộ nhớ,
+// các dòng cũ hơn được đẩy ra file tạm (nén) → bộ nhớ không đổi dù có hàng trăm nghìn dòng.
+// Bộ style dùng chung tạo 1 lần cho cả workbook (POI giới hạn ~64k style / workbook);
+// độ rộng cột đặt cố định vì autoSizeColumn không dùng được với dòng đã bị đẩy ra đĩa.
+// Dùng: try (ExcelReportWriter w = new ExcelReportWriter()) { w.sheet(...); w.row(...); ...; w.write(out); }
+public class ExcelReportWriter implements AutoCloseable {
+
+    private static final int ROW_WINDOW = 200;
+    // Độ rộng cột (đơn vị 1/256 ký tự)
+    private static final int CHAR = 256;
+
+    private final SXSSFWorkbook workbook;
+    private final CellStyle titleStyle;
+    private final CellStyle sectionStyle;
+    private final CellStyle headerStyle;
+    private final CellStyle boldStyle;
+    private final CellStyle moneyStyle;
+    private final CellStyle dateTimeStyle;
+    private final CellStyle dateStyle;
+
+    private Sheet sheet;
+    private int rowNum;
+    private int lastColumn;
+
+    public ExcelReportWriter() {
+        workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+
+        DataFormat format = workbook.createDataFormat();
+
+        titleStyle = workbook.createCellStyle();
+        titleStyle.setFont(boldFont(18));
+        titleStyle.setAlignment(HorizontalAlignment.CENTER);
+
+        sectionStyle = workbook.createCellStyle();
+        sectionStyle.setFont(boldFont(14));
+        sectionStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        sectionStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+        Font bold = boldFont(11);
+        headerStyle = workbook.createCellStyle();
+        headerStyle.setFont(bold);
+        headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+        boldStyle = workbook.createCellStyle();
+        boldStyle.setFont(bold);
+
+        moneyStyle = workbook.createCellStyle();
+        moneyStyle.setDataFormat(format.getFormat("#,##0"));
+
+        dateTimeStyle = workbook.createCellStyle();
+        dateTimeStyle.setDataFormat(format.getFormat("dd/mm/yyyy hh:mm"));
+
+        dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(format.getFormat("dd/mm/yyyy"));
+    }
+
+    // Sheet mới; columnWidths tính theo số ký tự
+    public void sheet(String name, int... columnWidths) {
+        sheet = workbook.createSheet(name);
+        rowNum = 0;
+        lastColumn = Math.max(columnWidths.length - 1, 0);
+        for (int i = 0; i < columnWidths.length; i++) {
+            sheet.setColumnWidth(i, columnWidths[i] * CHAR);
+        }
+    }
+
+    // Header luôn hiện khi cuộn danh sách dài
+    public void freezeHeader() {
+        sheet.createFreezePane(0, rowNum);
+    }
+
+    public void title(String text) {
+        mergedRow(text, titleStyle);
+    }
+
+    public void section(String text) {
+        mergedRow(text, sectionStyle);
+    }
+
+    public void text(String text) {
+        sheet.createRow(rowNum++).createCell(0).setCellValue(text);
+    }
+
+    public void skip(int rows) {
+        rowNum += rows;
+    }
+
+    public void keyValue(String label, String value) {
+        Row row = sheet.createRow(rowNum++);
+        row.createCell(0).setCellValue(label);
+        Cell cell = row.createCell(1);
+        cell.setCellValue(value);
+        cell.setCellStyle(boldStyle);
+    }
+
+    public void header(String... headers) {
+        Row row = sheet.createRow(rowNum++);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+        }
+    }
+
+    // Số thực ghi theo định dạng tiền, ngày / ngày giờ theo dd/MM/yyyy (HH:mm), null để trống
+    public void row(Object... values) {
+        Row row = sheet.createRow(rowNum++);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) continue;
+            Cell cell = row.createCell(i);
+            if (value instanceof Double || value instanceof Float) {
+                cell.setCellValue(((Number) value).doubleValue());
+                cell.setCellStyle(moneyStyle);
+            } else if (value instanceof Number n) {
+                cell.setCellValue(n.doubleValue());
+            } else if (value instanceof LocalDateTime t) {
+                cell.setCellValue(t);
+                cell.setCellStyle(dateTimeStyle);
+            } else if (value instanceof LocalDate d) {
+                cell.setCellValue(d);
+                cell.setCellStyle(dateStyle);
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+
+    public int rowCount() {
+        return rowNum;
+    }
+
+    public void write(OutputStream out) throws IOException {
+        workbook.write(out);
+        out.flush();
+    }
+
+    // Xóa file tạm của các dòng đã đẩy ra đĩa
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    /* ---- helpers ---- */
+
+    private void mergedRow(String text, CellStyle style) {
+        int r = rowNum++;
+        Cell cell = sheet.createRow(r).createCell(0);
+        cell.setCellValue(text);
+        cell.setCellStyle(style);
+        if (lastColumn > 0) sheet.addMergedRegion(new CellRangeAddress(r, r, 0, lastColumn));
+    }
+
+    private Font boldFont(int size) {
+        Font font = workbook.createFont();
+        font.setBold(true);
+        font.setFontHeightInPoints((short) size);
+        return font;
+    }
+}
@@ -4,6 +4,7 @@ import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 
+// Ký với khóa bất kỳ (mỗi lần gọi tạo Mac mới). Ký với secretKey MoMo của hệ thống: dùng MomoSigner.
 public class MomoSignatureUtil {
 
     public static String hmacSHA256(String data, String secretKey) throws Exception {
@@ -13,12 +14,6 @@ public class MomoSignatureUtil {
         byte[] bytes = hmacSHA256.doFinal(data.getBytes(StandardCharsets.UTF_8));
 
         // chuyển sang hex
-        StringBuilder hash = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) hash.append('0');
-            hash.append(hex);
-        }
-        return hash.toString();
+        return MomoSigner.toHex(bytes);
     }
 }
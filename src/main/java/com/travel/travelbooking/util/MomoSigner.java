@@ -0,0 +1,60 @@
+package com.travel.travelbooking.util;
+
+import com.travel.travelbooking.config.MomoConfig;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+// Ký / kiểm tra chữ ký HMAC-SHA256 với secretKey của MoMo.
+// Mac đã init được giữ theo từng thread (Mac không thread-safe) → không Mac.getInstance / init mỗi lần ký;
+// hex hóa bằng bảng tra vào mảng char cấp sẵn kích thước.
+@Component
+public class MomoSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ThreadLocal<Mac> mac;
+
+    public MomoSigner(MomoConfig momoConfig) {
+        SecretKeySpec key = new SecretKeySpec(momoConfig.getSecretKey().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    public String sign(String data) {
+        // doFinal tự reset Mac → dùng lại được cho lần ký sau trên cùng thread
+        return toHex(mac.get().doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // So sánh thời gian hằng (không dừng ở byte khác đầu tiên) → không lộ chữ ký đúng qua thời gian phản hồi
+    public boolean verify(String data, String signature) {
+        if (signature == null) return false;
+        byte[] expected = sign(data).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = signature.getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0, j = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            out[j++] = HEX[v >>> 4];
+            out[j++] = HEX[v & 0x0f];
+        }
+        return new String(out);
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Không khởi tạo được " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.travel.travelbooking.util;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Cursor mờ (opaque) cho phân trang keyset: base64url của "<sortKey>|<id>".
+// sortKey là thời điểm ISO-8601 (createdAt / bookingDate) hoặc rỗng khi chỉ seek theo id.
+public record PageCursor(LocalDateTime sortKey, Long id) {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public static PageCursor ofId(Long id) {
+        return new PageCursor(null, id);
+    }
+
+    public String encode() {
+        String raw = (sortKey != null ? sortKey.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null / rỗng → trang đầu tiên
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            String key = raw.substring(0, sep);
+            return new PageCursor(
+                    key.isEmpty() ? null : LocalDateTime.parse(key),
+                    Long.parseLong(raw.substring(sep + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor phân trang không hợp lệ");
+        }
+    }
+
+    // Lấy dư 1 dòng để biết còn trang sau (xem CursorPageResponse.of)
+    public static Pageable fetchLimit(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Kích thước trang phải từ 1 đến " + MAX_PAGE_SIZE);
+        }
+        return PageRequest.ofSize(size + 1);
+    }
+}
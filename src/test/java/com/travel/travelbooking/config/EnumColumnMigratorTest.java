@@ -0,0 +1,27 @@
+package com.travel.travelbooking.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnumColumnMigratorTest {
+
+    @Test
+    void parsesColumnTypeFromInformationSchema() {
+        assertThat(EnumColumnMigrator.parseValues("enum('PENDING','CONFIRMED','IT''S')"))
+                .containsExactly("PENDING", "CONFIRMED", "IT'S");
+    }
+
+    @Test
+    void definitionRoundTrips() {
+        LinkedHashSet<String> values = new LinkedHashSet<>(List.of("PENDING", "EXPIRED", "IT'S"));
+
+        String definition = EnumColumnMigrator.enumDefinition(values);
+
+        assertThat(definition).isEqualTo("ENUM('PENDING','EXPIRED','IT''S')");
+        assertThat(EnumColumnMigrator.parseValues(definition)).containsExactlyElementsOf(values);
+    }
+}
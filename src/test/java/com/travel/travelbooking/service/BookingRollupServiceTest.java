@@ -0,0 +1,96 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.event.BookingStatusChangedEvent;
+import com.travel.travelbooking.repository.BookingRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookingRollupServiceTest {
+
+    private static final double PRICE = 2_000_000.0;
+
+    private BookingRollupRepository repository;
+    private BookingRollupService service;
+
+    // Tổng các lần ghi (các sự kiện có thể rơi vào 2 khung giờ nếu chạy qua đầu giờ)
+    private long created;
+    private long confirmed;
+    private long cancelled;
+    private double revenue;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRollupRepository.class);
+        when(repository.add(anyString(), any(), anyLong(), anyLong(), anyLong(), anyLong(), anyDouble()))
+                .thenAnswer(inv -> {
+                    created += inv.<Long>getArgument(3);
+                    confirmed += inv.<Long>getArgument(4);
+                    cancelled += inv.<Long>getArgument(5);
+                    revenue += inv.<Double>getArgument(6);
+                    return 1;
+                });
+        service = new BookingRollupService(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    void rejectedCancellationIsNotConfirmedTwice() {
+        event(null, BookingStatus.PENDING);
+        event(BookingStatus.PENDING, BookingStatus.CONFIRMED);
+        event(BookingStatus.CONFIRMED, BookingStatus.CANCEL_REQUEST);
+        event(BookingStatus.CANCEL_REQUEST, BookingStatus.CONFIRMED);
+        event(BookingStatus.CONFIRMED, BookingStatus.COMPLETED);
+        service.flush();
+
+        assertThat(created).isEqualTo(1);
+        assertThat(confirmed).isEqualTo(1);
+        assertThat(cancelled).isZero();
+        assertThat(revenue).isEqualTo(PRICE);
+    }
+
+    @Test
+    void approvedCancellationRemovesConfirmation() {
+        event(null, BookingStatus.PENDING);
+        event(BookingStatus.PENDING, BookingStatus.CONFIRMED);
+        event(BookingStatus.CONFIRMED, BookingStatus.CANCEL_REQUEST);
+        event(BookingStatus.CANCEL_REQUEST, BookingStatus.CANCELLED);
+        service.flush();
+
+        assertThat(confirmed).isZero();
+        assertThat(cancelled).isEqualTo(1);
+        assertThat(revenue).isZero();
+    }
+
+    @Test
+    void pendingCancelRequestConfirmedOnRejectionCountsOnce() {
+        event(null, BookingStatus.PENDING);
+        event(BookingStatus.PENDING, BookingStatus.CANCEL_REQUEST);
+        event(BookingStatus.CANCEL_REQUEST, BookingStatus.CONFIRMED);
+        service.flush();
+
+        assertThat(confirmed).isEqualTo(1);
+        assertThat(revenue).isEqualTo(PRICE);
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        when(repository.add(anyString(), any(), anyLong(), anyLong(), anyLong(), anyLong(), anyDouble()))
+                .thenThrow(new RuntimeException("db down"));
+        event(null, BookingStatus.PENDING);
+        service.flush();
+
+        reset(repository);
+        service.flush();
+        verify(repository, atLeastOnce()).add(anyString(), any(), eq(1L), eq(1L), eq(0L), eq(0L), eq(0.0));
+    }
+
+    private void event(BookingStatus from, BookingStatus to) {
+        service.onBookingStatusChanged(new BookingStatusChangedEvent(1L, 1L, from, to, 2, PRICE));
+    }
+}
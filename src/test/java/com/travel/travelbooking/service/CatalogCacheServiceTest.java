@@ -0,0 +1,80 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.config.CacheConfig;
+import com.travel.travelbooking.dto.TourDTO;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.event.BookingStatusChangedEvent;
+import com.travel.travelbooking.event.ReviewCreatedEvent;
+import com.travel.travelbooking.event.TourViewsFlushedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogCacheServiceTest {
+
+    private Cache tourById;
+    private CatalogCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.TOUR_BY_ID);
+        tourById = cacheManager.getCache(CacheConfig.TOUR_BY_ID);
+        service = new CatalogCacheService(cacheManager, null, null, null);
+    }
+
+    @Test
+    void flushedViewsAreAddedToCachedTour() {
+        TourDTO cached = tour(1L, 100L);
+        tourById.put(1L, cached);
+
+        service.onViewsFlushed(new TourViewsFlushedEvent(Map.of(1L, 7L)));
+
+        assertThat(tourById.get(1L, TourDTO.class).getViews()).isEqualTo(107L);
+        // Bản cũ có thể đang được request khác đọc → không bị sửa
+        assertThat(cached.getViews()).isEqualTo(100L);
+    }
+
+    @Test
+    void flushDoesNotReloadEvictedTour() {
+        service.onViewsFlushed(new TourViewsFlushedEvent(Map.of(2L, 3L)));
+
+        assertThat(tourById.get(2L)).isNull();
+    }
+
+    @Test
+    void newReviewEvictsTour() {
+        tourById.put(1L, tour(1L, 100L));
+        tourById.put(2L, tour(2L, 100L));
+
+        service.onReviewCreated(new ReviewCreatedEvent(10L, 1L, 5));
+
+        assertThat(tourById.get(1L)).isNull();
+        assertThat(tourById.get(2L)).isNotNull();
+    }
+
+    @Test
+    void bookingEvictsTourOnlyWhenCountedStateFlips() {
+        tourById.put(1L, tour(1L, 100L));
+
+        // PENDING → CANCELLED: không đổi số booking được tính
+        service.onBookingStatusChanged(new BookingStatusChangedEvent(
+                10L, 1L, BookingStatus.PENDING, BookingStatus.CANCELLED, 2, 100.0));
+        assertThat(tourById.get(1L)).isNotNull();
+
+        service.onBookingStatusChanged(new BookingStatusChangedEvent(
+                10L, 1L, BookingStatus.PENDING, BookingStatus.CONFIRMED, 2, 100.0));
+        assertThat(tourById.get(1L)).isNull();
+    }
+
+    private static TourDTO tour(Long id, Long views) {
+        TourDTO dto = new TourDTO();
+        dto.setId(id);
+        dto.setViews(views);
+        return dto;
+    }
+}
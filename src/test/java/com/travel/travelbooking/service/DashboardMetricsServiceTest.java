@@ -0,0 +1,94 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.DashboardStatsDTO;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.event.BookingStatusChangedEvent;
+import com.travel.travelbooking.repository.BookingRepository;
+import com.travel.travelbooking.repository.DashboardMetricRepository;
+import com.travel.travelbooking.repository.DashboardRepository;
+import com.travel.travelbooking.repository.TourRepository;
+import com.travel.travelbooking.support.MySqlIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Hai instance (bean của context + 1 bản tạo tay) dùng chung bảng dashboard_metrics
+class DashboardMetricsServiceTest extends MySqlIntegrationTest {
+
+    @Autowired private DashboardMetricsService instanceA;
+    @Autowired private DashboardMetricRepository metricRepository;
+    @Autowired private DashboardRepository dashboardRepository;
+    @Autowired private BookingRepository bookingRepository;
+    @Autowired private TourRepository tourRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        instanceA.flush();   // không còn thay đổi chờ ghi từ các test khác
+    }
+
+    @Test
+    void instancesAddTheirChangesInsteadOfOverwritingEachOther() {
+        DashboardMetricsService instanceB = newInstance();
+        instanceB.load();
+        DashboardStatsDTO before = stats(instanceA);
+
+        instanceA.onBookingStatusChanged(confirmed(100.0));
+        instanceB.onBookingStatusChanged(confirmed(50.0));
+        instanceA.flush();
+        instanceB.flush();
+        instanceA.flush();   // đọc lại phần instance B đã ghi
+
+        for (DashboardMetricsService instance : new DashboardMetricsService[]{instanceA, instanceB}) {
+            DashboardStatsDTO after = stats(instance);
+            assertThat(after.getTotalConfirmedBookings()).isEqualTo(before.getTotalConfirmedBookings() + 2);
+            assertThat(after.getExpectedRevenue()).isEqualTo(before.getExpectedRevenue() + 150.0);
+        }
+    }
+
+    @Test
+    void eventsBeforeLoadAreKept() {
+        DashboardStatsDTO before = stats(instanceA);
+
+        DashboardMetricsService starting = newInstance();
+        starting.onBookingStatusChanged(confirmed(70.0));   // sự kiện tới trước ApplicationReadyEvent
+        starting.load();
+
+        assertThat(stats(starting).getExpectedRevenue()).isEqualTo(before.getExpectedRevenue() + 70.0);
+
+        starting.flush();
+        instanceA.flush();
+        assertThat(stats(instanceA).getExpectedRevenue()).isEqualTo(before.getExpectedRevenue() + 70.0);
+    }
+
+    @Test
+    void flushWritesEachChangeOnce() {
+        DashboardStatsDTO before = stats(instanceA);
+        instanceA.onBookingStatusChanged(confirmed(30.0));
+
+        assertThat(stats(instanceA).getExpectedRevenue()).isEqualTo(before.getExpectedRevenue() + 30.0);
+        instanceA.flush();
+        instanceA.flush();   // ghi 1 lần, không cộng 2 lần
+        assertThat(stats(instanceA).getExpectedRevenue()).isEqualTo(before.getExpectedRevenue() + 30.0);
+        assertThat(metricRepository.findById("EXPECTED_REVENUE")).get()
+                .extracting(m -> m.getValue()).isEqualTo(before.getExpectedRevenue() + 30.0);
+    }
+
+    private DashboardMetricsService newInstance() {
+        return new DashboardMetricsService(metricRepository, dashboardRepository, bookingRepository,
+                tourRepository, transactionManager);
+    }
+
+    private static BookingStatusChangedEvent confirmed(double price) {
+        return new BookingStatusChangedEvent(1L, 1L, BookingStatus.PENDING, BookingStatus.CONFIRMED, 2, price);
+    }
+
+    private static DashboardStatsDTO stats(DashboardMetricsService service) {
+        DashboardStatsDTO stats = new DashboardStatsDTO();
+        service.fill(stats);
+        return stats;
+    }
+}
@@ -0,0 +1,76 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.entity.User;
+import com.travel.travelbooking.repository.*;
+import com.travel.travelbooking.util.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.mockito.ArgumentMatchers;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Lỗi ngoài lời gọi HTTP (vd. đọc lịch sử chat) vẫn phải trả lại lượt thử của circuit breaker
+class GroqChatServiceTest {
+
+    private ChatHistoryRepository historyRepository;
+    private RestTemplate restTemplate;
+    private GroqChatService service;
+
+    @BeforeEach
+    void setUp() {
+        historyRepository = mock(ChatHistoryRepository.class);
+        restTemplate = mock(RestTemplate.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("khach")).thenReturn(new User());
+
+        service = new GroqChatService(mock(TourRepository.class), mock(DestinationRepository.class),
+                mock(TourCategoryRepository.class), mock(TourStartDateRepository.class), historyRepository,
+                userRepository, mock(PopularityRankingService.class), restTemplate);
+        ReflectionTestUtils.setField(service, "groqApiKey", "test");
+        ReflectionTestUtils.setField(service, "apiUrl", "http://groq.test");
+        ReflectionTestUtils.setField(service, "model", "test-model");
+        ReflectionTestUtils.setField(service, "circuitFailureThreshold", 1);
+        ReflectionTestUtils.setField(service, "circuitOpenSeconds", 0L);
+        service.initCircuit();
+    }
+
+    @Test
+    void exceptionBeforeHttpCallCountsAsFailureAndReleasesProbe() {
+        when(historyRepository.findTop5ByUserOrderByTimestampDesc(any()))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenReturn(List.of());
+        Map<String, Object> groqReply = Map.of("choices", List.of(Map.of("message", Map.of("content", "Xin chào ạ"))));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                ArgumentMatchers.<ParameterizedTypeReference<Map<String, Object>>>any()))
+                .thenReturn(ResponseEntity.ok(groqReply));
+
+        // Lần 1: lỗi DB → trả lời dự phòng, không ném ra ngoài, mạch mở
+        String first = service.chat("hi", "khach");
+        assertThat(first).isNotEqualTo("Xin chào ạ");
+        assertThat(circuit().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Lần 2 (lời gọi thử ở HALF_OPEN) vẫn được gọi Groq → mạch đóng lại
+        String second = service.chat("hi", "khach");
+        assertThat(second).isEqualTo("Xin chào ạ");
+        assertThat(circuit().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                ArgumentMatchers.<ParameterizedTypeReference<Map<String, Object>>>any());
+    }
+
+    private CircuitBreaker circuit() {
+        return (CircuitBreaker) ReflectionTestUtils.getField(service, "groqCircuit");
+    }
+}
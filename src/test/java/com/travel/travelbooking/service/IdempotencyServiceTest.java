@@ -0,0 +1,103 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.repository.IdempotencyRecordRepository;
+import com.travel.travelbooking.service.IdempotencyService.Outcome;
+import com.travel.travelbooking.service.IdempotencyService.Result;
+import com.travel.travelbooking.service.IdempotencyService.StoredResponse;
+import com.travel.travelbooking.support.MySqlIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyServiceTest extends MySqlIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final String FINGERPRINT = "fp";
+
+    @Autowired private IdempotencyService idempotencyService;
+    @Autowired private IdempotencyRecordRepository repository;
+
+    private ExecutorService pool;
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(THREADS);
+        key = UUID.randomUUID().toString();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentDuplicatesExecuteOnceAndReplayTheResponse() throws Exception {
+        StoredResponse created = new StoredResponse(201, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(pool.submit(() -> {
+                ready.await();
+                Result result = idempotencyService.begin(key, FINGERPRINT);
+                if (result.outcome() == Outcome.EXECUTE) {
+                    Thread.sleep(100);   // đang xử lý
+                    idempotencyService.complete(result.ticket(), created);
+                }
+                return result;
+            }));
+        }
+        ready.countDown();
+
+        List<Outcome> outcomes = new ArrayList<>();
+        for (Future<Result> f : futures) outcomes.add(f.get(30, TimeUnit.SECONDS).outcome());
+        assertThat(outcomes).containsOnly(Outcome.EXECUTE, Outcome.REPLAY);
+        assertThat(outcomes).filteredOn(o -> o == Outcome.EXECUTE).hasSize(1);
+        assertThat(repository.findById(key)).get().extracting(r -> r.getResponseStatus()).isEqualTo(201);
+    }
+
+    @Test
+    void claimHeldByLiveInstanceIsInProgress() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        repository.claim(key, FINGERPRINT, now, now.plusDays(1));   // instance khác vừa giành
+
+        assertThat(idempotencyService.begin(key, FINGERPRINT).outcome()).isEqualTo(Outcome.IN_PROGRESS);
+        assertThat(idempotencyService.begin(key, "other").outcome()).isEqualTo(Outcome.MISMATCH);
+    }
+
+    @Test
+    void lapsedLeaseIsTakenOverAndOldOwnerCannotOverwrite() {
+        LocalDateTime crashedAt = LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.MILLIS);
+        repository.claim(key, FINGERPRINT, crashedAt, crashedAt.plusDays(1));   // instance khác chết giữa chừng
+
+        Result retry = idempotencyService.begin(key, FINGERPRINT);
+        assertThat(retry.outcome()).isEqualTo(Outcome.EXECUTE);
+
+        // Lần xử lý cũ (nếu còn sống) không ghi đè / xóa được key đã bị giành lại
+        assertThat(repository.saveResponse(key, crashedAt, 500, null, null)).isZero();
+        assertThat(repository.release(key, crashedAt)).isZero();
+
+        idempotencyService.complete(retry.ticket(), new StoredResponse(201, null, new byte[0]));
+        assertThat(repository.findById(key)).get().extracting(r -> r.getResponseStatus()).isEqualTo(201);
+    }
+
+    @Test
+    void abortedRequestCanBeRetried() {
+        Result first = idempotencyService.begin(key, FINGERPRINT);
+        idempotencyService.complete(first.ticket(), new StoredResponse(503, null, null));
+
+        assertThat(repository.findById(key)).isEmpty();
+        assertThat(idempotencyService.begin(key, FINGERPRINT).outcome()).isEqualTo(Outcome.EXECUTE);
+    }
+}
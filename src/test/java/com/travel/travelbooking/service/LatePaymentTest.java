@@ -0,0 +1,73 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.BookingDTO;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.entity.PaymentStatus;
+import com.travel.travelbooking.entity.TourStartDate;
+import com.travel.travelbooking.repository.TourStartDateRepository;
+import com.travel.travelbooking.support.MySqlIntegrationTest;
+import com.travel.travelbooking.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Tiền về sau khi giữ chỗ đã hết hạn: giữ lại chỗ nếu còn, hết chỗ thì đánh dấu cần hoàn tiền
+class LatePaymentTest extends MySqlIntegrationTest {
+
+    private static final int CAPACITY = 5;
+
+    @Autowired private BookingService bookingService;
+    @Autowired private PaymentService paymentService;
+    @Autowired private TourStartDateRepository tourStartDateRepository;
+    @Autowired private TestData data;
+
+    private TourStartDate startDate;
+
+    @BeforeEach
+    void setUp() {
+        startDate = data.startDate(data.tour(data.destination(), CAPACITY),
+                LocalDate.now().plusMonths(1), CAPACITY);
+    }
+
+    @Test
+    void paymentAfterExpiryHoldsSeatsAgainWhenAvailable() {
+        BookingDTO booking = expiredBooking(3);
+
+        BookingDTO paid = paymentService.updatePaymentStatus(booking.getId(), PaymentStatus.PAID);
+
+        assertThat(paid.getStatus()).isEqualTo(BookingStatus.PENDING);
+        assertThat(paid.getHoldExpiresAt()).isNull();
+        assertThat(paid.isRefundRequired()).isFalse();
+        assertThat(heldSeats()).isEqualTo(3);
+    }
+
+    @Test
+    void paymentAfterExpiryOnFullDateFlagsRefund() {
+        BookingDTO booking = expiredBooking(3);
+        bookingService.createBooking(data.bookingRequest(startDate, 4), null);
+
+        BookingDTO paid = paymentService.updatePaymentStatus(booking.getId(), PaymentStatus.PAID);
+
+        assertThat(paid.getStatus()).isEqualTo(BookingStatus.EXPIRED);
+        assertThat(paid.getPaymentStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(paid.isRefundRequired()).isTrue();
+        assertThat(heldSeats()).isEqualTo(4);
+    }
+
+    private BookingDTO expiredBooking(int people) {
+        BookingDTO booking = bookingService.createBooking(data.bookingRequest(startDate, people), null);
+        data.expireHoldNow(booking.getId());
+        bookingService.expireHolds(List.of(booking.getId()));
+        assertThat(heldSeats()).isZero();
+        return booking;
+    }
+
+    private int heldSeats() {
+        return tourStartDateRepository.findById(startDate.getId()).orElseThrow().getHeldParticipants();
+    }
+}
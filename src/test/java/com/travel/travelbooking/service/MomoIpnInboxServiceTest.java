@@ -0,0 +1,120 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.config.MomoConfig;
+import com.travel.travelbooking.dto.BookingDTO;
+import com.travel.travelbooking.entity.*;
+import com.travel.travelbooking.repository.MomoIpnInboxRepository;
+import com.travel.travelbooking.repository.PaymentRepository;
+import com.travel.travelbooking.support.MySqlIntegrationTest;
+import com.travel.travelbooking.support.TestData;
+import com.travel.travelbooking.util.MomoSigner;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// IPN được nhận vào inbox rồi áp dụng bởi luồng poller riêng (không cần gọi drain)
+class MomoIpnInboxServiceTest extends MySqlIntegrationTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Autowired private MomoIpnInboxService inboxService;
+    @Autowired private MomoIpnInboxRepository inboxRepository;
+    @Autowired private BookingService bookingService;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private MomoConfig momoConfig;
+    @Autowired private MomoSigner momoSigner;
+    @Autowired private TestData data;
+
+    @Test
+    void appliesLatestValidIpnOncePerOrder() throws Exception {
+        String orderId = momoBooking();
+
+        inboxService.receive(ipn(orderId, 1006, true));
+        inboxService.receive(ipn(orderId, 0, false));    // chữ ký sai
+        inboxService.receive(ipn(orderId, 0, true));     // MoMo gửi lại, mới nhất
+
+        List<MomoIpnInbox> rows = awaitFinished(orderId, 3);
+
+        assertThat(rows).extracting(MomoIpnInbox::getStatus).contains(IpnInboxStatus.REJECTED);
+        assertThat(rows).filteredOn(r -> r.getStatus() == IpnInboxStatus.PROCESSED).isNotEmpty();
+        assertThat(paymentRepository.findByTransactionId(orderId)).get()
+                .extracting(Payment::getStatus).isEqualTo(PaymentStatus.PAID);
+    }
+
+    @Test
+    void unknownOrderIsRejectedNotRetried() throws Exception {
+        String orderId = "unknown-" + UUID.randomUUID();
+
+        inboxService.receive(ipn(orderId, 0, true));
+
+        assertThat(awaitFinished(orderId, 1)).extracting(MomoIpnInbox::getStatus)
+                .containsExactly(IpnInboxStatus.REJECTED);
+    }
+
+    /* ---- helpers ---- */
+
+    private String momoBooking() {
+        TourStartDate startDate = data.startDate(data.tour(data.destination(), 10), LocalDate.now().plusMonths(1), 10);
+        BookingDTO booking = bookingService.createBooking(data.bookingRequest(startDate, 2), null);
+        Payment payment = paymentRepository.findAll().stream()
+                .filter(p -> p.getBooking().getId().equals(booking.getId()))
+                .findFirst().orElseThrow();
+        String orderId = "order-" + UUID.randomUUID();
+        payment.setMethod(PaymentMethod.MOMO);
+        payment.setTransactionId(orderId);
+        paymentRepository.save(payment);
+        return orderId;
+    }
+
+    private Map<String, Object> ipn(String orderId, int resultCode, boolean validSignature) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("partnerCode", momoConfig.getPartnerCode());
+        body.put("orderId", orderId);
+        body.put("requestId", UUID.randomUUID().toString());
+        body.put("amount", 2_000_000);
+        body.put("orderInfo", "Thanh toán tour");
+        body.put("orderType", "momo_wallet");
+        body.put("transId", 123456789L);
+        body.put("resultCode", resultCode);
+        body.put("message", resultCode == 0 ? "Successful." : "Failed.");
+        body.put("payType", "qr");
+        body.put("responseTime", System.currentTimeMillis());
+        body.put("extraData", "");
+        String raw = "accessKey=" + momoConfig.getAccessKey()
+                + "&amount=" + body.get("amount")
+                + "&extraData=" + body.get("extraData")
+                + "&message=" + body.get("message")
+                + "&orderId=" + orderId
+                + "&orderInfo=" + body.get("orderInfo")
+                + "&orderType=" + body.get("orderType")
+                + "&partnerCode=" + body.get("partnerCode")
+                + "&payType=" + body.get("payType")
+                + "&requestId=" + body.get("requestId")
+                + "&responseTime=" + body.get("responseTime")
+                + "&resultCode=" + resultCode
+                + "&transId=" + body.get("transId");
+        body.put("signature", validSignature ? momoSigner.sign(raw) : "0".repeat(64));
+        return body;
+    }
+
+    // Chờ poller xử lý xong (không còn PENDING / PROCESSING)
+    private List<MomoIpnInbox> awaitFinished(String orderId, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (true) {
+            List<MomoIpnInbox> rows = inboxRepository.findAll().stream()
+                    .filter(r -> orderId.equals(r.getOrderId()))
+                    .toList();
+            boolean finished = rows.size() == count && rows.stream().noneMatch(r ->
+                    r.getStatus() == IpnInboxStatus.PENDING || r.getStatus() == IpnInboxStatus.PROCESSING);
+            if (finished || System.currentTimeMillis() > deadline) return rows;
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.TopBookedTourDTO;
+import com.travel.travelbooking.entity.BookingStatus;
+import com.travel.travelbooking.entity.Destination;
+import com.travel.travelbooking.entity.DestinationStatus;
+import com.travel.travelbooking.entity.Region;
+import com.travel.travelbooking.event.BookingStatusChangedEvent;
+import com.travel.travelbooking.repository.DestinationRepository;
+import com.travel.travelbooking.repository.TourRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class PopularityRankingServiceTest {
+
+    private PopularityRankingService service;
+
+    @BeforeEach
+    void setUp() {
+        TourRepository tourRepository = mock(TourRepository.class);
+        DestinationRepository destinationRepository = mock(DestinationRepository.class);
+        when(destinationRepository.findByStatus(DestinationStatus.ACTIVE)).thenReturn(List.of(
+                destination(1L, Region.BAC), destination(2L, Region.BAC), destination(3L, Region.TRUNG)));
+        when(tourRepository.findRankingRows()).thenReturn(List.of(
+                row(10L, 1L, 5), row(11L, 1L, 9), row(12L, 3L, 0)));
+        service = new PopularityRankingService(tourRepository, destinationRepository);
+        service.reloadAll();
+    }
+
+    @Test
+    void topBookedToursFollowBookingEvents() {
+        assertThat(service.topBookedTours(2)).extracting(TopBookedTourDTO::getTourId).containsExactly(11L, 10L);
+
+        for (int i = 0; i < 5; i++) {
+            service.onBookingStatusChanged(new BookingStatusChangedEvent(
+                    100L + i, 10L, BookingStatus.PENDING, BookingStatus.CONFIRMED, 1, 100.0));
+        }
+
+        List<TopBookedTourDTO> top = service.topBookedTours(3);
+        assertThat(top).extracting(TopBookedTourDTO::getTourId).containsExactly(10L, 11L, 12L);
+        assertThat(top.get(0).getBookingCount()).isEqualTo(10L);
+    }
+
+    @Test
+    void countsActiveDestinationsByRegion() {
+        assertThat(service.destinationCountsByRegion())
+                .containsExactly(new Object[]{Region.BAC, 2L}, new Object[]{Region.TRUNG, 1L});
+    }
+
+    // [id, name, imageUrl, destinationId, destinationName, description, views, bookingCount, reviewCount, averageRating]
+    private static Object[] row(Long id, Long destinationId, long bookings) {
+        return new Object[]{id, "Tour " + id, null, destinationId, "Dest " + destinationId, null, 0L, bookings, 0L, 0.0};
+    }
+
+    private static Destination destination(Long id, Region region) {
+        Destination d = new Destination();
+        d.setId(id);
+        d.setName("Dest " + id);
+        d.setStatus(DestinationStatus.ACTIVE);
+        d.setRegion(region);
+        return d;
+    }
+}
@@ -0,0 +1,147 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.ReportJobDTO;
+import com.travel.travelbooking.dto.ReportRequest;
+import com.travel.travelbooking.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ReportJobServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ReportJobService service;
+    private MockHttpServletRequest request;
+    // Báo cáo đang tạo bị giữ lại tới khi test mở
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReportService reportService = mock(ReportService.class);
+        doAnswer(inv -> {
+            release.await();
+            return null;
+        }).when(reportService).writeDashboard(any());
+        service = new ReportJobService(reportService);
+        ReflectionTestUtils.setField(service, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        ReflectionTestUtils.setField(service, "maxActivePerUser", 1);
+        ReflectionTestUtils.setField(service, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(service, "reportDir", dir.toString());
+        request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        RequestContextHolder.resetRequestAttributes();
+        service.stop();
+    }
+
+    @Test
+    void startDeletesOldLeftoverReportsOnly() throws Exception {
+        Path old = Files.createFile(dir.resolve("report-old.xlsx"));
+        Files.setLastModifiedTime(old, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path fresh = Files.createFile(dir.resolve("report-fresh.xlsx"));
+        Path other = Files.createFile(dir.resolve("notes.txt"));
+        Files.setLastModifiedTime(other, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        service.start();
+
+        assertThat(old).doesNotExist();
+        assertThat(fresh).exists();
+        assertThat(other).exists();
+    }
+
+    @Test
+    void secondActiveJobOfSameUserIsRejected() throws Exception {
+        service.start();
+        ReportJobDTO first = service.submit(dashboard(), "alice");
+
+        assertThatThrownBy(() -> service.submit(dashboard(), "alice"))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        assertThat(service.list()).extracting(ReportJobDTO::getId).containsExactly(first.getId());
+    }
+
+    @Test
+    void fullQueueIsRejectedAndJobIsForgotten() throws Exception {
+        ReflectionTestUtils.setField(service, "maxActivePerUser", 10);
+        service.start();
+        service.submit(dashboard(), "alice");     // đang chạy
+        service.submit(dashboard(), "bob");       // chờ trong hàng đợi (1 chỗ)
+
+        assertThatThrownBy(() -> service.submit(dashboard(), "carol"))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        // Job bị từ chối không còn trong danh sách / không tính vào giới hạn của người đó
+        assertThat(service.list()).extracting(ReportJobDTO::getRequestedBy).containsExactlyInAnyOrder("alice", "bob");
+    }
+
+    @Test
+    void permitIsReturnedWhenRequestEndsBeforeBodyRuns() throws Exception {
+        service.start();
+        service.stream(out -> out.write(1));
+        assertThatThrownBy(() -> service.stream(out -> out.write(1)))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        // Request async hết hạn / client ngắt: body không chạy, chỉ có afterCompletion
+        completeAsync();
+
+        assertThat(permits().availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void permitIsReturnedOnceWhenBodyRunsAndRequestCompletes() throws Exception {
+        service.start();
+        StreamingResponseBody body = service.stream(out -> out.write(1));
+
+        body.writeTo(new ByteArrayOutputStream());
+        completeAsync();
+
+        assertThat(permits().availablePermits()).isEqualTo(1);
+    }
+
+    private static ReportRequest dashboard() {
+        ReportRequest r = new ReportRequest();
+        r.setType(ReportJobService.ReportType.DASHBOARD);
+        return r;
+    }
+
+    private void completeAsync() throws Exception {
+        CallableProcessingInterceptor interceptor = WebAsyncUtils.getAsyncManager(request)
+                .getCallableInterceptor(ReportJobService.class.getName());
+        interceptor.afterCompletion(new ServletWebRequest(request), () -> null);
+    }
+
+    private Semaphore permits() {
+        return (Semaphore) ReflectionTestUtils.getField(service, "permits");
+    }
+}
@@ -0,0 +1,207 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.BookingDTO;
+import com.travel.travelbooking.entity.*;
+import com.travel.travelbooking.repository.TourStartDateRepository;
+import com.travel.travelbooking.support.MySqlIntegrationTest;
+import com.travel.travelbooking.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Nhiều request đặt / xác nhận / từ chối cùng lúc trên 1 ngày khởi hành:
+// số chỗ không bao giờ âm, không bán vượt capacity, bộ đếm khớp với các booking thành công
+class SeatInventoryConcurrencyTest extends MySqlIntegrationTest {
+
+    private static final int CAPACITY = 20;
+    private static final int THREADS = 16;
+
+    @Autowired private BookingService bookingService;
+    @Autowired private TourStartDateRepository tourStartDateRepository;
+    @Autowired private TestData data;
+
+    private ExecutorService pool;
+    private Tour tour;
+    private TourStartDate startDate;
+
+    @BeforeEach
+    void setUp() {
+        pool = adminPool(THREADS);
+        tour = data.tour(data.destination(), CAPACITY);
+        startDate = data.startDate(tour, LocalDate.now().plusMonths(1), CAPACITY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentBookingsNeverOversellOrGoNegative() throws Exception {
+        // 1. 60 khách (1–3 người) tranh 20 chỗ
+        List<Callable<BookingDTO>> requests = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            int people = i % 3 + 1;
+            requests.add(() -> bookingService.createBooking(data.bookingRequest(startDate, people), null));
+        }
+        List<BookingDTO> held = succeeded(runTogether(requests));
+
+        int heldSeats = seats(held);
+        assertThat(heldSeats).isPositive().isLessThanOrEqualTo(CAPACITY);
+        assertCounters(0, heldSeats);
+
+        // 2. Xác nhận nửa đầu, từ chối nửa sau, đồng thời khách mới đặt vào chỗ vừa được trả
+        List<BookingDTO> toConfirm = held.subList(0, held.size() / 2);
+        List<BookingDTO> toReject = held.subList(held.size() / 2, held.size());
+        List<Callable<BookingDTO>> mixed = new ArrayList<>();
+        toConfirm.forEach(b -> mixed.add(() -> bookingService.confirmBooking(b.getId())));
+        toReject.forEach(b -> mixed.add(() -> bookingService.rejectBooking(b.getId(), "test")));
+        for (int i = 0; i < 30; i++) {
+            int people = i % 3 + 1;
+            mixed.add(() -> bookingService.createBooking(data.bookingRequest(startDate, people), null));
+        }
+        List<BookingDTO> results = succeeded(runTogether(mixed));
+
+        int bookedSeats = seats(results.stream().filter(b -> b.getStatus() == BookingStatus.CONFIRMED).toList());
+        int stillHeld = seats(results.stream().filter(b -> b.getStatus() == BookingStatus.PENDING).toList());
+        assertThat(bookedSeats).isEqualTo(seats(toConfirm));
+        assertCounters(bookedSeats, stillHeld);
+    }
+
+    @Test
+    void concurrentReleasesOfSameBookingReleaseOnce() throws Exception {
+        BookingDTO booking = bookingService.createBooking(data.bookingRequest(startDate, 3), null);
+        assertCounters(0, 3);
+
+        // Cùng 1 booking bị từ chối nhiều lần song song: chỉ 1 lần thành công, chỗ chỉ trả 1 lần
+        List<Callable<BookingDTO>> rejects = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            rejects.add(() -> bookingService.rejectBooking(booking.getId(), "test"));
+        }
+        assertThat(succeeded(runTogether(rejects))).hasSize(1);
+        assertCounters(0, 0);
+    }
+
+    @Test
+    void deleteRacingHoldExpiryReleasesSeatsOnce() throws Exception {
+        // Booking khác cùng ngày: trả chỗ 2 lần sẽ trừ vào chỗ của booking này
+        BookingDTO other = bookingService.createBooking(data.bookingRequest(startDate, 2), null);
+
+        for (int i = 0; i < 10; i++) {
+            BookingDTO booking = bookingService.createBooking(data.bookingRequest(startDate, 3), null);
+            data.expireHoldNow(booking.getId());
+
+            runTogether(List.<Callable<Object>>of(
+                    () -> bookingService.expireHolds(List.of(booking.getId())),
+                    () -> {
+                        bookingService.softDeleteBooking(booking.getId());
+                        return null;
+                    }));
+
+            assertCounters(0, other.getNumberOfPeople());
+        }
+    }
+
+    // Khối lượng lớn: hàng nghìn lượt đặt tranh nhau, tổng chỗ giữ = tổng booking thành công.
+    // Giới hạn vài nghìn request / 64 luồng để chạy được trên CI với pool 10 kết nối mặc định của Hikari
+    // (nhiều luồng hơn chỉ xếp hàng chờ kết nối, không tăng tranh chấp trên dòng ngày khởi hành).
+    @ParameterizedTest(name = "{0} requests, {1} threads, {2} seats")
+    @CsvSource({
+            "1000, 32, 200",
+            "3000, 64, 500"
+    })
+    void highVolumeBookingsNeverOversell(int requests, int threads, int capacity) throws Exception {
+        TourStartDate date = data.startDate(data.tour(data.destination(), capacity),
+                LocalDate.now().plusMonths(2), capacity);
+        ExecutorService big = adminPool(threads);
+        try {
+            List<Callable<BookingDTO>> bookings = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                int people = i % 4 + 1;
+                bookings.add(() -> bookingService.createBooking(data.bookingRequest(date, people), null));
+            }
+            List<BookingDTO> held = succeeded(runTogether(big, bookings));
+
+            int heldSeats = seats(held);
+            assertThat(heldSeats).isPositive().isLessThanOrEqualTo(capacity);
+            TourStartDate sd = tourStartDateRepository.findById(date.getId()).orElseThrow();
+            assertThat(sd.getHeldParticipants()).isEqualTo(heldSeats);
+            assertThat(sd.getBookedParticipants()).isZero();
+            assertThat(sd.getRemainingSeats()).isEqualTo(capacity - heldSeats).isNotNegative();
+        } finally {
+            big.shutdownNow();
+        }
+    }
+
+    /* ---- helpers ---- */
+
+    private static ExecutorService adminPool(int threads) {
+        SecurityContext admin = new SecurityContextImpl(new UsernamePasswordAuthenticationToken(
+                "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        return new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(threads), admin);
+    }
+
+    private <T> List<Future<T>> runTogether(List<Callable<T>> tasks) throws InterruptedException {
+        return runTogether(pool, tasks);
+    }
+
+    // Chạy tất cả cùng lúc (chờ đủ luồng rồi mới bắt đầu)
+    private static <T> List<Future<T>> runTogether(ExecutorService pool, List<Callable<T>> tasks)
+            throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Callable<T>> gated = tasks.stream().<Callable<T>>map(task -> () -> {
+            ready.await();
+            return task.call();
+        }).toList();
+        List<Future<T>> futures = new ArrayList<>();
+        gated.forEach(task -> futures.add(pool.submit(task)));
+        ready.countDown();
+        for (Future<T> f : futures) {
+            try {
+                f.get(60, TimeUnit.SECONDS);
+            } catch (ExecutionException | TimeoutException ignored) {
+                // thất bại nghiệp vụ (hết chỗ, sai trạng thái) được lọc trong succeeded()
+            }
+        }
+        return futures;
+    }
+
+    // Kết quả thành công; lỗi chỉ được phép là lỗi nghiệp vụ (400), không phải lỗi DB / deadlock
+    private static List<BookingDTO> succeeded(List<Future<BookingDTO>> futures) throws InterruptedException {
+        List<BookingDTO> ok = new ArrayList<>();
+        for (Future<BookingDTO> f : futures) {
+            try {
+                ok.add(f.get());
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+        return ok;
+    }
+
+    private static int seats(List<BookingDTO> bookings) {
+        return bookings.stream().mapToInt(BookingDTO::getNumberOfPeople).sum();
+    }
+
+    private void assertCounters(int booked, int held) {
+        TourStartDate sd = tourStartDateRepository.findById(startDate.getId()).orElseThrow();
+        assertThat(sd.getBookedParticipants()).isEqualTo(booked).isNotNegative();
+        assertThat(sd.getHeldParticipants()).isEqualTo(held).isNotNegative();
+        assertThat(sd.getRemainingSeats()).isNotNegative();
+    }
+}
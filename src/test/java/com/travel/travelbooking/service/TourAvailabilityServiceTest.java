@@ -0,0 +1,76 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.BookingDTO;
+import com.travel.travelbooking.dto.TourAvailabilityDTO;
+import com.travel.travelbooking.entity.Tour;
+import com.travel.travelbooking.entity.TourStartDate;
+import com.travel.travelbooking.repository.TourStartDateRepository;
+import com.travel.travelbooking.support.MySqlIntegrationTest;
+import com.travel.travelbooking.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TourAvailabilityServiceTest extends MySqlIntegrationTest {
+
+    private static final int CAPACITY = 10;
+
+    @Autowired private TourAvailabilityService tourAvailabilityService;
+    @Autowired private SeatInventoryReconcileService reconcileService;
+    @Autowired private BookingService bookingService;
+    @Autowired private TourStartDateRepository tourStartDateRepository;
+    @Autowired private TestData data;
+
+    private Tour tour;
+    private TourStartDate startDate;
+
+    @BeforeEach
+    void setUp() {
+        tour = data.tour(data.destination(), CAPACITY);
+        startDate = data.startDate(tour, LocalDate.now().plusMonths(1), CAPACITY);
+    }
+
+    @Test
+    void everyRequestedTourHasAnEntryInRequestOrder() {
+        Tour withoutDates = data.tour(data.destination(), CAPACITY);
+        long unknown = Long.MAX_VALUE;
+
+        List<TourAvailabilityDTO> result = tourAvailabilityService.getAvailability(
+                List.of(unknown, tour.getId(), withoutDates.getId(), tour.getId()), null, null);
+
+        assertThat(result).extracting(TourAvailabilityDTO::getTourId)
+                .containsExactly(unknown, tour.getId(), withoutDates.getId());
+        assertThat(result.get(1).getNextRemainingSeats()).isEqualTo(CAPACITY);
+        assertThat(result.get(1).isSoldOut()).isFalse();
+        List.of(result.get(0), result.get(2)).forEach(empty -> {
+            assertThat(empty.getStartDates()).isEmpty();
+            assertThat(empty.getNextAvailableDate()).isNull();
+            assertThat(empty.getNextRemainingSeats()).isZero();
+            assertThat(empty.isSoldOut()).isTrue();
+        });
+    }
+
+    @Test
+    void reconcileRecomputesDriftedCountersFromBookings() {
+        BookingDTO held = bookingService.createBooking(data.bookingRequest(startDate, 3), null);
+
+        // Bộ đếm bị lệch (dòng cũ chưa có bộ đếm, sửa tay trong DB...)
+        TourStartDate sd = tourStartDateRepository.findById(startDate.getId()).orElseThrow();
+        sd.setBookedParticipants(7);
+        sd.setHeldParticipants(0);
+        tourStartDateRepository.save(sd);
+        assertThat(tourStartDateRepository.findDriftedCounterIds(LocalDate.now())).contains(startDate.getId());
+
+        reconcileService.reconcile();
+
+        sd = tourStartDateRepository.findById(startDate.getId()).orElseThrow();
+        assertThat(sd.getBookedParticipants()).isZero();
+        assertThat(sd.getHeldParticipants()).isEqualTo(held.getNumberOfPeople());
+        assertThat(tourStartDateRepository.findDriftedCounterIds(LocalDate.now())).doesNotContain(startDate.getId());
+    }
+}
@@ -0,0 +1,129 @@
+package com.travel.travelbooking.service;
+
+import com.travel.travelbooking.dto.TourDetailDTO;
+import com.travel.travelbooking.entity.Destination;
+import com.travel.travelbooking.entity.Hotel;
+import com.travel.travelbooking.entity.Tour;
+import com.travel.travelbooking.support.MySqlIntegrationTest;
+import com.travel.travelbooking.support.TestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// getTourDetailDTOs và các API danh sách tour phải chạy số query cố định, không tăng theo số tour
+// (chống N+1 quay lại ở TourDetailService lẫn TourServiceImpl.enhanceWithDetails)
+class TourDetailServiceQueryCountTest extends MySqlIntegrationTest {
+
+    // TourDetail + transports, 3 collection còn lại, hotel + ảnh, hotel + video
+    private static final long EXPECTED_QUERIES = 6;
+
+    @Autowired private TourDetailService tourDetailService;
+    @Autowired private TourService tourService;
+    @Autowired private TestData data;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void loadsDetailsWithFixedNumberOfQueries() {
+        List<Long> few = createTours(2);
+        List<Long> many = createTours(12);
+
+        long fewQueries = countQueries(few);
+        long manyQueries = countQueries(many);
+
+        assertThat(fewQueries).isEqualTo(EXPECTED_QUERIES);
+        assertThat(manyQueries).isEqualTo(fewQueries);
+    }
+
+    @Test
+    void returnsEveryCollectionOfEveryTour() {
+        List<Long> tourIds = createTours(3);
+
+        Map<Long, TourDetailDTO> details = tourDetailService.getTourDetailDTOs(tourIds);
+
+        assertThat(details).containsOnlyKeys(tourIds);
+        details.values().forEach(d -> {
+            assertThat(d.getTransports()).hasSize(2);
+            assertThat(d.getAdditionalImages()).hasSize(2);
+            assertThat(d.getVideos()).hasSize(1);
+            assertThat(d.getSelectedHotels()).hasSize(2)
+                    .allSatisfy(h -> {
+                        assertThat(h.getImages()).hasSize(2);
+                        assertThat(h.getVideos()).hasSize(1);
+                    });
+        });
+    }
+
+    // GET /api/tours
+    @Test
+    void tourListingRunsFixedNumberOfQueries() {
+        createTours(2);
+        long fewQueries = countQueries(() -> tourService.getAllTours().size());
+
+        createTours(12);
+        long manyQueries = countQueries(() -> tourService.getAllTours().size());
+
+        assertThat(manyQueries).isEqualTo(fewQueries);
+    }
+
+    // GET /api/tours/destination/{id}: danh sách 2 tour và 12 tour cùng số query
+    @Test
+    void destinationListingRunsFixedNumberOfQueries() {
+        Destination few = data.destination();
+        createTours(few, 2);
+        Destination many = data.destination();
+        createTours(many, 12);
+
+        long fewQueries = countQueries(() -> tourService.getToursByDestination(few.getId()).size());
+        long manyQueries = countQueries(() -> tourService.getToursByDestination(many.getId()).size());
+
+        assertThat(manyQueries).isEqualTo(fewQueries);
+    }
+
+    private long countQueries(Supplier<Integer> listing) {
+        statistics.clear();
+        assertThat(listing.get()).isPositive();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countQueries(List<Long> tourIds) {
+        statistics.clear();
+        Map<Long, TourDetailDTO> details = tourDetailService.getTourDetailDTOs(tourIds);
+        assertThat(details).hasSize(tourIds.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Long> createTours(int count) {
+        return createTours(data.destination(), count);
+    }
+
+    private List<Long> createTours(Destination destination, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Tour tour = data.tour(destination, 20);
+            List<Hotel> hotels = List.of(data.hotel(2, 1), data.hotel(2, 1));
+            data.detail(tour, hotels);
+            data.startDate(tour, LocalDate.now().plusMonths(1), 20);
+            ids.add(tour.getId());
+        }
+        return ids;
+    }
+}
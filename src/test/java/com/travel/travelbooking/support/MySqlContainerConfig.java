@@ -0,0 +1,20 @@
+package com.travel.travelbooking.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+// MySQL thật cho test tích hợp: query native (ON DUPLICATE KEY, FOR UPDATE, UPDATE có điều kiện) cần đúng MySQL
+@TestConfiguration(proxyBeanMethods = false)
+@Import(TestData.class)
+public class MySqlContainerConfig {
+
+    @Bean
+    @ServiceConnection
+    MySQLContainer<?> mysqlContainer() {
+        return new MySQLContainer<>(DockerImageName.parse("mysql:8.0"));
+    }
+}
@@ -0,0 +1,15 @@
+package com.travel.travelbooking.support;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Lớp cha của test cần database: cùng cấu hình → dùng chung 1 context và 1 container.
+// Máy không có Docker → các test này bị bỏ qua thay vì lỗi.
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(MySqlContainerConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class MySqlIntegrationTest {
+}
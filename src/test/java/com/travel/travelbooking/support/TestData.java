@@ -0,0 +1,103 @@
+package com.travel.travelbooking.support;
+
+import com.travel.travelbooking.dto.BookingCreateRequest;
+import com.travel.travelbooking.entity.*;
+import com.travel.travelbooking.repository.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Dựng dữ liệu tối thiểu cho test tích hợp (tên ngẫu nhiên để các test không đụng nhau)
+@TestComponent
+public class TestData {
+
+    @Autowired private DestinationRepository destinationRepository;
+    @Autowired private TourRepository tourRepository;
+    @Autowired private TourDetailRepository tourDetailRepository;
+    @Autowired private TourStartDateRepository tourStartDateRepository;
+    @Autowired private HotelRepository hotelRepository;
+    @Autowired private BookingRepository bookingRepository;
+
+    public Destination destination() {
+        Destination d = new Destination();
+        d.setName("Điểm đến " + suffix());
+        d.setRegion(Region.BAC);
+        return destinationRepository.save(d);
+    }
+
+    public Tour tour(Destination destination, int maxParticipants) {
+        Tour t = new Tour();
+        t.setName("Tour " + suffix());
+        t.setDestination(destination);
+        t.setDuration("3 ngày 2 đêm");
+        t.setPrice(1_000_000.0);
+        t.setMaxParticipants(maxParticipants);
+        return tourRepository.save(t);
+    }
+
+    public TourStartDate startDate(Tour tour, LocalDate date, int capacity) {
+        TourStartDate sd = new TourStartDate(tour, date);
+        sd.setCapacity(capacity);
+        return tourStartDateRepository.save(sd);
+    }
+
+    public Hotel hotel(int images, int videos) {
+        Hotel h = new Hotel();
+        h.setName("Khách sạn " + suffix());
+        h.setAddress("1 Tràng Tiền, Hà Nội");
+        h.setStarRating(4);
+        for (int i = 0; i < images; i++) h.getImages().add("https://img.test/h/" + suffix());
+        for (int i = 0; i < videos; i++) h.getVideos().add("https://video.test/h/" + suffix());
+        return hotelRepository.save(h);
+    }
+
+    // Chi tiết tour có đủ các collection: phương tiện, khách sạn, ảnh, video
+    public TourDetail detail(Tour tour, List<Hotel> hotels) {
+        TourDetail d = new TourDetail();
+        d.setTour(tour);
+        d.setItinerary("Ngày 1: ...");
+        d.setDeparturePoint("Hà Nội");
+        d.setDepartureTime("07:00");
+        d.setSuitableFor("Gia đình");
+        d.setCancellationPolicy("Hoàn 50% trước 7 ngày");
+        Transport bus = new Transport();
+        bus.setName("Xe 29 chỗ");
+        bus.setPrice(0.0);
+        Transport plane = new Transport();
+        plane.setName("Máy bay");
+        plane.setPrice(1_500_000.0);
+        d.getTransports().addAll(List.of(bus, plane));
+        hotels.forEach(h -> d.getSelectedHotelIds().add(h.getId()));
+        d.getAdditionalImages().addAll(List.of("https://img.test/t/" + suffix(), "https://img.test/t/" + suffix()));
+        d.getVideos().add("https://video.test/t/" + suffix());
+        return tourDetailRepository.save(d);
+    }
+
+    // Khách vãng lai đặt ngày khởi hành startDate
+    public BookingCreateRequest bookingRequest(TourStartDate startDate, int people) {
+        BookingCreateRequest r = new BookingCreateRequest();
+        r.setTourId(startDate.getTour().getId());
+        r.setStartDate(startDate.getStartDate());
+        r.setNumberOfPeople(people);
+        r.setPaymentMethod(PaymentMethod.DIRECT);
+        r.setContactName("Khách test");
+        r.setContactEmail("guest@test.local");
+        r.setContactPhone("0900000000");
+        return r;
+    }
+
+    // Đẩy hạn giữ chỗ về quá khứ để expireHolds xử lý ngay
+    public void expireHoldNow(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        booking.setHoldExpiresAt(LocalDateTime.now().minusMinutes(1));
+        bookingRepository.save(booking);
+    }
+
+    private static String suffix() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+}
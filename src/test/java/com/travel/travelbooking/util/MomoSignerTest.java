@@ -0,0 +1,70 @@
+package com.travel.travelbooking.util;
+
+import com.travel.travelbooking.config.MomoConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MomoSignerTest {
+
+    // RFC 4231, test case 2 (HMAC-SHA256)
+    private static final String KEY = "Jefe";
+    private static final String DATA = "what do ya want for nothing?";
+    private static final String EXPECTED = "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843";
+
+    private MomoSigner signer;
+
+    @BeforeEach
+    void setUp() {
+        MomoConfig config = mock(MomoConfig.class);
+        when(config.getSecretKey()).thenReturn(KEY);
+        signer = new MomoSigner(config);
+    }
+
+    @Test
+    void matchesKnownVector() {
+        assertThat(signer.sign(DATA)).isEqualTo(EXPECTED);
+        // Mac được dùng lại trên cùng thread → lần ký sau vẫn đúng
+        assertThat(signer.sign(DATA)).isEqualTo(EXPECTED);
+    }
+
+    @Test
+    void verifyAcceptsOnlyExactSignature() {
+        assertThat(signer.verify(DATA, EXPECTED)).isTrue();
+        assertThat(signer.verify(DATA, EXPECTED.toUpperCase())).isFalse();
+        assertThat(signer.verify(DATA, EXPECTED.substring(1) + "0")).isFalse();
+        assertThat(signer.verify(DATA + " ", EXPECTED)).isFalse();
+        assertThat(signer.verify(DATA, null)).isFalse();
+    }
+
+    @Test
+    void concurrentSigningGivesSameResult() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(pool.submit(() -> signer.sign(DATA)));
+            }
+            for (Future<String> f : futures) {
+                assertThat(f.get(10, TimeUnit.SECONDS)).isEqualTo(EXPECTED);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void hexIsLowerCaseTwoCharsPerByte() {
+        assertThat(MomoSigner.toHex(new byte[]{0x00, 0x0f, (byte) 0xa0, (byte) 0xff})).isEqualTo("000fa0ff");
+    }
+}